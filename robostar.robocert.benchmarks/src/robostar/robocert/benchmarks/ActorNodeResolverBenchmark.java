@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import robostar.robocert.util.ActorNodeResolver;
+
+/**
+ * Measures {@link ActorNodeResolver} over every group of a synthetic model.
+ *
+ * @author Matt Windsor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActorNodeResolverBenchmark {
+
+  /**
+   * Resolves every actor of every group.
+   */
+  @Benchmark
+  public void resolve(ModelState s, Blackhole bh) {
+    for (var g : s.model.groups()) {
+      for (var a : g.getActors()) {
+        bh.consume(s.actorRes.resolve(a).toList());
+      }
+    }
+  }
+
+  /**
+   * Resolves the world of every group's target.
+   */
+  @Benchmark
+  public void resolveWorld(ModelState s, Blackhole bh) {
+    for (var g : s.model.groups()) {
+      bh.consume(s.actorRes.resolveWorld(g.getTarget()).toList());
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.benchmarks;
+
+import circus.robocalc.robochart.ConnectionNode;
+import circus.robocalc.robochart.Controller;
+import circus.robocalc.robochart.NamedElement;
+import circus.robocalc.robochart.Operation;
+import circus.robocalc.robochart.RoboticPlatform;
+import circus.robocalc.robochart.StateMachine;
+import circus.robocalc.robochart.util.RoboChartSwitch;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import robostar.robocert.InControllerTarget;
+import robostar.robocert.InModuleTarget;
+import robostar.robocert.Target;
+import robostar.robocert.util.ClassDispatcher;
+import robostar.robocert.util.RoboCertSwitch;
+import robostar.robocert.util.resolve.DefinitionResolver;
+import robostar.robocert.util.resolve.TargetElementResolver;
+
+/**
+ * Compares dispatch through {@link ClassDispatcher} tables against the per-call anonymous EMF
+ * switches it replaced, on {@link DefinitionResolver#normalise} and
+ * {@link TargetElementResolver#resolve}.
+ *
+ * <p>The {@code switch} benchmarks reproduce the old implementations.
+ *
+ * @author Matt Windsor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+  /**
+   * State holding every node of every module in the model, and the resolvers under test.
+   */
+  @State(Scope.Benchmark)
+  public static class Nodes {
+
+    public List<ConnectionNode> nodes;
+    public DefinitionResolver defRes;
+    public TargetElementResolver elemRes;
+
+    @Setup
+    public void setUp(ModelState s) {
+      nodes = s.model.modules().stream().flatMap(m -> m.getNodes().stream()).toList();
+      defRes = new DefinitionResolver();
+      elemRes = new TargetElementResolver();
+    }
+  }
+
+  /**
+   * Normalises every node through the dispatch table.
+   */
+  @Benchmark
+  public void normaliseTable(Nodes n, Blackhole bh) {
+    for (var x : n.nodes) {
+      bh.consume(n.defRes.normalise(x));
+    }
+  }
+
+  /**
+   * Normalises every node through a fresh anonymous switch per call.
+   */
+  @Benchmark
+  public void normaliseSwitch(Nodes n, Blackhole bh) {
+    for (var x : n.nodes) {
+      bh.consume(normaliseBySwitch(n.defRes, x));
+    }
+  }
+
+  /**
+   * Resolves the element of every collection target through the dispatch table.
+   */
+  @Benchmark
+  public void elementTable(ModelState s, Nodes n, Blackhole bh) {
+    for (var t : s.collectionTargets) {
+      bh.consume(n.elemRes.resolve(t));
+    }
+  }
+
+  /**
+   * Resolves the element of every collection target through a fresh switch per call.
+   */
+  @Benchmark
+  public void elementSwitch(ModelState s, Blackhole bh) {
+    for (var t : s.collectionTargets) {
+      bh.consume(elementBySwitch(t));
+    }
+  }
+
+  private static ConnectionNode normaliseBySwitch(DefinitionResolver defRes, ConnectionNode n) {
+    return new RoboChartSwitch<ConnectionNode>() {
+      @Override
+      public ConnectionNode caseConnectionNode(ConnectionNode object) {
+        return object;
+      }
+
+      @Override
+      public ConnectionNode caseStateMachine(StateMachine object) {
+        return defRes.resolve(object);
+      }
+
+      @Override
+      public ConnectionNode caseController(Controller object) {
+        return defRes.resolve(object);
+      }
+
+      @Override
+      public ConnectionNode caseOperation(Operation object) {
+        return defRes.resolve(object);
+      }
+
+      @Override
+      public ConnectionNode caseRoboticPlatform(RoboticPlatform object) {
+        return defRes.resolve(object);
+      }
+    }.doSwitch(n);
+  }
+
+  private static NamedElement elementBySwitch(Target t) {
+    return new RoboCertSwitch<NamedElement>() {
+      @Override
+      public NamedElement caseInModuleTarget(InModuleTarget t) {
+        return t.getModule();
+      }
+
+      @Override
+      public NamedElement caseInControllerTarget(InControllerTarget t) {
+        return t.getController();
+      }
+    }.doSwitch(t);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import robostar.robocert.EventTopic;
+import robostar.robocert.util.resolve.EventResolverImpl;
+import robostar.robocert.util.resolve.ResolutionContext;
+
+/**
+ * Measures {@link EventResolverImpl} over every message of a synthetic model.
+ *
+ * @author Matt Windsor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventResolverBenchmark {
+
+  /**
+   * Resolves each message on its own, as the generator used to.
+   */
+  @Benchmark
+  public void resolveEach(ModelState s, Blackhole bh) {
+    for (var m : s.model.messages()) {
+      bh.consume(s.eventRes.resolve((EventTopic) m.getTopic(), m.getFrom(), m.getTo()).toList());
+    }
+  }
+
+  /**
+   * Resolves each message in one shared resolution context.
+   */
+  @Benchmark
+  public void resolveShared(ModelState s, Blackhole bh) {
+    final var ctx = new ResolutionContext(s.actorRes);
+    for (var m : s.model.messages()) {
+      bh.consume(
+          s.eventRes.resolve((EventTopic) m.getTopic(), m.getFrom(), m.getTo(), ctx).toList());
+    }
+  }
+
+  /**
+   * Resolves every group in batches.
+   */
+  @Benchmark
+  public void resolveAll(ModelState s, Blackhole bh) {
+    final var ctx = new ResolutionContext(s.actorRes);
+    for (var g : s.model.groups()) {
+      bh.consume(s.eventRes.resolveAll(g, ctx));
+    }
+  }
+}
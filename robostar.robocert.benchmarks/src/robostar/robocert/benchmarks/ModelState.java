@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.benchmarks;
+
+import circus.robocalc.robochart.Controller;
+import circus.robocalc.robochart.RCModule;
+import circus.robocalc.robochart.StateMachineBody;
+import java.util.List;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import robostar.robocert.CollectionTarget;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.util.ActorNodeResolver;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.TargetFactory;
+import robostar.robocert.util.resolve.CachedNameResolver;
+import robostar.robocert.util.resolve.ControllerResolver;
+import robostar.robocert.util.resolve.DefinitionResolver;
+import robostar.robocert.util.resolve.EventResolverImpl;
+import robostar.robocert.util.resolve.ModuleResolver;
+import robostar.robocert.util.resolve.StateMachineResolver;
+import robostar.robocert.util.resolve.TargetComponentsResolver;
+import robostar.robocert.util.resolve.TargetElementResolver;
+
+/**
+ * Benchmark state holding a {@link SyntheticModel} of parameterised size, and the resolvers that
+ * the benchmarks exercise over it.
+ *
+ * @author Matt Windsor
+ */
+@State(Scope.Benchmark)
+public class ModelState {
+
+  @Param({"1", "4"})
+  public int modules;
+
+  @Param({"2", "8"})
+  public int controllers;
+
+  @Param({"2", "8"})
+  public int machines;
+
+  @Param({"2", "8"})
+  public int connections;
+
+  public SyntheticModel model;
+
+  public ControllerResolver ctrlRes;
+  public ModuleResolver modRes;
+  public StateMachineResolver stmRes;
+  public ActorNodeResolver actorRes;
+  public EventResolverImpl eventRes;
+  public TargetComponentsResolver compRes;
+
+  public CachedNameResolver<RCModule> cachedModRes;
+  public CachedNameResolver<Controller> cachedCtrlRes;
+  public CachedNameResolver<StateMachineBody> cachedStmRes;
+
+  /**
+   * In-module targets for every module, then in-controller targets for every controller.
+   */
+  public List<CollectionTarget> collectionTargets;
+
+  @Setup
+  public void setUp() {
+    model = new SyntheticModel(modules, controllers, machines, connections);
+
+    final var defRes = new DefinitionResolver();
+    ctrlRes = new ControllerResolver();
+    modRes = new ModuleResolver(defRes);
+    stmRes = new StateMachineResolver(ctrlRes);
+    actorRes = new ActorNodeResolver(ctrlRes, modRes, stmRes);
+    eventRes = new EventResolverImpl(actorRes, ctrlRes, stmRes, new Fingerprinter());
+    compRes = new TargetComponentsResolver(defRes, new TargetElementResolver());
+
+    cachedModRes = new CachedNameResolver<>(modRes);
+    cachedCtrlRes = new CachedNameResolver<>(ctrlRes);
+    cachedStmRes = new CachedNameResolver<>(stmRes);
+
+    final var targetFactory = new TargetFactory(RoboCertFactory.eINSTANCE);
+    collectionTargets = Stream.concat(
+        model.modules().stream().map(targetFactory::inModule),
+        model.controllers().stream().map(targetFactory::inController)).toList();
+  }
+}
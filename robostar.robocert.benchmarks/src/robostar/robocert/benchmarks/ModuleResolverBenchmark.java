@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.benchmarks;
+
+import circus.robocalc.robochart.RCModule;
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import robostar.robocert.util.ParallelExecutionPolicy;
+import robostar.robocert.util.SequentialExecutionPolicy;
+import robostar.robocert.util.resolve.DefinitionResolver;
+import robostar.robocert.util.resolve.ModuleResolver;
+
+/**
+ * Measures the per-call cost of {@link ModuleResolver} lookups under each execution policy.
+ *
+ * <p>The parallel policy reproduces the old behaviour of {@link ModuleResolver}, which always
+ * streamed module nodes in parallel.
+ *
+ * @author Matt Windsor
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModuleResolverBenchmark {
+
+  @Param({"sequential", "parallel"})
+  public String policy;
+
+  @Param({"2", "8", "64"})
+  public int nodes;
+
+  private ModuleResolver modRes;
+  private RCModule module;
+
+  @Setup
+  public void setUp() {
+    final var defRes = new DefinitionResolver();
+    modRes = switch (policy) {
+      case "sequential" -> new ModuleResolver(defRes, new SequentialExecutionPolicy());
+      case "parallel" -> new ModuleResolver(defRes, new ParallelExecutionPolicy());
+      default -> throw new IllegalArgumentException("unknown policy: " + policy);
+    };
+
+    final var factory = RoboChartFactory.eINSTANCE;
+    module = factory.createRCModule();
+    module.setName("Mod");
+
+    // Put the platform last, so that finding it means visiting every node.
+    for (var i = 1; i < nodes; i++) {
+      final var ctrl = factory.createControllerDef();
+      ctrl.setName("C" + i);
+      module.getNodes().add(ctrl);
+    }
+    final var rp = factory.createRoboticPlatformDef();
+    rp.setName("RP");
+    module.getNodes().add(rp);
+  }
+
+  @Benchmark
+  public Object platform() {
+    return modRes.platform(module);
+  }
+
+  @Benchmark
+  public long controllers() {
+    return modRes.controllers(module).count();
+  }
+}
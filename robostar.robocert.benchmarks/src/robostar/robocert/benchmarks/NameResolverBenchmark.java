@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import robostar.robocert.util.resolve.NameResolver;
+
+/**
+ * Measures the {@link NameResolver}s, with and without caching, over a synthetic model.
+ *
+ * @author Matt Windsor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameResolverBenchmark {
+
+  /**
+   * Names every module, controller, and state machine.
+   */
+  @Benchmark
+  public void name(ModelState s, Blackhole bh) {
+    for (var m : s.model.modules()) {
+      bh.consume(s.modRes.name(m));
+    }
+    for (var c : s.model.controllers()) {
+      bh.consume(s.ctrlRes.name(c));
+    }
+    for (var m : s.model.machines()) {
+      bh.consume(s.stmRes.name(m));
+    }
+  }
+
+  /**
+   * Names every module, controller, and state machine through the caching decorator.
+   */
+  @Benchmark
+  public void nameCached(ModelState s, Blackhole bh) {
+    for (var m : s.model.modules()) {
+      bh.consume(s.cachedModRes.joined(m, "::"));
+    }
+    for (var c : s.model.controllers()) {
+      bh.consume(s.cachedCtrlRes.joined(c, "::"));
+    }
+    for (var m : s.model.machines()) {
+      bh.consume(s.cachedStmRes.joined(m, "::"));
+    }
+  }
+}
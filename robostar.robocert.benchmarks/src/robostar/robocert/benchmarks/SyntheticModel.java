@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.benchmarks;
+
+import circus.robocalc.robochart.Connection;
+import circus.robocalc.robochart.ConnectionNode;
+import circus.robocalc.robochart.ControllerDef;
+import circus.robocalc.robochart.Event;
+import circus.robocalc.robochart.Interface;
+import circus.robocalc.robochart.RCModule;
+import circus.robocalc.robochart.RCPackage;
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.StateMachineDef;
+import java.util.ArrayList;
+import java.util.List;
+import robostar.robocert.Actor;
+import robostar.robocert.CertPackage;
+import robostar.robocert.Interaction;
+import robostar.robocert.Message;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.Target;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.TargetFactory;
+
+/**
+ * A synthetic RoboChart model, with RoboCert specifications over it, for benchmarking.
+ *
+ * <p>The model is a package of {@code modules} modules.  Each module has a platform and
+ * {@code controllers} controllers, each of which has {@code machines} state machines.  Every
+ * module connects its platform to each controller, and every controller connects itself to each
+ * state machine, {@code connections} times in each direction.
+ *
+ * <p>On the RoboCert side, each module, controller, and state machine is the target of a group
+ * with one interaction.  That interaction has one world-to-target and one target-to-world message
+ * per connection in the target's outbound scope.  Generation is deterministic.
+ *
+ * @author Matt Windsor
+ */
+public final class SyntheticModel {
+
+  private final RoboChartFactory chart = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory cert = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(chart);
+  private final MessageFactory msgFactory = new MessageFactory(cert);
+  private final TargetFactory targetFactory = new TargetFactory(cert);
+
+  private final RCPackage chartPackage;
+  private final CertPackage certPackage;
+  private final Interface events;
+
+  private final List<RCModule> modules = new ArrayList<>();
+  private final List<ControllerDef> controllers = new ArrayList<>();
+  private final List<StateMachineDef> machines = new ArrayList<>();
+  private final List<Message> messages = new ArrayList<>();
+
+  /**
+   * Generates a synthetic model.
+   *
+   * @param modules     number of modules.
+   * @param controllers number of controllers per module.
+   * @param machines    number of state machines per controller.
+   * @param connections number of connections in each direction between each pair of connected
+   *                    nodes.
+   */
+  public SyntheticModel(int modules, int controllers, int machines, int connections) {
+    chartPackage = chart.createRCPackage();
+    chartPackage.setName("Synth");
+
+    events = chart.createInterface();
+    events.setName("Events");
+    chartPackage.getInterfaces().add(events);
+
+    certPackage = cert.createCertPackage();
+    certPackage.setName("SynthSpec");
+
+    for (var i = 0; i < modules; i++) {
+      generateModule("M" + i, controllers, machines, connections);
+    }
+  }
+
+  /**
+   * @return the RoboChart package containing every module.
+   */
+  public RCPackage chartPackage() {
+    return chartPackage;
+  }
+
+  /**
+   * @return the RoboCert package containing every group.
+   */
+  public CertPackage certPackage() {
+    return certPackage;
+  }
+
+  /**
+   * @return every module, in order of generation.
+   */
+  public List<RCModule> modules() {
+    return modules;
+  }
+
+  /**
+   * @return every controller, in order of generation.
+   */
+  public List<ControllerDef> controllers() {
+    return controllers;
+  }
+
+  /**
+   * @return every state machine, in order of generation.
+   */
+  public List<StateMachineDef> machines() {
+    return machines;
+  }
+
+  /**
+   * @return every specification group, in order of generation.
+   */
+  public List<SpecificationGroup> groups() {
+    return certPackage.getGroups().stream().map(SpecificationGroup.class::cast).toList();
+  }
+
+  /**
+   * @return every message, in order of generation.
+   */
+  public List<Message> messages() {
+    return messages;
+  }
+
+  private void generateModule(String name, int controllers, int machines, int connections) {
+    final var mod = chart.createRCModule();
+    mod.setName(name);
+    chartPackage.getModules().add(mod);
+    modules.add(mod);
+
+    final var rp = chart.createRoboticPlatformDef();
+    rp.setName(name + "_RP");
+    mod.getNodes().add(rp);
+
+    final var ctrls = new ArrayList<ControllerDef>();
+    for (var i = 0; i < controllers; i++) {
+      final var ctrl = chart.createControllerDef();
+      ctrl.setName(name + "_C" + i);
+      mod.getNodes().add(ctrl);
+      ctrls.add(ctrl);
+      this.controllers.add(ctrl);
+
+      connectBoth(mod.getConnections(), rp, ctrl, connections);
+
+      for (var j = 0; j < machines; j++) {
+        final var stm = chart.createStateMachineDef();
+        stm.setName(ctrl.getName() + "_S" + j);
+        ctrl.getMachines().add(stm);
+        this.machines.add(stm);
+
+        connectBoth(ctrl.getConnections(), ctrl, stm, connections);
+        generateGroup(targetFactory.stateMachine(stm), connections);
+      }
+      generateGroup(targetFactory.controller(ctrl), connections);
+    }
+    generateGroup(targetFactory.module(mod), connections);
+  }
+
+  private void connectBoth(List<Connection> into, ConnectionNode outer, ConnectionNode inner,
+      int connections) {
+    for (var k = 0; k < connections; k++) {
+      into.add(connect(outer, inner, "in" + k));
+      into.add(connect(inner, outer, "out" + k));
+    }
+  }
+
+  private Connection connect(ConnectionNode from, ConnectionNode to, String event) {
+    final var c = chart.createConnection();
+    c.setFrom(from);
+    c.setTo(to);
+    c.setEfrom(event(event));
+    c.setEto(event(event));
+    return c;
+  }
+
+  private Event event(String name) {
+    final var e = eventFactory.event(name);
+    events.getEvents().add(e);
+    return e;
+  }
+
+  private void generateGroup(Target target, int connections) {
+    final var group = cert.createSpecificationGroup();
+    group.setName("G" + certPackage.getGroups().size());
+    group.setTarget(target);
+    certPackage.getGroups().add(group);
+
+    final var t = msgFactory.targetActor();
+    t.setName("T");
+    final var w = msgFactory.world();
+    w.setName("W");
+    group.getActors().addAll(List.of(t, w));
+
+    final var it = cert.createInteraction();
+    it.setName("seq");
+    it.getActors().addAll(List.of(t, w));
+    group.getInteractions().add(it);
+
+    // Topics use fresh, structurally equal copies of the connection events.
+    for (var k = 0; k < connections; k++) {
+      addMessage(it, w, t, "in" + k);
+      addMessage(it, t, w, "out" + k);
+    }
+  }
+
+  private void addMessage(Interaction it, Actor from, Actor to, String event) {
+    final var msg = msgFactory.spec(from, to, msgFactory.eventTopic(eventFactory.event(event)));
+    final var occ = cert.createMessageOccurrence();
+    occ.setMessage(msg);
+    final var frag = cert.createOccurrenceFragment();
+    frag.setOccurrence(occ);
+    it.getFragments().add(frag);
+    messages.add(msg);
+  }
+}
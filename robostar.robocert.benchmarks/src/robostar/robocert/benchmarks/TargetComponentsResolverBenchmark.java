@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import robostar.robocert.util.resolve.TargetComponentsResolver;
+
+/**
+ * Measures {@link TargetComponentsResolver#find} over the collection targets of a synthetic model.
+ *
+ * @author Matt Windsor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TargetComponentsResolverBenchmark {
+
+  /**
+   * Looks up every controller and state machine in every collection target.
+   */
+  @Benchmark
+  public void find(ModelState s, Blackhole bh) {
+    for (var t : s.collectionTargets) {
+      for (var c : s.model.controllers()) {
+        bh.consume(s.compRes.find(t, c));
+      }
+      for (var m : s.model.machines()) {
+        bh.consume(s.compRes.find(t, m));
+      }
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.benchmarks;
+
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.Message;
+import robostar.robocert.OccurrenceFragment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.InstantiationHelper;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.ir.InteractionCompiler;
+import robostar.robocert.util.trace.TraceAutomaton;
+import robostar.robocert.util.trace.TraceChecker;
+import robostar.robocert.util.trace.TraceCompiler;
+
+/**
+ * Measures the throughput of the {@link TraceChecker}, in messages per microsecond, over a long
+ * trace of an unbounded loop with an interleaving inside it.
+ *
+ * @author Matt Windsor
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceCheckerBenchmark {
+
+  private static final int LENGTH = 100_000;
+
+  /**
+   * State holding the automaton and the trace.
+   */
+  @State(Scope.Benchmark)
+  public static class Trace {
+
+    public TraceAutomaton automaton;
+    public List<Message> messages;
+
+    @Setup
+    public void setUp() {
+      final var cert = RoboCertFactory.eINSTANCE;
+      final var events = new EventFactory(RoboChartFactory.eINSTANCE);
+      final var msgs = new MessageFactory(cert);
+      final var target = msgs.targetActor();
+      final var world = msgs.world();
+
+      // loop { a; par { b } and { c } }
+      final var a = msgs.spec(world, target, msgs.eventTopic(events.event("a")));
+      final var b = msgs.spec(target, world, msgs.eventTopic(events.event("b")));
+      final var c = msgs.spec(target, world, msgs.eventTopic(events.event("c")));
+
+      final var par = cert.createParFragment();
+      par.getBranches().add(operand(cert, occurrence(cert, b)));
+      par.getBranches().add(operand(cert, occurrence(cert, c)));
+      final var loop = cert.createLoopFragment();
+      loop.setBody(operand(cert, occurrence(cert, a), par));
+
+      final var it = cert.createInteraction();
+      it.setName("loop");
+      it.getActors().addAll(List.of(target, world));
+      it.getFragments().add(loop);
+
+      final var folder = new ExpressionFolder(new ExpressionFactory(RoboChartFactory.eINSTANCE),
+          new InstantiationHelper());
+      automaton = new TraceCompiler(new InteractionCompiler(), new Fingerprinter(), folder)
+          .compile(it);
+
+      // Alternate the order of the interleaved messages.
+      messages = new ArrayList<>(LENGTH);
+      for (var i = 0; messages.size() < LENGTH; i++) {
+        messages.add(a);
+        messages.addAll(i % 2 == 0 ? List.of(b, c) : List.of(c, b));
+      }
+      messages = messages.subList(0, LENGTH);
+    }
+
+    private static InteractionOperand operand(RoboCertFactory cert,
+        InteractionFragment... fragments) {
+      final var op = cert.createInteractionOperand();
+      op.setGuard(cert.createEmptyGuard());
+      op.getFragments().addAll(List.of(fragments));
+      return op;
+    }
+
+    private static OccurrenceFragment occurrence(RoboCertFactory cert,
+        Message m) {
+      final var occ = cert.createMessageOccurrence();
+      occ.setMessage(m);
+      final var frag = cert.createOccurrenceFragment();
+      frag.setOccurrence(occ);
+      return frag;
+    }
+  }
+
+  /**
+   * Checks the whole trace.
+   */
+  @Benchmark
+  @OperationsPerInvocation(LENGTH)
+  public void check(Trace t, Blackhole bh) {
+    final var checker = t.automaton.checker();
+    for (var m : t.messages) {
+      bh.consume(checker.message(m));
+    }
+  }
+}
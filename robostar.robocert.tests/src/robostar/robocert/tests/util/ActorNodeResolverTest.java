@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.ConnectionNode;
+import circus.robocalc.robochart.ControllerDef;
+import circus.robocalc.robochart.RCModule;
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.RoboticPlatformDef;
+import circus.robocalc.robochart.StateMachineDef;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.util.ActorNodeResolver;
+import robostar.robocert.util.TargetFactory;
+import robostar.robocert.util.resolve.ControllerResolver;
+import robostar.robocert.util.resolve.DefinitionResolver;
+import robostar.robocert.util.resolve.ModuleResolver;
+import robostar.robocert.util.resolve.StateMachineResolver;
+
+/**
+ * Tests the world resolution parts of {@link ActorNodeResolver}.
+ *
+ * @author Matt Windsor
+ */
+class ActorNodeResolverTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final TargetFactory targetFactory = new TargetFactory(RoboCertFactory.eINSTANCE);
+
+  private final ControllerResolver ctrlRes = new ControllerResolver();
+  private final ActorNodeResolver actorRes = new ActorNodeResolver(ctrlRes,
+      new ModuleResolver(new DefinitionResolver()), new StateMachineResolver(ctrlRes));
+
+  private RCModule mod;
+  private RoboticPlatformDef rp;
+  private ControllerDef c1;
+  private ControllerDef c2;
+  private StateMachineDef s1;
+  private StateMachineDef s2;
+
+  @BeforeEach
+  void setUp() {
+    rp = chartFactory.createRoboticPlatformDef();
+    rp.setName("RP");
+
+    c1 = chartFactory.createControllerDef();
+    c1.setName("C1");
+    c2 = chartFactory.createControllerDef();
+    c2.setName("C2");
+
+    s1 = chartFactory.createStateMachineDef();
+    s1.setName("S1");
+    s2 = chartFactory.createStateMachineDef();
+    s2.setName("S2");
+    c1.getMachines().addAll(List.of(s1, s2));
+
+    mod = chartFactory.createRCModule();
+    mod.setName("Mod");
+    mod.getNodes().addAll(List.of(rp, c1, c2));
+  }
+
+  /**
+   * Tests the world of a controller.
+   */
+  @Test
+  void testWorldNodes_Controller() {
+    final var target = targetFactory.controller(c1);
+    assertThat(List.copyOf(actorRes.worldNodes(target)), is(List.<ConnectionNode>of(rp, c2)));
+    assertThat(actorRes.resolveWorld(target).toList(), is(List.<ConnectionNode>of(rp, c2)));
+  }
+
+  /**
+   * Tests the world of a state machine, and that it follows changes to its controller and module.
+   */
+  @Test
+  void testWorldNodes_StateMachine() {
+    final var target = targetFactory.stateMachine(s1);
+    assertThat(List.copyOf(actorRes.worldNodes(target)),
+        is(List.<ConnectionNode>of(c1, rp, c2, s2)));
+    assertThat(actorRes.worldNodes(target).contains(s1), is(false));
+
+    final var s3 = chartFactory.createStateMachineDef();
+    s3.setName("S3");
+    c1.getMachines().add(s3);
+    assertThat(List.copyOf(actorRes.worldNodes(target)),
+        is(List.<ConnectionNode>of(c1, rp, c2, s2, s3)));
+
+    mod.getNodes().remove(c2);
+    assertThat(List.copyOf(actorRes.worldNodes(target)),
+        is(List.<ConnectionNode>of(c1, rp, s2, s3)));
+  }
+}
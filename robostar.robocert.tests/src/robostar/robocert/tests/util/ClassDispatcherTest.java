@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.RoboChartPackage;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.util.ClassDispatcher;
+
+/**
+ * Tests the {@link ClassDispatcher}.
+ *
+ * @author Matt Windsor
+ */
+class ClassDispatcherTest {
+
+  private static final int CASE_NODE = 0;
+  private static final int CASE_CONTROLLER = 1;
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+
+  private final ClassDispatcher dispatcher = ClassDispatcher.builder(RoboChartPackage.eINSTANCE)
+      .on(RoboChartPackage.Literals.CONNECTION_NODE, CASE_NODE)
+      .on(RoboChartPackage.Literals.CONTROLLER, CASE_CONTROLLER).build();
+
+  /**
+   * Tests that subclasses take the case of their nearest registered supertype.
+   */
+  @Test
+  void testDispatch_Supertypes() {
+    assertThat(dispatcher.dispatch(chartFactory.createControllerDef()), is(CASE_CONTROLLER));
+    assertThat(dispatcher.dispatch(chartFactory.createControllerRef()), is(CASE_CONTROLLER));
+    assertThat(dispatcher.dispatch(chartFactory.createStateMachineDef()), is(CASE_NODE));
+    assertThat(dispatcher.dispatch(chartFactory.createRoboticPlatformDef()), is(CASE_NODE));
+  }
+
+  /**
+   * Tests that unregistered classes, and null, have no case.
+   */
+  @Test
+  void testDispatch_None() {
+    assertThat(dispatcher.dispatch(chartFactory.createRCModule()), is(ClassDispatcher.NONE));
+    assertThat(dispatcher.dispatch(null), is(ClassDispatcher.NONE));
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.Expression;
+import circus.robocalc.robochart.Plus;
+import circus.robocalc.robochart.RefExp;
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.Variable;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.ConstAssignment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.WaitOccurrence;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.InstantiationHelper;
+
+/**
+ * Tests the {@link ExpressionFolder}.
+ *
+ * @author Matt Windsor
+ */
+class ExpressionFolderTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final ExpressionFactory exprFactory = new ExpressionFactory(chartFactory);
+  private final ExpressionFolder folder = new ExpressionFolder(exprFactory,
+      new InstantiationHelper());
+
+  private Variable n;
+  private Variable m;
+  private SpecificationGroup group;
+  private WaitOccurrence wait;
+
+  @BeforeEach
+  void setUp() {
+    n = variable("n");
+    m = variable("m");
+
+    wait = certFactory.createWaitOccurrence();
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(wait);
+    final var it = certFactory.createInteraction();
+    it.getFragments().add(frag);
+
+    group = certFactory.createSpecificationGroup();
+    group.getInteractions().add(it);
+  }
+
+  /**
+   * Tests folding of closed arithmetic and logic.
+   */
+  @Test
+  void testFold_Literals() {
+    // (2 + 3) * 4 - 10 % 4
+    final var e = exprFactory.minus(
+        exprFactory.mult(exprFactory.plus(exprFactory.integer(2), exprFactory.integer(3)),
+            exprFactory.integer(4)),
+        exprFactory.modulus(exprFactory.integer(10), exprFactory.integer(4)));
+    assertThat(folder.integer(e), is(OptionalInt.of(18)));
+    assertThat(folder.integer(exprFactory.neg(exprFactory.integer(5))), is(OptionalInt.of(-5)));
+
+    // 3 <= 4 and (1 != 1 or true)
+    final var b = exprFactory.and(exprFactory.le(exprFactory.integer(3), exprFactory.integer(4)),
+        exprFactory.or(exprFactory.diff(exprFactory.integer(1), exprFactory.integer(1)),
+            exprFactory.bool(true)));
+    assertThat(folder.bool(b), is(Optional.of(true)));
+  }
+
+  /**
+   * Tests that operations with backend-dependent or undefined results are left alone.
+   */
+  @Test
+  void testFold_Partial() {
+    assertThat(folder.integer(exprFactory.div(exprFactory.integer(1), exprFactory.integer(0))),
+        is(OptionalInt.empty()));
+    assertThat(folder.integer(exprFactory.div(exprFactory.integer(-7), exprFactory.integer(2))),
+        is(OptionalInt.empty()));
+    assertThat(folder.integer(
+            exprFactory.plus(exprFactory.integer(Integer.MAX_VALUE), exprFactory.integer(1))),
+        is(OptionalInt.empty()));
+  }
+
+  /**
+   * Tests that constants instantiated by the group are substituted, and cached folds follow
+   * changes to the assignments.
+   */
+  @Test
+  void testFold_Constants() {
+    final var asn = assign(exprFactory.plus(exprFactory.ref(m), exprFactory.integer(1)), n);
+    group.getAssignments().add(asn);
+    group.getAssignments().add(assign(exprFactory.integer(2), m));
+
+    wait.setUnits(exprFactory.mult(exprFactory.ref(n), exprFactory.integer(2)));
+    assertThat(folder.integer(wait.getUnits()), is(OptionalInt.of(6)));
+
+    asn.setValue(exprFactory.integer(5));
+    assertThat(folder.integer(wait.getUnits()), is(OptionalInt.of(10)));
+
+    // Outside the group, n is not instantiated.
+    final var outside = exprFactory.ref(n);
+    assertThat(folder.fold(outside), instanceOf(RefExp.class));
+  }
+
+  /**
+   * Tests that partially folded expressions are simplified.
+   */
+  @Test
+  void testFold_Residual() {
+    final var k = variable("k");
+    group.getAssignments().add(assign(exprFactory.integer(0), n));
+
+    // k + n * 3 = k
+    wait.setUnits(exprFactory.plus(exprFactory.ref(k),
+        exprFactory.mult(exprFactory.ref(n), exprFactory.integer(3))));
+    final var folded = folder.fold(wait.getUnits());
+    assertThat(folded, instanceOf(RefExp.class));
+    assertThat(((RefExp) folded).getRef(), is(k));
+    assertThat(folded.eContainer() == null, is(true));
+
+    // k + 1 stays as it is, but as a copy.
+    final var e = exprFactory.plus(exprFactory.ref(k), exprFactory.integer(1));
+    final var kept = folder.fold(e);
+    assertThat(kept, instanceOf(Plus.class));
+    assertThat(kept == e, is(false));
+
+    // false and k, k or true
+    assertThat(folder.bool(exprFactory.and(exprFactory.bool(false), exprFactory.ref(k))),
+        is(Optional.of(false)));
+    assertThat(folder.bool(exprFactory.or(exprFactory.ref(k), exprFactory.bool(true))),
+        is(Optional.of(true)));
+  }
+
+  /**
+   * Tests that self-referential constants do not loop forever.
+   */
+  @Test
+  void testFold_Cycle() {
+    final var value = exprFactory.plus(exprFactory.ref(n), exprFactory.integer(1));
+    group.getAssignments().add(assign(value, n));
+    wait.setUnits(exprFactory.ref(n));
+    assertThat(folder.integer(wait.getUnits()), is(OptionalInt.empty()));
+  }
+
+  private Variable variable(String name) {
+    final var v = chartFactory.createVariable();
+    v.setName(name);
+    return v;
+  }
+
+  private ConstAssignment assign(Expression value, Variable... constants) {
+    final var a = certFactory.createConstAssignment();
+    a.getConstants().addAll(List.of(constants));
+    a.setValue(value);
+    return a;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.PrimitiveType;
+import circus.robocalc.robochart.RoboChartFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.TypeFactory;
+
+/**
+ * Tests the {@link Fingerprinter}.
+ *
+ * @author Matt Windsor
+ */
+class FingerprinterTest {
+
+  private final EventFactory eventFactory = new EventFactory(RoboChartFactory.eINSTANCE);
+  private final TypeFactory typeFactory = new TypeFactory(RoboChartFactory.eINSTANCE);
+
+  private final Fingerprinter fingerprinter = new Fingerprinter();
+
+  private PrimitiveType nat;
+  private PrimitiveType bool;
+
+  @BeforeEach
+  void setUp() {
+    nat = typeFactory.prim("nat");
+    bool = typeFactory.prim("boolean");
+  }
+
+  /**
+   * Tests that separately constructed but structurally equal events agree.
+   */
+  @Test
+  void testEqual_SameStructure() {
+    final var e1 = eventFactory.event("e", typeFactory.ref(nat));
+    final var e2 = eventFactory.event("e", typeFactory.ref(nat));
+
+    assertThat(fingerprinter.fingerprint(e1), is(fingerprinter.fingerprint(e2)));
+    assertThat(fingerprinter.equal(e1, e2), is(true));
+  }
+
+  /**
+   * Tests that events differing in name or type disagree.
+   */
+  @Test
+  void testEqual_DifferentStructure() {
+    final var e = eventFactory.event("e", typeFactory.ref(nat));
+    final var f = eventFactory.event("f", typeFactory.ref(nat));
+    final var eBool = eventFactory.event("e", typeFactory.ref(bool));
+    final var eUntyped = eventFactory.event("e");
+
+    assertThat(fingerprinter.fingerprint(e), is(not(fingerprinter.fingerprint(f))));
+    assertThat(fingerprinter.equal(e, f), is(false));
+    assertThat(fingerprinter.equal(e, eBool), is(false));
+    assertThat(fingerprinter.equal(e, eUntyped), is(false));
+    assertThat(fingerprinter.equal(e, null), is(false));
+  }
+
+  /**
+   * Tests that fingerprints follow changes to the event and its type.
+   */
+  @Test
+  void testFingerprint_Invalidation() {
+    final var e1 = eventFactory.event("e", typeFactory.ref(nat));
+    final var e2 = eventFactory.event("f", typeFactory.ref(nat));
+    assertThat(fingerprinter.equal(e1, e2), is(false));
+
+    e2.setName("e");
+    assertThat(fingerprinter.equal(e1, e2), is(true));
+
+    e2.setType(typeFactory.ref(bool));
+    assertThat(fingerprinter.equal(e1, e2), is(false));
+
+    // Renaming the referenced type should be noticed too.
+    bool.setName("nat");
+    assertThat(fingerprinter.fingerprint(e1), is(fingerprinter.fingerprint(e2)));
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.Expression;
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.Variable;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.ConstAssignment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.InstantiationEnvironment;
+import robostar.robocert.util.InstantiationHelper;
+
+/**
+ * Tests the {@link InstantiationEnvironment}, and its use in the {@link InstantiationHelper}.
+ *
+ * @author Matt Windsor
+ */
+class InstantiationEnvironmentTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final ExpressionFactory exprFactory = new ExpressionFactory(chartFactory);
+  private final InstantiationHelper instHelper = new InstantiationHelper();
+
+  private Variable x;
+  private Variable y;
+  private SpecificationGroup group;
+
+  @BeforeEach
+  void setUp() {
+    x = variable("x");
+    y = variable("y");
+    group = certFactory.createSpecificationGroup();
+  }
+
+  /**
+   * Tests that the first assignment of a constant wins, as with the uncompiled lookup.
+   */
+  @Test
+  void testGet_FirstMatch() {
+    final var one = exprFactory.integer(1);
+    final var two = exprFactory.integer(2);
+    group.getAssignments().add(assign(one, x));
+    group.getAssignments().add(assign(two, x, y));
+
+    final var env = InstantiationEnvironment.of(group);
+    assertThat(env.get(x), is(Optional.<Expression>of(one)));
+    assertThat(env.get(y), is(Optional.<Expression>of(two)));
+    assertThat(env.has(variable("x")), is(false));
+
+    assertThat(instHelper.getConstant(group.getAssignments(), x),
+        is(Optional.<Expression>of(one)));
+  }
+
+  /**
+   * Tests that cached environments follow changes to the assignments.
+   */
+  @Test
+  void testOf_Changed() {
+    final var one = exprFactory.integer(1);
+    final var asn = assign(one, x);
+    group.getAssignments().add(asn);
+
+    assertThat(InstantiationEnvironment.of(group).has(y), is(false));
+
+    asn.getConstants().add(y);
+    assertThat(InstantiationEnvironment.of(group).get(y), is(Optional.<Expression>of(one)));
+
+    final var two = exprFactory.integer(2);
+    asn.setValue(two);
+    assertThat(instHelper.getConstant(group.getAssignments(), x),
+        is(Optional.<Expression>of(two)));
+
+    group.getAssignments().clear();
+    assertThat(instHelper.getConstant(group.getAssignments(), x), is(Optional.empty()));
+  }
+
+  private Variable variable(String name) {
+    final var v = chartFactory.createVariable();
+    v.setName(name);
+    return v;
+  }
+
+  private ConstAssignment assign(Expression value, Variable... constants) {
+    final var a = certFactory.createConstAssignment();
+    a.getConstants().addAll(List.of(constants));
+    a.setValue(value);
+    return a;
+  }
+}
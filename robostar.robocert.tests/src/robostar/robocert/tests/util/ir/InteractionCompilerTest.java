@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.ir;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.Guard;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.Occurrence;
+import robostar.robocert.OccurrenceFragment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.TargetActor;
+import robostar.robocert.World;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.ir.CompiledInteraction;
+import robostar.robocert.util.ir.InteractionCompiler;
+
+/**
+ * Tests the {@link InteractionCompiler}.
+ *
+ * @author Matt Windsor
+ */
+class InteractionCompilerTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(chartFactory);
+  private final ExpressionFactory exprFactory = new ExpressionFactory(chartFactory);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+
+  private final InteractionCompiler compiler = new InteractionCompiler();
+
+  private TargetActor target;
+  private World world;
+  private Interaction it;
+
+  @BeforeEach
+  void setUp() {
+    target = msgFactory.targetActor();
+    world = msgFactory.world();
+
+    it = certFactory.createInteraction();
+    it.setName("seq");
+    it.getActors().addAll(List.of(target, world));
+  }
+
+  /**
+   * Tests the layout of occurrences, blocks, and branches.
+   */
+  @Test
+  void testCompile_Layout() {
+    final var opt = certFactory.createOptFragment();
+    opt.setBody(operand(certFactory.createEmptyGuard(), message("e")));
+
+    final var exprGuard = certFactory.createExprGuard();
+    final var cond = exprFactory.bool(true);
+    exprGuard.setExpr(cond);
+    final var alt = certFactory.createAltFragment();
+    alt.getBranches().add(operand(exprGuard, message("f")));
+    alt.getBranches().add(operand(certFactory.createElseGuard()));
+
+    final var deadlock = certFactory.createDeadlockOccurrence();
+    deadlock.setActor(world);
+
+    it.getFragments().addAll(List.of(message("d"), opt, alt, occurrence(deadlock)));
+
+    final var ir = compiler.compile(it);
+    final var expected = new int[]{CompiledInteraction.MESSAGE, CompiledInteraction.OPT,
+        CompiledInteraction.BRANCH, CompiledInteraction.MESSAGE, CompiledInteraction.END,
+        CompiledInteraction.ALT, CompiledInteraction.BRANCH, CompiledInteraction.MESSAGE,
+        CompiledInteraction.BRANCH, CompiledInteraction.END, CompiledInteraction.DEADLOCK};
+    assertThat(ir.size(), is(expected.length));
+    for (var pc = 0; pc < expected.length; pc++) {
+      assertThat(ir.opcode(pc), is(expected[pc]));
+    }
+
+    // Message from world (index 1) to target (index 0), and deadlock on the world.
+    assertThat(ir.arg0(0), is(1));
+    assertThat(ir.arg1(0), is(0));
+    assertThat(ir.arg0(10), is(1));
+
+    // The opt spans 1 to 4.
+    assertThat(ir.arg0(1), is(4));
+    assertThat(ir.arg0(2), is(4));
+    assertThat(ir.arg0(4), is(1));
+
+    // The alt spans 5 to 9, with branches at 6 and 8.
+    assertThat(ir.arg0(5), is(9));
+    assertThat(ir.arg1(5), is(2));
+    assertThat(ir.arg0(6), is(8));
+    assertThat(ir.arg1(6), is(CompiledInteraction.GUARD_EXPR));
+    assertThat(ir.expression(6), sameInstance(cond));
+    assertThat(ir.arg0(8), is(9));
+    assertThat(ir.arg1(8), is(CompiledInteraction.GUARD_ELSE));
+    assertThat(ir.arg0(9), is(5));
+  }
+
+  /**
+   * Tests that compilations are cached until the interaction changes.
+   */
+  @Test
+  void testCompile_Cached() {
+    it.getFragments().add(message("e"));
+
+    final var first = compiler.compile(it);
+    assertThat(compiler.compile(it), sameInstance(first));
+
+    it.getFragments().add(message("f"));
+    final var second = compiler.compile(it);
+    assertThat(second, not(sameInstance(first)));
+    assertThat(second.size(), is(2));
+  }
+
+  private InteractionOperand operand(Guard guard, InteractionFragment... fragments) {
+    final var op = certFactory.createInteractionOperand();
+    op.setGuard(guard);
+    op.getFragments().addAll(List.of(fragments));
+    return op;
+  }
+
+  private OccurrenceFragment message(String event) {
+    final var occ = certFactory.createMessageOccurrence();
+    final var topic = msgFactory.eventTopic(eventFactory.event(event));
+    occ.setMessage(msgFactory.spec(world, target, topic));
+    return occurrence(occ);
+  }
+
+  private OccurrenceFragment occurrence(Occurrence occ) {
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(occ);
+    return frag;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.order;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.IntegerExp;
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.Occurrence;
+import robostar.robocert.OccurrenceFragment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.WaitOccurrence;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.order.HappensBeforeIndex;
+
+/**
+ * Tests the {@link HappensBeforeIndex}.
+ *
+ * @author Matt Windsor
+ */
+class HappensBeforeIndexTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final ExpressionFactory exprFactory = new ExpressionFactory(chartFactory);
+
+  private Interaction it;
+
+  @BeforeEach
+  void setUp() {
+    // w0; par { w1; w2 } { alt { w3 } { w4 } }; loop { w5 }
+    final var alt = certFactory.createAltFragment();
+    alt.getBranches().addAll(List.of(operand(waitFrag(3)), operand(waitFrag(4))));
+    final var par = certFactory.createParFragment();
+    par.getBranches().addAll(List.of(operand(waitFrag(1), waitFrag(2)), operand(alt)));
+    final var loop = certFactory.createLoopFragment();
+    loop.setBody(operand(waitFrag(5)));
+
+    it = certFactory.createInteraction();
+    it.setName("test");
+    it.getFragments().addAll(List.of(waitFrag(0), par, loop));
+  }
+
+  /**
+   * Tests the ordering of occurrences through sequences, pars, alts, and loops.
+   */
+  @Test
+  void testOrder() {
+    final var index = HappensBeforeIndex.of(it);
+    assertThat(index.size(), is(6));
+    for (var i = 0; i < index.size(); i++) {
+      assertThat(units(index.occurrence(i)), is(i));
+    }
+
+    final var after0 = new BitSet();
+    after0.set(1, 6);
+    assertThat(index.successors(0), is(after0));
+
+    assertThat(index.precedes(1, 2), is(true));
+    assertThat(index.precedes(2, 1), is(false));
+    assertThat(index.precedes(1, 5), is(true));
+    assertThat(index.precedes(4, 5), is(true));
+
+    assertThat(index.concurrent(1, 3), is(true));
+    assertThat(index.concurrent(4, 2), is(true));
+    assertThat(index.concurrent(1, 2), is(false));
+    assertThat(index.concurrent(3, 4), is(false));
+
+    assertThat(index.exclusive(3, 4), is(true));
+    assertThat(index.exclusive(1, 3), is(false));
+    assertThat(index.exclusive(0, 0), is(false));
+
+    assertThat(index.precedes(index.occurrence(0), index.occurrence(5)), is(true));
+  }
+
+  /**
+   * Tests that the index survives changes that do not affect ordering, and follows those that do.
+   */
+  @Test
+  void testRebuild() {
+    final var index = HappensBeforeIndex.of(it);
+    final var w0 = (WaitOccurrence) index.occurrence(0);
+
+    w0.setUnits(exprFactory.integer(10));
+    assertThat(HappensBeforeIndex.of(it), sameInstance(index));
+
+    final var w6 = waitFrag(6);
+    it.getFragments().add(0, w6);
+    final var rebuilt = HappensBeforeIndex.of(it);
+    assertThat(rebuilt, not(sameInstance(index)));
+    assertThat(rebuilt.size(), is(7));
+    assertThat(rebuilt.indexOf(w0), is(1));
+    assertThat(rebuilt.precedes(w6.getOccurrence(), w0), is(true));
+  }
+
+  private InteractionOperand operand(InteractionFragment... fragments) {
+    final var op = certFactory.createInteractionOperand();
+    op.setGuard(certFactory.createEmptyGuard());
+    op.getFragments().addAll(List.of(fragments));
+    return op;
+  }
+
+  private OccurrenceFragment waitFrag(int units) {
+    final var occ = certFactory.createWaitOccurrence();
+    occ.setUnits(exprFactory.integer(units));
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(occ);
+    return frag;
+  }
+
+  private int units(Occurrence o) {
+    return ((IntegerExp) ((WaitOccurrence) o).getUnits()).getValue();
+  }
+}
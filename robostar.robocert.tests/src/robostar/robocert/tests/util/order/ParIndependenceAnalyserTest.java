@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.order;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.Event;
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.Actor;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.Message;
+import robostar.robocert.ParFragment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.TargetActor;
+import robostar.robocert.World;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.SetFactory;
+import robostar.robocert.util.order.ParIndependenceAnalyser;
+import robostar.robocert.util.sets.MessageSetEvaluator;
+
+/**
+ * Tests the {@link ParIndependenceAnalyser}.
+ *
+ * @author Matt Windsor
+ */
+class ParIndependenceAnalyserTest {
+
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(RoboChartFactory.eINSTANCE);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+  private final SetFactory setFactory = new SetFactory(certFactory);
+  private final ExpressionFactory exprFactory = new ExpressionFactory(RoboChartFactory.eINSTANCE);
+
+  private final ParIndependenceAnalyser analyser = new ParIndependenceAnalyser(
+      new MessageSetEvaluator(new Fingerprinter()));
+
+  private final Map<String, Event> events = new HashMap<>();
+
+  private final TargetActor t1 = msgFactory.targetActor();
+  private final TargetActor t2 = msgFactory.targetActor();
+  private final World w1 = msgFactory.world();
+  private final World w2 = msgFactory.world();
+
+  /**
+   * Tests that branches on disjoint actors and topics are independent.
+   */
+  @Test
+  void testAnalyse_Independent() {
+    final var par = par(branch(message(w1, t1, "e")), branch(message(w2, t2, "f")));
+
+    final var it = analyser.analyse(par);
+    assertThat(it.independent(0, 1), is(true));
+    assertThat(it.isFullyIndependent(), is(true));
+    assertThat(it.components(), is(List.of(List.of(par.getBranches().get(0)),
+        List.of(par.getBranches().get(1)))));
+  }
+
+  /**
+   * Tests that sharing either an actor or a topic makes branches dependent, and that components
+   * close over chains of dependencies.
+   */
+  @Test
+  void testAnalyse_Dependent() {
+    final var par = par(branch(message(w1, t1, "e")), branch(message(w2, t2, "e")),
+        branch(message(w2, t1, "g")), branch(message(w1, t2, "h")));
+    final var branches = par.getBranches();
+
+    final var it = analyser.analyse(par);
+    assertThat(it.independent(0, 1), is(false));
+    assertThat(it.independent(2, 3), is(true));
+    assertThat(it.isFullyIndependent(), is(false));
+    assertThat(it.components(), is(List.of(branches)));
+  }
+
+  /**
+   * Tests that intra-message sets count towards footprints, and make branches opaque when they
+   * cannot be evaluated.
+   */
+  @Test
+  void testAnalyse_Until() {
+    final var until = certFactory.createUntilFragment();
+    until.setIntraMessages(setFactory.singleton(message(w2, t2, "f")));
+    until.setBody(branch(message(w1, t1, "e")));
+    final var par = par(branch(until), branch(message(w2, t2, "g")));
+
+    // Outside a group, we can't see what the set contains.
+    assertThat(analyser.analyse(par).footprints().get(0).opaque(), is(true));
+    assertThat(analyser.analyse(par).independent(0, 1), is(false));
+
+    final var interaction = certFactory.createInteraction();
+    interaction.getActors().addAll(List.<Actor>of(t1, t2, w1, w2));
+    interaction.getFragments().add(par);
+    final var group = certFactory.createSpecificationGroup();
+    group.getActors().addAll(List.<Actor>of(t1, t2, w1, w2));
+    group.getInteractions().add(interaction);
+
+    final var it = analyser.analyse(par);
+    assertThat(it.footprints().get(0).opaque(), is(false));
+    assertThat(it.footprints().get(0).actors().contains(w2), is(true));
+    assertThat(it.independent(0, 1), is(false));
+  }
+
+  /**
+   * Tests that intra-message sets reaching messages the group never mentions make branches
+   * opaque, and that wildcard messages cover their whole channel.
+   */
+  @Test
+  void testAnalyse_UntilUniverse() {
+    final var until = certFactory.createUntilFragment();
+    until.setIntraMessages(setFactory.universe());
+    until.setBody(branch(message(w1, t1, "e")));
+    // Nothing in the group mentions g, but the universe covers it.
+    final var par = par(branch(until), branch(message(w2, t2, "f")));
+    inGroup(par);
+
+    final var it = analyser.analyse(par);
+    assertThat(it.footprints().get(0).opaque(), is(true));
+    assertThat(it.independent(0, 1), is(false));
+
+    final var wild = certFactory.createUntilFragment();
+    wild.setIntraMessages(setFactory.singleton(
+        msgFactory.spec(w1, t1, msgFactory.eventTopic(event("g")),
+            certFactory.createWildcardValueSpecification())));
+    wild.setBody(branch(message(w1, t1, "e")));
+    final var arg = certFactory.createExpressionValueSpecification();
+    arg.setExpr(exprFactory.integer(3));
+    final var par2 = par(branch(wild),
+        branch(msgFactory.spec(w2, t2, msgFactory.eventTopic(event("g")), arg)));
+    inGroup(par2);
+
+    // The branches share no actors, but g(*) covers g(3).
+    final var it2 = analyser.analyse(par2);
+    assertThat(it2.footprints().get(0).opaque(), is(false));
+    assertThat(it2.independent(0, 1), is(false));
+  }
+
+  /**
+   * Tests that cached results are recomputed when a branch changes.
+   */
+  @Test
+  void testAnalyse_Invalidation() {
+    final var m = message(w2, t2, "f");
+    final var par = par(branch(message(w1, t1, "e")), branch(m));
+    assertThat(analyser.analyse(par).independent(0, 1), is(true));
+
+    m.setTopic(msgFactory.eventTopic(event("e")));
+    assertThat(analyser.analyse(par).independent(0, 1), is(false));
+  }
+
+  /**
+   * Tests independence of individual messages.
+   */
+  @Test
+  void testIndependent_Messages() {
+    assertThat(analyser.independent(message(w1, t1, "e"), message(w2, t2, "f")), is(true));
+    assertThat(analyser.independent(message(w1, t1, "e"), message(w2, t1, "f")), is(false));
+    assertThat(analyser.independent(message(w1, t1, "e"), message(w2, t2, "e")), is(false));
+  }
+
+  private void inGroup(ParFragment par) {
+    final var interaction = certFactory.createInteraction();
+    interaction.getActors().addAll(List.<Actor>of(t1, t2, w1, w2));
+    interaction.getFragments().add(par);
+    final var group = certFactory.createSpecificationGroup();
+    group.getActors().addAll(List.<Actor>of(t1, t2, w1, w2));
+    group.getInteractions().add(interaction);
+  }
+
+  private ParFragment par(InteractionOperand... branches) {
+    final var par = certFactory.createParFragment();
+    par.getBranches().addAll(List.of(branches));
+    return par;
+  }
+
+  private InteractionOperand branch(Message m) {
+    final var occ = certFactory.createMessageOccurrence();
+    occ.setMessage(m);
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(occ);
+    return branch(frag);
+  }
+
+  private InteractionOperand branch(InteractionFragment... fragments) {
+    final var op = certFactory.createInteractionOperand();
+    op.setGuard(certFactory.createEmptyGuard());
+    op.getFragments().addAll(List.of(fragments));
+    return op;
+  }
+
+  private Message message(Actor from, Actor to, String event) {
+    return msgFactory.spec(from, to, msgFactory.eventTopic(event(event)));
+  }
+
+  private Event event(String name) {
+    return events.computeIfAbsent(name, eventFactory::event);
+  }
+}
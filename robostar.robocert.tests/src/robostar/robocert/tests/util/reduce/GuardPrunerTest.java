@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.reduce;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.Event;
+import circus.robocalc.robochart.Expression;
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.Variable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.BranchFragment;
+import robostar.robocert.EmptyGuard;
+import robostar.robocert.EventTopic;
+import robostar.robocert.Guard;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.MessageOccurrence;
+import robostar.robocert.OccurrenceFragment;
+import robostar.robocert.OptFragment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.TargetActor;
+import robostar.robocert.World;
+import robostar.robocert.XAltFragment;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.InstantiationHelper;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.reduce.GuardPruner;
+
+/**
+ * Tests the {@link GuardPruner}.
+ *
+ * @author Matt Windsor
+ */
+class GuardPrunerTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(chartFactory);
+  private final ExpressionFactory exprFactory = new ExpressionFactory(chartFactory);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+
+  private final GuardPruner pruner = new GuardPruner(
+      new ExpressionFolder(exprFactory, new InstantiationHelper()), certFactory);
+
+  private final Map<String, Event> events = new HashMap<>();
+
+  private Variable n;
+  private Variable k;
+  private TargetActor target;
+  private World world;
+  private Interaction it;
+
+  @BeforeEach
+  void setUp() {
+    n = chartFactory.createVariable();
+    n.setName("n");
+    k = chartFactory.createVariable();
+    k.setName("k");
+
+    target = msgFactory.targetActor();
+    world = msgFactory.world();
+
+    it = certFactory.createInteraction();
+    it.getActors().addAll(List.of(target, world));
+
+    // n = 1
+    final var asn = certFactory.createConstAssignment();
+    asn.getConstants().add(n);
+    asn.setValue(exprFactory.integer(1));
+
+    final var group = certFactory.createSpecificationGroup();
+    group.getActors().addAll(List.of(target, world));
+    group.getAssignments().add(asn);
+    group.getInteractions().add(it);
+  }
+
+  /**
+   * Tests that an alt whose only live operand is an else collapses into that operand.
+   */
+  @Test
+  void testPrune_Else() {
+    // e; alt [n != 1] { f } else { g; h }; i
+    final var alt = certFactory.createAltFragment();
+    alt.getBranches().addAll(List.of(operand(diff(1), occurrence("f")),
+        operand(certFactory.createElseGuard(), occurrence("g"), occurrence("h"))));
+    it.getFragments().addAll(List.of(occurrence("e"), alt, occurrence("i")));
+
+    final var pruned = pruner.prune(it);
+    assertThat(topics(pruned.getFragments()), is(List.of("e", "g", "h", "i")));
+
+    // The original is left alone.
+    assertThat(it.getFragments().size(), is(3));
+    assertThat(alt.getBranches().size(), is(2));
+  }
+
+  /**
+   * Tests that dead operands are dropped, true guards become empty, and unknown guards are kept.
+   */
+  @Test
+  void testPrune_XAlt() {
+    // xalt [n <= 0] { e } [k != 1] { f } [n != 0] { g } else { h }
+    final var xalt = certFactory.createXAltFragment();
+    xalt.getBranches().addAll(List.of(operand(le(0), occurrence("e")),
+        operand(guard(exprFactory.diff(exprFactory.ref(k), exprFactory.integer(1))),
+            occurrence("f")), operand(diff(0), occurrence("g")),
+        operand(certFactory.createElseGuard(), occurrence("h"))));
+    it.getFragments().add(xalt);
+
+    assertThat(pruner.enabled(xalt.getBranches().get(0)), is(Optional.of(false)));
+    assertThat(pruner.enabled(xalt.getBranches().get(1)), is(Optional.empty()));
+    assertThat(pruner.enabled(xalt.getBranches().get(3)), is(Optional.of(false)));
+
+    final var pruned = pruner.prune(it);
+    assertThat(pruned.getFragments().size(), is(1));
+    final var branches = ((XAltFragment) pruned.getFragments().get(0)).getBranches();
+    assertThat(branches.size(), is(2));
+    assertThat(topics(branches.get(0).getFragments()), is(List.of("f")));
+    assertThat(branches.get(1).getGuard(), instanceOf(EmptyGuard.class));
+  }
+
+  /**
+   * Tests that an alt with no live operands is kept, as it deadlocks.
+   */
+  @Test
+  void testPrune_AllDead() {
+    final var alt = certFactory.createAltFragment();
+    alt.getBranches().addAll(List.of(operand(diff(1), occurrence("e")),
+        operand(le(0), occurrence("f"))));
+    it.getFragments().add(alt);
+
+    final var pruned = pruner.prune(it);
+    assertThat(((BranchFragment) pruned.getFragments().get(0)).getBranches().size(), is(2));
+  }
+
+  /**
+   * Tests pruning of opt fragments, including inside collapsed alts.
+   */
+  @Test
+  void testPrune_Opt() {
+    // alt [n <= 1] { opt [n != 1] { e }; opt [n <= 1] { f } }
+    final var dead = certFactory.createOptFragment();
+    dead.setBody(operand(diff(1), occurrence("e")));
+    final var live = certFactory.createOptFragment();
+    live.setBody(operand(le(1), occurrence("f")));
+    final var alt = certFactory.createAltFragment();
+    alt.getBranches().add(operand(le(1), dead, live));
+    it.getFragments().add(alt);
+
+    final var pruned = pruner.prune(it);
+    assertThat(pruned.getFragments().size(), is(1));
+    final var opt = (OptFragment) pruned.getFragments().get(0);
+    assertThat(opt.getBody().getGuard(), instanceOf(EmptyGuard.class));
+    assertThat(topics(opt.getBody().getFragments()), is(List.of("f")));
+  }
+
+  private Guard diff(int value) {
+    return guard(exprFactory.diff(exprFactory.ref(n), exprFactory.integer(value)));
+  }
+
+  private Guard le(int value) {
+    return guard(exprFactory.le(exprFactory.ref(n), exprFactory.integer(value)));
+  }
+
+  private Guard guard(Expression e) {
+    final var g = certFactory.createExprGuard();
+    g.setExpr(e);
+    return g;
+  }
+
+  private InteractionOperand operand(Guard guard, InteractionFragment... fragments) {
+    final var op = certFactory.createInteractionOperand();
+    op.setGuard(guard);
+    op.getFragments().addAll(List.of(fragments));
+    return op;
+  }
+
+  private OccurrenceFragment occurrence(String event) {
+    final var topic = msgFactory.eventTopic(events.computeIfAbsent(event, eventFactory::event));
+    final var occ = certFactory.createMessageOccurrence();
+    occ.setMessage(msgFactory.spec(world, target, topic));
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(occ);
+    return frag;
+  }
+
+  private List<String> topics(List<InteractionFragment> fragments) {
+    return fragments.stream().map(f -> {
+      final var occ = (MessageOccurrence) ((OccurrenceFragment) f).getOccurrence();
+      return ((EventTopic) occ.getMessage().getTopic()).getEfrom().getName();
+    }).toList();
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.reduce;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.List;
+import java.util.OptionalInt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.AltFragment;
+import robostar.robocert.Guard;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.MessageOccurrence;
+import robostar.robocert.OccurrenceFragment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SemanticModel;
+import robostar.robocert.TargetActor;
+import robostar.robocert.WaitOccurrence;
+import robostar.robocert.Temperature;
+import robostar.robocert.World;
+import robostar.robocert.XAltFragment;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.InstantiationHelper;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.StreamHelper;
+import robostar.robocert.util.ir.InteractionCompiler;
+import robostar.robocert.util.reduce.GuardPruner;
+import robostar.robocert.util.reduce.TracesReducer;
+
+/**
+ * Tests the {@link TracesReducer}.
+ *
+ * @author Matt Windsor
+ */
+class TracesReducerTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(chartFactory);
+  private final ExpressionFactory exprFactory = new ExpressionFactory(chartFactory);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+
+  private final ExpressionFolder folder = new ExpressionFolder(exprFactory,
+      new InstantiationHelper());
+  private final TracesReducer reducer = new TracesReducer(new GuardPruner(folder, certFactory),
+      certFactory);
+  private final InteractionCompiler irCompiler = new InteractionCompiler();
+
+  private TargetActor target;
+  private World world;
+  private Interaction it;
+
+  @BeforeEach
+  void setUp() {
+    target = msgFactory.targetActor();
+    world = msgFactory.world();
+
+    // xalt { alt { hot a } { b } } { c } [false] { d }
+    final var inner = certFactory.createAltFragment();
+    inner.getBranches().addAll(List.of(operand(empty(), occurrence("a", Temperature.HOT)),
+        operand(empty(), occurrence("b", Temperature.COLD))));
+    final var dead = certFactory.createExprGuard();
+    dead.setExpr(exprFactory.bool(false));
+    final var outer = certFactory.createXAltFragment();
+    outer.getBranches().addAll(List.of(operand(empty(), inner),
+        operand(empty(), occurrence("c", Temperature.HOT)),
+        operand(dead, occurrence("d", Temperature.COLD))));
+
+    it = certFactory.createInteraction();
+    it.getActors().addAll(List.of(target, world));
+    it.getFragments().add(outer);
+  }
+
+  /**
+   * Tests that the traces reduction merges choices and erases temperature, and measures the
+   * resulting drop in lowered instructions.
+   */
+  @Test
+  void testReduce() {
+    final var reduced = reducer.reduce(it);
+
+    assertThat(reduced.getFragments().size(), is(1));
+    final var alt = reduced.getFragments().get(0);
+    assertThat(alt, instanceOf(AltFragment.class));
+    assertThat(((AltFragment) alt).getBranches().size(), is(3));
+    assertThat(StreamHelper.filter(StreamHelper.allContents(reduced), MessageOccurrence.class)
+        .allMatch(o -> o.getTemperature() == Temperature.COLD), is(true));
+
+    // 1 xalt + 3 branches + (1 alt + 2 branches + 2 messages + 1 end) + 2 messages + 1 end,
+    // down to 1 alt + 3 branches + 3 messages + 1 end.
+    assertThat(irCompiler.compile(it).size(), is(13));
+    assertThat(irCompiler.compile(reduced).size(), is(8));
+
+    // The original is left alone.
+    assertThat(it.getFragments().get(0), instanceOf(XAltFragment.class));
+    final var hot = StreamHelper.filter(StreamHelper.allContents(it), MessageOccurrence.class)
+        .filter(o -> o.getTemperature() == Temperature.HOT).count();
+    assertThat(hot, is(2L));
+  }
+
+  /**
+   * Tests that choices with else guards are not flattened.
+   */
+  @Test
+  void testReduce_Else() {
+    final var inner = certFactory.createXAltFragment();
+    inner.getBranches().addAll(List.of(operand(empty(), occurrence("a", Temperature.COLD)),
+        operand(certFactory.createElseGuard(), occurrence("b", Temperature.COLD))));
+    final var outer = (XAltFragment) it.getFragments().get(0);
+    outer.getBranches().get(0).getFragments().set(0, inner);
+
+    final var reduced = reducer.reduce(it);
+    final var alt = (AltFragment) reduced.getFragments().get(0);
+    assertThat(alt.getBranches().size(), is(2));
+    assertThat(alt.getBranches().get(0).getFragments().get(0), instanceOf(AltFragment.class));
+  }
+
+  /**
+   * Tests that the reduced interaction lives in a scratch group with copies of the original
+   * group's actors and constants, so that it can still be folded, but not its other interactions.
+   */
+  @Test
+  void testReduce_Group() {
+    final var n = chartFactory.createVariable();
+    n.setName("N");
+    final var asn = certFactory.createConstAssignment();
+    asn.getConstants().add(n);
+    asn.setValue(exprFactory.integer(2));
+
+    final var wait = certFactory.createWaitOccurrence();
+    wait.setActor(world);
+    wait.setUnits(exprFactory.ref(n));
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(wait);
+    it.getFragments().add(frag);
+
+    final var group = certFactory.createSpecificationGroup();
+    group.getActors().addAll(List.of(target, world));
+    group.getAssignments().add(asn);
+    final var other = certFactory.createInteraction();
+    group.getInteractions().addAll(List.of(other, it));
+
+    final var reduced = reducer.reduce(it);
+    final var scratch = reduced.getGroup();
+    assertThat(scratch == null, is(false));
+    assertThat(scratch == group, is(false));
+    assertThat(scratch.getActors().containsAll(reduced.getActors()), is(true));
+    assertThat(scratch.getInteractions(), is(List.of(reduced)));
+
+    final var reducedWait = StreamHelper.filter(StreamHelper.allContents(reduced),
+        WaitOccurrence.class).findFirst().orElseThrow();
+    assertThat(folder.integer(reducedWait.getUnits()), is(OptionalInt.of(2)));
+    assertThat(irCompiler.compile(reduced).size(), is(9));
+
+    // The original group is left alone.
+    assertThat(group.getInteractions(), is(List.of(other, it)));
+    assertThat(it.getGroup(), sameInstance(group));
+  }
+
+  /**
+   * Tests that the reduced interaction gets a group even if the original has none.
+   */
+  @Test
+  void testReduce_NoGroup() {
+    final var reduced = reducer.reduce(it);
+    assertThat(reduced.getGroup() == null, is(false));
+    assertThat(reduced.getGroup().getInteractions(), is(List.of(reduced)));
+  }
+
+  /**
+   * Tests that only properties under the traces model are reduced.
+   */
+  @Test
+  void testReduce_Property() {
+    final var p = certFactory.createSequenceProperty();
+    p.setInteraction(it);
+
+    p.setModel(SemanticModel.TIMED);
+    assertThat(reducer.reduce(p), sameInstance(it));
+
+    p.setModel(SemanticModel.TRACES);
+    assertThat(reducer.reduce(p).getFragments().get(0), instanceOf(AltFragment.class));
+  }
+
+  private Guard empty() {
+    return certFactory.createEmptyGuard();
+  }
+
+  private InteractionOperand operand(Guard guard, InteractionFragment... fragments) {
+    final var op = certFactory.createInteractionOperand();
+    op.setGuard(guard);
+    op.getFragments().addAll(List.of(fragments));
+    return op;
+  }
+
+  private OccurrenceFragment occurrence(String event, Temperature temperature) {
+    final var topic = msgFactory.eventTopic(eventFactory.event(event));
+    final var occ = certFactory.createMessageOccurrence();
+    occ.setMessage(msgFactory.spec(world, target, topic));
+    occ.setTemperature(temperature);
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(occ);
+    return frag;
+  }
+}
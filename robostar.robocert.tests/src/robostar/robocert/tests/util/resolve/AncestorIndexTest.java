@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.resolve;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.ControllerDef;
+import circus.robocalc.robochart.RCModule;
+import circus.robocalc.robochart.RCPackage;
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.StateMachineDef;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.util.resolve.AncestorIndex;
+
+/**
+ * Tests the {@link AncestorIndex}.
+ *
+ * @author Matt Windsor
+ */
+class AncestorIndexTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+
+  private RCPackage pkg;
+  private RCModule mod;
+  private ControllerDef ctrl;
+  private StateMachineDef stm;
+
+  @BeforeEach
+  void setUp() {
+    pkg = chartFactory.createRCPackage();
+    pkg.setName("Pkg");
+
+    mod = chartFactory.createRCModule();
+    mod.setName("Mod");
+
+    ctrl = chartFactory.createControllerDef();
+    ctrl.setName("Ctrl");
+
+    stm = chartFactory.createStateMachineDef();
+    stm.setName("Stm");
+  }
+
+  /**
+   * Tests lookups on a fully nested tree.
+   */
+  @Test
+  void testLookup_Nested() {
+    pkg.getModules().add(mod);
+    mod.getNodes().add(ctrl);
+    ctrl.getMachines().add(stm);
+
+    assertThat(AncestorIndex.packageOf(stm), is(Optional.of(pkg)));
+    assertThat(AncestorIndex.moduleOf(stm), is(Optional.of(mod)));
+    assertThat(AncestorIndex.controllerOf(stm), is(Optional.of(ctrl)));
+
+    // Ancestors are strict.
+    assertThat(AncestorIndex.controllerOf(ctrl), is(Optional.empty()));
+    assertThat(AncestorIndex.packageOf(pkg), is(Optional.empty()));
+  }
+
+  /**
+   * Tests that the index follows objects moving in and out of the tree.
+   */
+  @Test
+  void testLookup_Moves() {
+    pkg.getModules().add(mod);
+    mod.getNodes().add(ctrl);
+    assertThat(AncestorIndex.moduleOf(ctrl), is(Optional.of(mod)));
+
+    // Moving the controller into the package directly.
+    pkg.getControllers().add(ctrl);
+    assertThat(AncestorIndex.moduleOf(ctrl), is(Optional.empty()));
+    assertThat(AncestorIndex.packageOf(ctrl), is(Optional.of(pkg)));
+
+    // Adding a subtree to an indexed tree.
+    ctrl.getMachines().add(stm);
+    assertThat(AncestorIndex.controllerOf(stm), is(Optional.of(ctrl)));
+
+    // Removing a subtree from the tree.
+    pkg.getControllers().remove(ctrl);
+    assertThat(AncestorIndex.packageOf(ctrl), is(Optional.empty()));
+    assertThat(AncestorIndex.packageOf(stm), is(Optional.empty()));
+    assertThat(AncestorIndex.controllerOf(stm), is(Optional.of(ctrl)));
+  }
+
+  /**
+   * Tests that separately indexed trees can be joined.
+   */
+  @Test
+  void testLookup_Join() {
+    mod.getNodes().add(ctrl);
+    assertThat(AncestorIndex.packageOf(ctrl), is(Optional.empty()));
+
+    pkg.getModules().add(mod);
+    assertThat(AncestorIndex.packageOf(ctrl), is(Optional.of(pkg)));
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.resolve;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.ControllerDef;
+import circus.robocalc.robochart.RCModule;
+import circus.robocalc.robochart.RCPackage;
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.util.resolve.CachedNameResolver;
+import robostar.robocert.util.resolve.ControllerResolver;
+
+/**
+ * Tests the {@link CachedNameResolver}.
+ *
+ * @author Matt Windsor
+ */
+class CachedNameResolverTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+
+  private final CachedNameResolver<ControllerDef> nameRes = new CachedNameResolver<>(
+      new ControllerResolver());
+
+  private RCPackage pkg;
+  private RCModule mod;
+  private ControllerDef ctrl;
+
+  @BeforeEach
+  void setUp() {
+    pkg = chartFactory.createRCPackage();
+    pkg.setName("Pkg");
+
+    mod = chartFactory.createRCModule();
+    mod.setName("Mod");
+    pkg.getModules().add(mod);
+
+    ctrl = chartFactory.createControllerDef();
+    ctrl.setName("Ctrl");
+    mod.getNodes().add(ctrl);
+  }
+
+  /**
+   * Tests that names agree with the underlying resolver, and are cached.
+   */
+  @Test
+  void testName_Cached() {
+    assertThat(nameRes.name(ctrl), is(new String[]{"Pkg", "Mod", "Ctrl"}));
+    assertThat(nameRes.path(ctrl), is(List.of("Pkg", "Mod", "Ctrl")));
+    assertThat(nameRes.path(ctrl), sameInstance(nameRes.path(ctrl)));
+    assertThat(nameRes.name(ctrl), sameInstance(nameRes.name(ctrl)));
+    assertThat(nameRes.joined(ctrl, "::"), is("Pkg::Mod::Ctrl"));
+    assertThat(nameRes.joined(ctrl, "_"), is("Pkg_Mod_Ctrl"));
+  }
+
+  /**
+   * Tests that cached resolvers share one cache on each element.
+   */
+  @Test
+  void testName_Shared() {
+    final var inner = new ControllerResolver();
+    final var first = new CachedNameResolver<ControllerDef>(inner);
+    final var path = first.path(ctrl);
+    final var adapters = ctrl.eAdapters().size();
+
+    final var second = new CachedNameResolver<ControllerDef>(inner);
+    assertThat(second.path(ctrl), sameInstance(path));
+    assertThat(ctrl.eAdapters().size(), is(adapters));
+  }
+
+  /**
+   * Tests that renaming the element or its containers changes its name.
+   */
+  @Test
+  void testName_Renamed() {
+    assertThat(nameRes.joined(ctrl, "::"), is("Pkg::Mod::Ctrl"));
+
+    ctrl.setName("Ctrl2");
+    assertThat(nameRes.joined(ctrl, "::"), is("Pkg::Mod::Ctrl2"));
+
+    pkg.setName("Pkg2");
+    assertThat(nameRes.joined(ctrl, "::"), is("Pkg2::Mod::Ctrl2"));
+  }
+
+  /**
+   * Tests that moving the element or its containers changes its name.
+   */
+  @Test
+  void testName_Moved() {
+    assertThat(nameRes.path(ctrl), is(List.of("Pkg", "Mod", "Ctrl")));
+
+    pkg.getModules().remove(mod);
+    assertThat(nameRes.path(ctrl), is(List.of("Mod", "Ctrl")));
+
+    pkg.getControllers().add(ctrl);
+    assertThat(nameRes.path(ctrl), is(List.of("Pkg", "Ctrl")));
+  }
+
+  /**
+   * Tests that attaching a detached root to a new container changes the names beneath it.
+   */
+  @Test
+  void testName_RootAttached() {
+    pkg.getModules().remove(mod);
+    assertThat(nameRes.path(ctrl), is(List.of("Mod", "Ctrl")));
+
+    pkg.getModules().add(mod);
+    assertThat(nameRes.path(ctrl), is(List.of("Pkg", "Mod", "Ctrl")));
+  }
+}
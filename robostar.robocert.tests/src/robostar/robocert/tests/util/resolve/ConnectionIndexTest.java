@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.resolve;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.Connection;
+import circus.robocalc.robochart.ConnectionNode;
+import circus.robocalc.robochart.ControllerDef;
+import circus.robocalc.robochart.RCModule;
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.RoboticPlatformDef;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.util.resolve.ConnectionIndex;
+
+/**
+ * Tests the {@link ConnectionIndex}.
+ *
+ * @author Matt Windsor
+ */
+class ConnectionIndexTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+
+  private RCModule mod;
+  private RoboticPlatformDef rp;
+  private ControllerDef ctrl1;
+  private ControllerDef ctrl2;
+
+  @BeforeEach
+  void setUp() {
+    rp = chartFactory.createRoboticPlatformDef();
+    rp.setName("RP");
+
+    ctrl1 = chartFactory.createControllerDef();
+    ctrl1.setName("C1");
+
+    ctrl2 = chartFactory.createControllerDef();
+    ctrl2.setName("C2");
+
+    mod = chartFactory.createRCModule();
+    mod.setName("Mod");
+    mod.getNodes().addAll(List.of(rp, ctrl1, ctrl2));
+  }
+
+  /**
+   * Tests {@code between} on unidirectional connections.
+   */
+  @Test
+  void testBetween_Unidirectional() {
+    final var c1 = connect(rp, ctrl1, false);
+    final var c2 = connect(rp, ctrl2, false);
+    final var c3 = connect(ctrl1, ctrl2, false);
+
+    final var index = ConnectionIndex.of(mod);
+    assertThat(index.between(Set.of(rp), Set.of(ctrl1)).toList(), is(List.of(c1)));
+    assertThat(index.between(Set.of(rp), Set.of(ctrl1, ctrl2)).toList(), is(List.of(c1, c2)));
+    assertThat(index.between(Set.of(ctrl1), Set.of(rp)).toList(), is(List.of()));
+    assertThat(index.between(Set.of(rp, ctrl1), Set.of(ctrl2)).toList(), is(List.of(c2, c3)));
+  }
+
+  /**
+   * Tests {@code between} on bidirectional connections, which should be found either way round
+   * but only once.
+   */
+  @Test
+  void testBetween_Bidirectional() {
+    final var c = connect(ctrl1, ctrl2, true);
+
+    final var index = ConnectionIndex.of(mod);
+    assertThat(index.between(Set.of(ctrl1), Set.of(ctrl2)).toList(), is(List.of(c)));
+    assertThat(index.between(Set.of(ctrl2), Set.of(ctrl1)).toList(), is(List.of(c)));
+
+    final Set<ConnectionNode> both = Set.of(ctrl1, ctrl2);
+    assertThat(index.between(both, both).toList(), is(List.of(c)));
+  }
+
+  /**
+   * Tests that the index reflects changes to the module's connections.
+   */
+  @Test
+  void testOf_Invalidation() {
+    final var c1 = connect(rp, ctrl1, false);
+    assertThat(ConnectionIndex.of(mod).between(Set.of(rp), Set.of(ctrl2)).toList(),
+        is(List.of()));
+
+    // Adding a connection to the module:
+    final var c2 = connect(rp, ctrl2, false);
+    assertThat(ConnectionIndex.of(mod).between(Set.of(rp), Set.of(ctrl2)).toList(),
+        is(List.of(c2)));
+
+    // Retargeting an existing connection:
+    c1.setTo(ctrl2);
+    assertThat(ConnectionIndex.of(mod).between(Set.of(rp), Set.of(ctrl1)).toList(),
+        is(List.of()));
+    assertThat(ConnectionIndex.of(mod).between(Set.of(rp), Set.of(ctrl2)).toList(),
+        is(List.of(c1, c2)));
+
+    // Removing a connection:
+    mod.getConnections().remove(c1);
+    assertThat(ConnectionIndex.of(mod).between(Set.of(rp), Set.of(ctrl2)).toList(),
+        is(List.of(c2)));
+  }
+
+  private Connection connect(ConnectionNode from, ConnectionNode to, boolean bidirec) {
+    final var c = chartFactory.createConnection();
+    c.setFrom(from);
+    c.setTo(to);
+    c.setBidirec(bidirec);
+    mod.getConnections().add(c);
+    return c;
+  }
+}
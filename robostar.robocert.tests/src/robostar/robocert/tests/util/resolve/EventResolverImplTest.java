@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.resolve;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.Connection;
+import circus.robocalc.robochart.ConnectionNode;
+import circus.robocalc.robochart.Event;
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.EventTopic;
+import robostar.robocert.Interaction;
+import robostar.robocert.Message;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.TargetActor;
+import robostar.robocert.World;
+import robostar.robocert.util.ActorNodeResolver;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.TargetFactory;
+import robostar.robocert.util.resolve.ControllerResolver;
+import robostar.robocert.util.resolve.DefinitionResolver;
+import robostar.robocert.util.resolve.EventResolverImpl;
+import robostar.robocert.util.resolve.ModuleResolver;
+import robostar.robocert.util.resolve.ResolutionContext;
+import robostar.robocert.util.resolve.StateMachineResolver;
+
+/**
+ * Tests the {@link EventResolverImpl}.
+ *
+ * @author Matt Windsor
+ */
+class EventResolverImplTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(chartFactory);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+  private final TargetFactory targetFactory = new TargetFactory(certFactory);
+
+  private final ControllerResolver ctrlRes = new ControllerResolver();
+  private final StateMachineResolver stmRes = new StateMachineResolver(ctrlRes);
+  private final ActorNodeResolver actorRes = new ActorNodeResolver(ctrlRes,
+      new ModuleResolver(new DefinitionResolver()), stmRes);
+  private final EventResolverImpl eventRes = new EventResolverImpl(actorRes, ctrlRes, stmRes,
+      new Fingerprinter());
+
+  private Connection rpToCtrl;
+  private Connection ctrlToRp;
+
+  private SpecificationGroup group;
+  private TargetActor target;
+  private World world;
+
+  @BeforeEach
+  void setUp() {
+    final var rp = chartFactory.createRoboticPlatformDef();
+    rp.setName("RP");
+
+    final var ctrl = chartFactory.createControllerDef();
+    ctrl.setName("Ctrl");
+
+    final var mod = chartFactory.createRCModule();
+    mod.setName("Mod");
+    mod.getNodes().addAll(List.of(rp, ctrl));
+
+    rpToCtrl = connect(rp, eventFactory.event("e"), ctrl, eventFactory.event("e"));
+    ctrlToRp = connect(ctrl, eventFactory.event("f"), rp, eventFactory.event("f"));
+    mod.getConnections().addAll(List.of(rpToCtrl, ctrlToRp));
+
+    target = msgFactory.targetActor();
+    target.setName("T");
+    world = msgFactory.world();
+    world.setName("W");
+
+    group = certFactory.createSpecificationGroup();
+    group.setTarget(targetFactory.module(mod));
+    group.getActors().addAll(List.of(target, world));
+  }
+
+  /**
+   * Tests resolving single events on a module target.
+   */
+  @Test
+  void testResolve_Module() {
+    // These events are structurally equal to, but distinct from, the connection events.
+    final var e = msgFactory.eventTopic(eventFactory.event("e"));
+    final var f = msgFactory.eventTopic(eventFactory.event("f"));
+
+    assertThat(eventRes.resolve(e, world, target).toList(), is(List.of(rpToCtrl)));
+    assertThat(eventRes.resolve(f, target, world).toList(), is(List.of(ctrlToRp)));
+
+    // Wrong direction:
+    assertThat(eventRes.resolve(e, target, world).toList(), is(List.of()));
+  }
+
+  /**
+   * Tests resolving a whole group at once.
+   */
+  @Test
+  void testResolveAll_Group() {
+    final var e = message(world, target, "e");
+    final var f = message(target, world, "f");
+    final var g = message(world, target, "g");
+
+    final var it = interaction(e, f, g);
+    group.getInteractions().add(it);
+
+    final var ctx = new ResolutionContext(actorRes);
+    final var expected = Map.of((EventTopic) e.getTopic(), List.of(rpToCtrl),
+        (EventTopic) f.getTopic(), List.of(ctrlToRp), (EventTopic) g.getTopic(), List.of());
+
+    assertThat(eventRes.resolveAll(group, ctx), is(expected));
+    assertThat(eventRes.resolveAll(it, ctx), is(expected));
+  }
+
+  private Connection connect(ConnectionNode from, Event efrom, ConnectionNode to, Event eto) {
+    final var c = chartFactory.createConnection();
+    c.setFrom(from);
+    c.setEfrom(efrom);
+    c.setTo(to);
+    c.setEto(eto);
+    return c;
+  }
+
+  private Message message(robostar.robocert.Actor from, robostar.robocert.Actor to,
+      String event) {
+    return msgFactory.spec(from, to, msgFactory.eventTopic(eventFactory.event(event)));
+  }
+
+  private Interaction interaction(Message... messages) {
+    final var it = certFactory.createInteraction();
+    it.setName("seq");
+    it.getActors().addAll(List.of(target, world));
+
+    for (var m : messages) {
+      final var occ = certFactory.createMessageOccurrence();
+      occ.setMessage(m);
+      final var frag = certFactory.createOccurrenceFragment();
+      frag.setOccurrence(occ);
+      it.getFragments().add(frag);
+    }
+    return it;
+  }
+}
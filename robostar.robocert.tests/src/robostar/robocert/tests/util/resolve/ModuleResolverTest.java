@@ -17,8 +17,11 @@ import static org.hamcrest.MatcherAssert.assertThat;
 
 import circus.robocalc.robochart.RCModule;
 import circus.robocalc.robochart.RoboChartFactory;
+import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import robostar.robocert.util.ParallelExecutionPolicy;
 import robostar.robocert.util.resolve.DefinitionResolver;
 import robostar.robocert.util.resolve.ModuleResolver;
 
@@ -60,4 +63,24 @@ class ModuleResolverTest {
 
     assertThat(modRes.name(mod), is(new String[]{"Pkg", "Mod"}));
   }
+
+  /**
+   * Tests {@code platform} and {@code controllers} under both execution policies.
+   */
+  @Test
+  void testNodes_Policies() {
+    final var c1 = chartFactory.createControllerDef();
+    c1.setName("C1");
+    final var rp = chartFactory.createRoboticPlatformDef();
+    rp.setName("RP");
+    final var c2 = chartFactory.createControllerDef();
+    c2.setName("C2");
+    mod.getNodes().addAll(List.of(c1, rp, c2));
+
+    final var parRes = new ModuleResolver(new DefinitionResolver(), new ParallelExecutionPolicy());
+    for (var res : List.of(modRes, parRes)) {
+      assertThat(res.platform(mod), is(Optional.of(rp)));
+      assertThat(res.controllers(mod).toList(), is(List.of(c1, c2)));
+    }
+  }
 }
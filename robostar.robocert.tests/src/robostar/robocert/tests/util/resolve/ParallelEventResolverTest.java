@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.resolve;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.Connection;
+import circus.robocalc.robochart.ConnectionNode;
+import circus.robocalc.robochart.Event;
+import circus.robocalc.robochart.RCModule;
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.Actor;
+import robostar.robocert.EventTopic;
+import robostar.robocert.Interaction;
+import robostar.robocert.Message;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.TargetActor;
+import robostar.robocert.World;
+import robostar.robocert.util.ActorNodeResolver;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.StreamHelper;
+import robostar.robocert.util.TargetFactory;
+import robostar.robocert.util.resolve.ControllerResolver;
+import robostar.robocert.util.resolve.DefinitionResolver;
+import robostar.robocert.util.resolve.EventResolver;
+import robostar.robocert.util.resolve.EventResolverImpl;
+import robostar.robocert.util.resolve.ModuleResolver;
+import robostar.robocert.util.resolve.ParallelEventResolver;
+import robostar.robocert.util.resolve.ResolutionContext;
+import robostar.robocert.util.resolve.StateMachineResolver;
+import robostar.robocert.util.resolve.TargetElementResolver;
+
+/**
+ * Tests the {@link ParallelEventResolver}.
+ *
+ * @author Matt Windsor
+ */
+class ParallelEventResolverTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(chartFactory);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+  private final TargetFactory targetFactory = new TargetFactory(certFactory);
+
+  private final ControllerResolver ctrlRes = new ControllerResolver();
+  private final StateMachineResolver stmRes = new StateMachineResolver(ctrlRes);
+  private final ActorNodeResolver actorRes = new ActorNodeResolver(ctrlRes,
+      new ModuleResolver(new DefinitionResolver()), stmRes);
+  private final EventResolverImpl eventRes = new EventResolverImpl(actorRes, ctrlRes, stmRes,
+      new Fingerprinter());
+  private final ParallelEventResolver parRes = new ParallelEventResolver(eventRes, actorRes,
+      new TargetElementResolver());
+
+  private RCModule mod;
+  private Connection rpToCtrl;
+  private Connection ctrlToRp;
+
+  private SpecificationGroup group;
+  private TargetActor target;
+  private World world;
+
+  @BeforeEach
+  void setUp() {
+    final var rp = chartFactory.createRoboticPlatformDef();
+    rp.setName("RP");
+
+    final var ctrl = chartFactory.createControllerDef();
+    ctrl.setName("Ctrl");
+
+    mod = chartFactory.createRCModule();
+    mod.setName("Mod");
+    mod.getNodes().addAll(List.of(rp, ctrl));
+
+    rpToCtrl = connect(rp, eventFactory.event("e"), ctrl, eventFactory.event("e"));
+    ctrlToRp = connect(ctrl, eventFactory.event("f"), rp, eventFactory.event("f"));
+    mod.getConnections().addAll(List.of(rpToCtrl, ctrlToRp));
+
+    target = msgFactory.targetActor();
+    target.setName("T");
+    world = msgFactory.world();
+    world.setName("W");
+
+    group = certFactory.createSpecificationGroup();
+    group.setTarget(targetFactory.module(mod));
+    group.getActors().addAll(List.of(target, world));
+  }
+
+  /**
+   * Tests that resolving a package in parallel gives the same results, in the same order, as
+   * resolving it sequentially.
+   */
+  @Test
+  void testResolveAll_Package() {
+    for (var i = 0; i < 16; i++) {
+      group.getInteractions().add(interaction(message(world, target, "e"),
+          message(target, world, "f"), message(world, target, "g")));
+    }
+
+    final var pkg = certFactory.createCertPackage();
+    pkg.setName("pkg");
+    pkg.getGroups().add(group);
+
+    final var expected = eventRes.resolveAll(group, new ResolutionContext(actorRes));
+
+    final var pool = new ForkJoinPool(4);
+    try {
+      final var actual = parRes.resolveAll(pkg, pool);
+      assertThat(List.copyOf(actual.keySet()), is(List.of(group)));
+      assertThat(List.copyOf(actual.get(group).entrySet()), is(List.copyOf(expected.entrySet())));
+
+      assertThat(parRes.resolveAll(group, pool), is(expected));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests that the workers don't install any cache adapters, which would write to the model from
+   * inside the pool.
+   */
+  @Test
+  void testResolveAll_NoAdaptersInPool() {
+    for (var i = 0; i < 4; i++) {
+      group.getInteractions().add(interaction(message(world, target, "e"),
+          message(target, world, "f"), message(world, target, "g")));
+    }
+
+    final var pkg = certFactory.createCertPackage();
+    pkg.setName("pkg");
+    pkg.getGroups().add(group);
+
+    final var changed = new AtomicBoolean();
+    final var checking = new EventResolver() {
+      @Override
+      public Stream<Connection> resolve(EventTopic topic, Actor from, Actor to) {
+        return eventRes.resolve(topic, from, to);
+      }
+
+      @Override
+      public Stream<Connection> resolve(EventTopic topic, Actor from, Actor to,
+          ResolutionContext ctx) {
+        return eventRes.resolve(topic, from, to, ctx);
+      }
+
+      @Override
+      public void prime(SpecificationGroup g, ResolutionContext ctx) {
+        eventRes.prime(g, ctx);
+      }
+
+      @Override
+      public Map<EventTopic, List<Connection>> resolveAll(Interaction it, ResolutionContext ctx) {
+        final var before = adapters(pkg, mod);
+        final var result = eventRes.resolveAll(it, ctx);
+        if (adapters(pkg, mod) != before) {
+          changed.set(true);
+        }
+        return result;
+      }
+    };
+
+    // One worker, so that no other task can install adapters between the two counts.
+    final var pool = new ForkJoinPool(1);
+    try {
+      new ParallelEventResolver(checking, actorRes, new TargetElementResolver()).resolveAll(pkg,
+          pool);
+      assertThat(changed.get(), is(false));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static int adapters(EObject... roots) {
+    return Stream.of(roots).flatMap(r -> Stream.concat(Stream.of(r), StreamHelper.allContents(r)))
+        .mapToInt(x -> x.eAdapters().size()).sum();
+  }
+
+  private Connection connect(ConnectionNode from, Event efrom, ConnectionNode to, Event eto) {
+    final var c = chartFactory.createConnection();
+    c.setFrom(from);
+    c.setEfrom(efrom);
+    c.setTo(to);
+    c.setEto(eto);
+    return c;
+  }
+
+  private Message message(Actor from, Actor to, String event) {
+    return msgFactory.spec(from, to, msgFactory.eventTopic(eventFactory.event(event)));
+  }
+
+  private Interaction interaction(Message... messages) {
+    final var it = certFactory.createInteraction();
+    it.setName("seq");
+    it.getActors().addAll(List.of(target, world));
+
+    for (var m : messages) {
+      final var occ = certFactory.createMessageOccurrence();
+      occ.setMessage(m);
+      final var frag = certFactory.createOccurrenceFragment();
+      frag.setOccurrence(occ);
+      it.getFragments().add(frag);
+    }
+    return it;
+  }
+}
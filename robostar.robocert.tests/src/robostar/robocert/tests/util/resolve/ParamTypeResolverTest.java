@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.resolve;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.Parameter;
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.Type;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.TypeFactory;
+import robostar.robocert.util.resolve.ParamTypeResolver;
+
+/**
+ * Tests the {@link ParamTypeResolver}.
+ *
+ * @author Matt Windsor
+ */
+class ParamTypeResolverTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(chartFactory);
+  private final MessageFactory msgFactory = new MessageFactory(RoboCertFactory.eINSTANCE);
+  private final TypeFactory typeFactory = new TypeFactory(chartFactory);
+
+  private final ParamTypeResolver paramRes = new ParamTypeResolver();
+
+  /**
+   * Tests that cached event types are reused, and refreshed when the event type changes.
+   */
+  @Test
+  void testTypes_Event() {
+    final var nat = typeFactory.primRef("nat");
+    final var event = eventFactory.event("e", nat);
+    final var topic = msgFactory.eventTopic(event);
+
+    final var types = paramRes.types(topic);
+    assertThat(types, is(List.<Type>of(nat)));
+    assertThat(paramRes.types(topic), sameInstance(types));
+
+    event.setType(null);
+    assertThat(paramRes.types(topic), is(List.of()));
+  }
+
+  /**
+   * Tests that cached operation types follow the operation signature.
+   */
+  @Test
+  void testTypes_Operation() {
+    final var nat = typeFactory.primRef("nat");
+    final var bool = typeFactory.primRef("boolean");
+
+    final var op = chartFactory.createOperationSig();
+    op.setName("op");
+    op.getParameters().add(param("x", nat));
+    final var topic = msgFactory.opTopic(op);
+
+    assertThat(paramRes.types(topic), is(List.<Type>of(nat)));
+    assertThat(paramRes.resolve(topic).toList(), is(List.<Type>of(nat)));
+
+    final var y = param("y", typeFactory.primRef("real"));
+    op.getParameters().add(y);
+    y.setType(bool);
+    assertThat(paramRes.types(topic), is(List.<Type>of(nat, bool)));
+
+    // Changes to a parameter already in the list must also invalidate it.
+    final var real = typeFactory.primRef("real");
+    y.setType(real);
+    assertThat(paramRes.types(topic), is(List.<Type>of(nat, real)));
+  }
+
+  private Parameter param(String name, Type type) {
+    final var p = chartFactory.createParameter();
+    p.setName(name);
+    p.setType(type);
+    return p;
+  }
+}
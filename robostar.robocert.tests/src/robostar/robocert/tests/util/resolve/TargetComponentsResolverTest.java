@@ -110,4 +110,28 @@ class TargetComponentsResolverTest {
     assertThat(compRes.find(target, stm2), is(Optional.of(ref2)));
     assertThat(compRes.find(target, ref2), is(Optional.of(ref2)));
   }
+
+  /**
+   * Tests that {@code find} follows changes to the structure of components.
+   */
+  @Test
+  void testFind_Changed() {
+    final var ctrl = chartFactory.createControllerDef();
+    final var target = tgtFactory.inController(ctrl);
+
+    final var stm = chartFactory.createStateMachineDef();
+    stm.setName("a");
+    ctrl.getMachines().add(stm);
+
+    // A separate but (eventually) structurally equal state machine:
+    final var copy = chartFactory.createStateMachineDef();
+    copy.setName("b");
+    assertThat(compRes.find(target, copy), is(Optional.empty()));
+
+    stm.setName("b");
+    assertThat(compRes.find(target, copy), is(Optional.of(stm)));
+
+    ctrl.getMachines().remove(stm);
+    assertThat(compRes.find(target, copy), is(Optional.empty()));
+  }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.sets;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import circus.robocalc.robochart.Event;
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.Message;
+import robostar.robocert.MessageSet;
+import robostar.robocert.NamedMessageSet;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.TargetActor;
+import robostar.robocert.ValueSpecification;
+import robostar.robocert.World;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.SetFactory;
+import robostar.robocert.util.sets.MessageDenotation;
+import robostar.robocert.util.sets.MessageSetEvaluator;
+
+/**
+ * Tests the {@link MessageSetEvaluator}.
+ *
+ * @author Matt Windsor
+ */
+class MessageSetEvaluatorTest {
+
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(RoboChartFactory.eINSTANCE);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+  private final SetFactory setFactory = new SetFactory(certFactory);
+  private final ExpressionFactory exprFactory = new ExpressionFactory(RoboChartFactory.eINSTANCE);
+  private final Map<String, Event> events = new HashMap<>();
+
+  private final MessageSetEvaluator evaluator = new MessageSetEvaluator(new Fingerprinter());
+
+  private SpecificationGroup group;
+  private TargetActor target;
+  private World world;
+
+  @BeforeEach
+  void setUp() {
+    target = msgFactory.targetActor();
+    world = msgFactory.world();
+
+    group = certFactory.createSpecificationGroup();
+    group.getActors().addAll(List.of(target, world));
+  }
+
+  /**
+   * Tests that structurally equal messages in different sets share an index.
+   */
+  @Test
+  void testUniverse_Merged() {
+    final var ab = named("AB", setFactory.extensional(List.of(message("a"), message("b"))));
+    final var bc = named("BC", setFactory.extensional(List.of(message("b"), message("c"))));
+
+    final var universe = evaluator.universe(group);
+    assertThat(universe.size(), is(3));
+    assertThat(universe.cells(message("b")), is(bits(1)));
+    assertThat(universe.mentions(message("d")), is(false));
+
+    assertThat(evaluator.evaluate(ab.getSet()), is(new MessageDenotation(bits(0, 1), false)));
+    assertThat(evaluator.evaluate(bc.getSet()), is(new MessageDenotation(bits(1, 2), false)));
+  }
+
+  /**
+   * Tests binary operators, references, and the universe set.
+   */
+  @Test
+  void testEvaluate_Operators() {
+    final var ab = named("AB", setFactory.extensional(List.of(message("a"), message("b"))));
+    final var bc = named("BC", setFactory.extensional(List.of(message("b"), message("c"))));
+
+    assertThat(evaluate(setFactory.union(ref(ab), ref(bc))).cells(), is(bits(0, 1, 2)));
+    assertThat(evaluate(setFactory.inter(ref(ab), ref(bc))).cells(), is(bits(1)));
+    assertThat(evaluate(setFactory.diff(ref(ab), ref(bc))).cells(), is(bits(0)));
+    assertThat(evaluate(setFactory.diff(setFactory.universe(), ref(ab))),
+        is(new MessageDenotation(bits(2), true)));
+
+    final var none = setFactory.inter(ref(ab), setFactory.diff(ref(bc), ref(bc)));
+    named("None", none);
+    assertThat(evaluator.isEmpty(none), is(true));
+    assertThat(evaluator.contains(ab.getSet(), message("a")), is(true));
+    assertThat(evaluator.contains(bc.getSet(), message("a")), is(false));
+  }
+
+  /**
+   * Tests that denotations follow changes to named sets.
+   */
+  @Test
+  void testEvaluate_Changed() {
+    final var ab = named("AB", setFactory.extensional(List.of(message("a"), message("b"))));
+    final var refAb = named("RefAB", ref(ab));
+    assertThat(evaluator.evaluate(refAb.getSet()).cells(), is(bits(0, 1)));
+
+    ab.setSet(setFactory.singleton(message("b")));
+    assertThat(evaluator.evaluate(refAb.getSet()).cells(), is(bits(0)));
+  }
+
+  /**
+   * Tests that the universe set includes messages that the group never mentions.
+   */
+  @Test
+  void testEvaluate_Unmentioned() {
+    final var universe = setFactory.universe();
+    named("All", universe);
+    assertThat(evaluator.contains(universe, message("d")), is(true));
+
+    final var a = named("A", setFactory.singleton(message("a")));
+    final var notA = setFactory.diff(setFactory.universe(), ref(a));
+    named("NotA", notA);
+    assertThat(evaluator.isEmpty(notA), is(false));
+    assertThat(evaluator.contains(notA, message("a")), is(false));
+    assertThat(evaluator.contains(notA, message("d")), is(true));
+    assertThat(evaluator.contains(a.getSet(), message("d")), is(false));
+  }
+
+  /**
+   * Tests that messages with wildcard arguments cover the concrete messages they match.
+   */
+  @Test
+  void testEvaluate_Wildcards() {
+    final var any = named("Any", setFactory.singleton(message("e", wildcard())));
+    final var three = named("Three", setFactory.singleton(message("e", integer(3))));
+
+    final var inter = setFactory.inter(ref(any), ref(three));
+    named("Inter", inter);
+    assertThat(evaluator.isEmpty(inter), is(false));
+    assertThat(evaluator.contains(inter, message("e", integer(3))), is(true));
+    assertThat(evaluator.contains(any.getSet(), message("e", integer(4))), is(true));
+
+    final var diff = setFactory.diff(ref(any), ref(three));
+    named("Diff", diff);
+    assertThat(evaluator.isEmpty(diff), is(false));
+    assertThat(evaluator.contains(diff, message("e", integer(3))), is(false));
+    assertThat(evaluator.contains(diff, message("e", integer(4))), is(true));
+    assertThat(evaluator.contains(diff, message("e", wildcard())), is(false));
+
+    // The topics live in different messages, but all three messages share one shape: e(3), and
+    // e(anything else).
+    final var universe = evaluator.universe(group);
+    assertThat(universe.size(), is(2));
+    assertThat(universe.cells(message("e", wildcard())), is(bits(0, 1)));
+    assertThat(universe.cells(message("e", integer(3))), is(bits(0)));
+  }
+
+  /**
+   * Tests that self-referential named sets are rejected.
+   */
+  @Test
+  void testEvaluate_Cyclic() {
+    final var loop = certFactory.createNamedMessageSet();
+    loop.setName("Loop");
+    loop.setSet(ref(loop));
+    group.getMessageSets().add(loop);
+
+    assertThrows(IllegalArgumentException.class, () -> evaluator.evaluate(loop.getSet()));
+  }
+
+  private MessageDenotation evaluate(MessageSet set) {
+    named("Tmp" + group.getMessageSets().size(), set);
+    return evaluator.evaluate(set);
+  }
+
+  private NamedMessageSet named(String name, MessageSet set) {
+    final var it = certFactory.createNamedMessageSet();
+    it.setName(name);
+    it.setSet(set);
+    group.getMessageSets().add(it);
+    return it;
+  }
+
+  private MessageSet ref(NamedMessageSet set) {
+    final var it = certFactory.createRefMessageSet();
+    it.setSet(set);
+    return it;
+  }
+
+  private Message message(String event, ValueSpecification... args) {
+    return msgFactory.spec(world, target, msgFactory.eventTopic(event(event)), args);
+  }
+
+  private Event event(String name) {
+    return events.computeIfAbsent(name, eventFactory::event);
+  }
+
+  private ValueSpecification integer(int value) {
+    final var it = certFactory.createExpressionValueSpecification();
+    it.setExpr(exprFactory.integer(value));
+    return it;
+  }
+
+  private ValueSpecification wildcard() {
+    return certFactory.createWildcardValueSpecification();
+  }
+
+  private static BitSet bits(int... indices) {
+    final var it = new BitSet();
+    for (var i : indices) {
+      it.set(i);
+    }
+    return it;
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.sets;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.BinaryMessageSet;
+import robostar.robocert.BinarySetOperator;
+import robostar.robocert.ExtensionalMessageSet;
+import robostar.robocert.Message;
+import robostar.robocert.MessageSet;
+import robostar.robocert.NamedMessageSet;
+import robostar.robocert.RefMessageSet;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.TargetActor;
+import robostar.robocert.UniverseMessageSet;
+import robostar.robocert.ValueSpecification;
+import robostar.robocert.World;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.SetFactory;
+import robostar.robocert.util.sets.MessageSetEvaluator;
+import robostar.robocert.util.sets.MessageSetSimplifier;
+
+/**
+ * Tests the {@link MessageSetSimplifier}.
+ *
+ * @author Matt Windsor
+ */
+class MessageSetSimplifierTest {
+
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(RoboChartFactory.eINSTANCE);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+  private final SetFactory setFactory = new SetFactory(certFactory);
+
+  private final MessageSetSimplifier simplifier = new MessageSetSimplifier(setFactory,
+      new Fingerprinter());
+  private final MessageSetEvaluator evaluator = new MessageSetEvaluator(new Fingerprinter());
+  private final ExpressionFactory exprFactory = new ExpressionFactory(RoboChartFactory.eINSTANCE);
+
+  private SpecificationGroup group;
+  private TargetActor target;
+  private World world;
+  private NamedMessageSet a;
+  private NamedMessageSet b;
+
+  @BeforeEach
+  void setUp() {
+    target = msgFactory.targetActor();
+    world = msgFactory.world();
+
+    group = certFactory.createSpecificationGroup();
+    group.getActors().addAll(List.of(target, world));
+
+    a = named("A", setFactory.singleton(message("a")));
+    b = named("B", setFactory.singleton(message("b")));
+  }
+
+  /**
+   * Tests the identity and annihilation laws for the universe and empty sets.
+   */
+  @Test
+  void testSimplify_Identities() {
+    assertThat(simplifier.simplify(setFactory.union(ref(a), setFactory.universe())),
+        instanceOf(UniverseMessageSet.class));
+    assertThat(isRefTo(simplifier.simplify(setFactory.diff(ref(a), setFactory.empty())), a),
+        is(true));
+    assertThat(isRefTo(simplifier.simplify(setFactory.inter(setFactory.universe(), ref(a))), a),
+        is(true));
+    assertThat(messages(simplifier.simplify(setFactory.inter(ref(a), setFactory.empty()))),
+        is(0));
+    assertThat(messages(simplifier.simplify(setFactory.diff(ref(a), ref(a)))), is(0));
+  }
+
+  /**
+   * Tests that repeated operands and nested extensional sets are merged.
+   */
+  @Test
+  void testSimplify_Merge() {
+    assertThat(isRefTo(simplifier.simplify(setFactory.union(ref(a), ref(a))), a), is(true));
+
+    final var nested = setFactory.union(setFactory.singleton(message("x")),
+        setFactory.union(setFactory.extensional(List.of(message("y"), message("x"))),
+            setFactory.singleton(message("y"))));
+    assertThat(messages(simplifier.simplify(nested)), is(2));
+
+    final var inter = setFactory.inter(
+        setFactory.extensional(List.of(message("x"), message("y"))),
+        setFactory.extensional(List.of(message("y"), message("z"))));
+    assertThat(messages(simplifier.simplify(inter)), is(1));
+
+    final var diff = setFactory.diff(
+        setFactory.extensional(List.of(message("x"), message("y"))),
+        setFactory.singleton(message("y")));
+    assertThat(messages(simplifier.simplify(diff)), is(1));
+  }
+
+  /**
+   * Tests that extensional sets with wildcard arguments are only merged where that is sound.
+   */
+  @Test
+  void testSimplify_Wildcards() {
+    // {e(*)} & {e(3)} is {e(3)}, not empty.
+    final var inter = setFactory.inter(setFactory.singleton(message("e", wildcard())),
+        setFactory.singleton(message("e", integer(3))));
+    final var simpleInter = simplifier.simplify(inter);
+    assertThat(simpleInter, instanceOf(BinaryMessageSet.class));
+    assertSameDenotation(inter, simpleInter);
+
+    // {e(*)} - {e(3)} still excludes e(3).
+    final var diff = setFactory.diff(setFactory.singleton(message("e", wildcard())),
+        setFactory.singleton(message("e", integer(3))));
+    final var simpleDiff = simplifier.simplify(diff);
+    assertThat(simpleDiff, instanceOf(BinaryMessageSet.class));
+    assertSameDenotation(diff, simpleDiff);
+
+    // Equal messages can still be removed.
+    final var same = setFactory.diff(setFactory.singleton(message("e", wildcard())),
+        setFactory.singleton(message("e", wildcard())));
+    assertThat(messages(simplifier.simplify(same)), is(0));
+  }
+
+  /**
+   * Tests the absorption laws.
+   */
+  @Test
+  void testSimplify_Absorption() {
+    final var union = setFactory.union(ref(a), setFactory.inter(ref(b), ref(a)));
+    assertThat(isRefTo(simplifier.simplify(union), a), is(true));
+
+    final var inter = setFactory.inter(setFactory.union(ref(a), ref(b)), ref(b));
+    assertThat(isRefTo(simplifier.simplify(inter), b), is(true));
+  }
+
+  /**
+   * Tests that irreducible sets keep their shape.
+   */
+  @Test
+  void testSimplify_Irreducible() {
+    final var it = simplifier.simplify(setFactory.union(ref(a), ref(b)));
+    assertThat(it, instanceOf(BinaryMessageSet.class));
+
+    final var bin = (BinaryMessageSet) it;
+    assertThat(bin.getOperator(), is(BinarySetOperator.UNION));
+    assertThat(isRefTo(bin.getLhs(), a), is(true));
+    assertThat(isRefTo(bin.getRhs(), b), is(true));
+  }
+
+  /**
+   * Tests that simplified named sets are cached until they change.
+   */
+  @Test
+  void testSimplify_Named() {
+    final var ab = named("AB", setFactory.union(ref(a), setFactory.union(ref(a), ref(b))));
+
+    final var first = simplifier.simplify(ab);
+    assertThat(simplifier.simplify(ab), sameInstance(first));
+
+    ((BinaryMessageSet) ab.getSet()).setLhs(setFactory.universe());
+    final var second = simplifier.simplify(ab);
+    assertThat(second, not(sameInstance(first)));
+    assertThat(second, instanceOf(UniverseMessageSet.class));
+  }
+
+  private NamedMessageSet named(String name, MessageSet set) {
+    final var it = certFactory.createNamedMessageSet();
+    it.setName(name);
+    it.setSet(set);
+    group.getMessageSets().add(it);
+    return it;
+  }
+
+  private MessageSet ref(NamedMessageSet set) {
+    final var it = certFactory.createRefMessageSet();
+    it.setSet(set);
+    return it;
+  }
+
+  private Message message(String event, ValueSpecification... args) {
+    return msgFactory.spec(world, target, msgFactory.eventTopic(eventFactory.event(event)), args);
+  }
+
+  private ValueSpecification integer(int value) {
+    final var it = certFactory.createExpressionValueSpecification();
+    it.setExpr(exprFactory.integer(value));
+    return it;
+  }
+
+  private ValueSpecification wildcard() {
+    return certFactory.createWildcardValueSpecification();
+  }
+
+  private void assertSameDenotation(MessageSet original, MessageSet simplified) {
+    named("Original", original);
+    named("Simplified", simplified);
+    assertThat(evaluator.evaluate(simplified), is(evaluator.evaluate(original)));
+  }
+
+  private static boolean isRefTo(MessageSet set, NamedMessageSet named) {
+    return set instanceof RefMessageSet r && r.getSet() == named;
+  }
+
+  private static int messages(MessageSet set) {
+    return set instanceof ExtensionalMessageSet e ? e.getMessages().size() : -1;
+  }
+}
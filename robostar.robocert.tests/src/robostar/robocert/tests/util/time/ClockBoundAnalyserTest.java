@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.time;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import circus.robocalc.robochart.Expression;
+import circus.robocalc.robochart.RoboChartFactory;
+import circus.robocalc.robochart.Variable;
+import java.util.List;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.ConstAssignment;
+import robostar.robocert.DeadlineFragment;
+import robostar.robocert.Guard;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.LoopFragment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.InstantiationHelper;
+import robostar.robocert.util.reduce.GuardPruner;
+import robostar.robocert.util.time.ClockBoundAnalyser;
+import robostar.robocert.util.time.TimeSpan;
+
+/**
+ * Tests the {@link ClockBoundAnalyser}.
+ *
+ * @author Matt Windsor
+ */
+class ClockBoundAnalyserTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final ExpressionFactory exprFactory = new ExpressionFactory(chartFactory);
+  private final ExpressionFolder folder = new ExpressionFolder(exprFactory,
+      new InstantiationHelper());
+  private final ClockBoundAnalyser analyser = new ClockBoundAnalyser(folder,
+      new GuardPruner(folder, certFactory));
+
+  private SpecificationGroup group;
+  private Interaction it;
+
+  @BeforeEach
+  void setUp() {
+    it = certFactory.createInteraction();
+    it.setName("test");
+    group = certFactory.createSpecificationGroup();
+    group.getInteractions().add(it);
+  }
+
+  /**
+   * Tests spans through sequences, loops, and choices.
+   */
+  @Test
+  void testAnalyse_Spans() {
+    // loop(2, 3) { wait(1); wait(2) }; alt { wait(5) } [false] { wait(100) } { wait(4) }
+    final var loop = loop(exprFactory.integer(2), exprFactory.integer(3), wait(1), wait(2));
+    final var alt = certFactory.createAltFragment();
+    alt.getBranches().addAll(List.of(operand(empty(), wait(5)),
+        operand(guard(exprFactory.bool(false)), wait(100)), operand(empty(), wait(4))));
+    it.getFragments().addAll(List.of(loop, alt));
+
+    final var bounds = analyser.analyse(it);
+    assertThat(bounds.span(loop), is(new TimeSpan(6, 9)));
+    assertThat(bounds.span(alt), is(new TimeSpan(4, 5)));
+    assertThat(bounds.span(), is(new TimeSpan(10, 14)));
+    // The disabled wait never runs, so it needs no clock.
+    assertThat(bounds.clockBound(), is(OptionalLong.of(5)));
+    assertThat(bounds.isFeasible(), is(true));
+  }
+
+  /**
+   * Tests that deadlines cap their bodies and bound their clocks.
+   */
+  @Test
+  void testAnalyse_Deadline() {
+    // deadline(7) { par { wait(2) } { wait(3); loop { wait(1) } } }
+    final var par = certFactory.createParFragment();
+    par.getBranches().addAll(List.of(operand(empty(), wait(2)),
+        operand(empty(), wait(3), loop(null, null, wait(1)))));
+    final var deadline = deadline(exprFactory.integer(7), par);
+    it.getFragments().add(deadline);
+
+    final var bounds = analyser.requireFeasible(it);
+    assertThat(bounds.span(par), is(new TimeSpan(3, TimeSpan.UNBOUNDED)));
+    assertThat(bounds.span(deadline), is(new TimeSpan(3, 7)));
+    assertThat(bounds.clockBound(), is(OptionalLong.of(7)));
+  }
+
+  /**
+   * Tests that deadlines shorter than their bodies are rejected.
+   */
+  @Test
+  void testAnalyse_Infeasible() {
+    final var deadline = deadline(exprFactory.integer(2), wait(3));
+    it.getFragments().add(deadline);
+
+    final var bounds = analyser.analyse(it);
+    assertThat(bounds.infeasible(), is(List.of(deadline)));
+    final var e = assertThrows(IllegalArgumentException.class,
+        () -> analyser.requireFeasible(it));
+    assertThat(e.getMessage().endsWith("allows only 2"), is(true));
+  }
+
+  /**
+   * Tests that infeasible deadlines are listed in the order they appear, outermost first.
+   */
+  @Test
+  void testAnalyse_InfeasibleOrder() {
+    // deadline(2) { deadline(1) { wait(3) } }; deadline(0) { wait(1) }
+    final var inner = deadline(exprFactory.integer(1), wait(3));
+    final var outer = deadline(exprFactory.integer(2), inner);
+    final var last = deadline(exprFactory.integer(0), wait(1));
+    it.getFragments().addAll(List.of(outer, last));
+
+    assertThat(analyser.analyse(it).infeasible(), is(List.of(outer, inner, last)));
+  }
+
+  /**
+   * Tests that until fragments can take any amount of time before their bodies.
+   */
+  @Test
+  void testAnalyse_Until() {
+    // until(*) { wait(2) }
+    final var until = certFactory.createUntilFragment();
+    until.setIntraMessages(certFactory.createUniverseMessageSet());
+    until.setBody(operand(empty(), wait(2)));
+    it.getFragments().add(until);
+
+    assertThat(analyser.analyse(it).span(until), is(new TimeSpan(2, TimeSpan.UNBOUNDED)));
+  }
+
+  /**
+   * Tests that constants come from the group, and cached results follow changes to them.
+   */
+  @Test
+  void testAnalyse_Constants() {
+    final var n = chartFactory.createVariable();
+    n.setName("n");
+    final var asn = assign(exprFactory.integer(4), n);
+    group.getAssignments().add(asn);
+
+    it.getFragments().add(deadline(exprFactory.ref(n), wait(3)));
+    assertThat(analyser.analyse(it).isFeasible(), is(true));
+    assertThat(analyser.analyse(it).clockBound(), is(OptionalLong.of(3)));
+
+    asn.setValue(exprFactory.integer(2));
+    assertThat(analyser.analyse(it).isFeasible(), is(false));
+
+    // Without a value, there is no static bound.
+    group.getAssignments().clear();
+    assertThat(analyser.analyse(it).clockBound(), is(OptionalLong.empty()));
+    assertThat(analyser.analyse(it).isFeasible(), is(true));
+  }
+
+  private Guard empty() {
+    return certFactory.createEmptyGuard();
+  }
+
+  private Guard guard(Expression e) {
+    final var g = certFactory.createExprGuard();
+    g.setExpr(e);
+    return g;
+  }
+
+  private InteractionOperand operand(Guard guard, InteractionFragment... fragments) {
+    final var op = certFactory.createInteractionOperand();
+    op.setGuard(guard);
+    op.getFragments().addAll(List.of(fragments));
+    return op;
+  }
+
+  private InteractionFragment wait(int units) {
+    final var occ = certFactory.createWaitOccurrence();
+    occ.setUnits(exprFactory.integer(units));
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(occ);
+    return frag;
+  }
+
+  private LoopFragment loop(Expression lower, Expression upper, InteractionFragment... body) {
+    final var loop = certFactory.createLoopFragment();
+    loop.setBody(operand(empty(), body));
+    if (upper != null) {
+      final var bound = certFactory.createDiscreteBound();
+      bound.setLower(lower);
+      bound.setUpper(upper);
+      loop.setBound(bound);
+    }
+    return loop;
+  }
+
+  private DeadlineFragment deadline(Expression units, InteractionFragment... body) {
+    final var deadline = certFactory.createDeadlineFragment();
+    deadline.setUnits(units);
+    deadline.setBody(operand(empty(), body));
+    return deadline;
+  }
+
+  private ConstAssignment assign(Expression value, Variable constant) {
+    final var a = certFactory.createConstAssignment();
+    a.getConstants().add(constant);
+    a.setValue(value);
+    return a;
+  }
+}
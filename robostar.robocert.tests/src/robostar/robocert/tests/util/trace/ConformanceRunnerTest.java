@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.trace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import circus.robocalc.robochart.RoboChartFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import robostar.robocert.CertPackage;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.Message;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SequenceProperty;
+import robostar.robocert.TargetActor;
+import robostar.robocert.World;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.InstantiationHelper;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.ValueSpecificationFactory;
+import robostar.robocert.util.ir.InteractionCompiler;
+import robostar.robocert.util.trace.ConformanceRunner;
+import robostar.robocert.util.trace.TraceCompiler;
+import robostar.robocert.util.trace.TraceVerdict;
+import robostar.robocert.util.trace.TraceVerdict.Outcome;
+
+/**
+ * Tests the {@link ConformanceRunner} over logs in a temporary directory.
+ *
+ * @author Matt Windsor
+ */
+class ConformanceRunnerTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(chartFactory);
+  private final ExpressionFactory exprFactory = new ExpressionFactory(chartFactory);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+  private final ValueSpecificationFactory valueFactory = new ValueSpecificationFactory(
+      exprFactory, chartFactory, certFactory);
+
+  private final ConformanceRunner runner = new ConformanceRunner(
+      new TraceCompiler(new InteractionCompiler(), new Fingerprinter(),
+          new ExpressionFolder(exprFactory, new InstantiationHelper())), msgFactory, exprFactory);
+
+  @TempDir
+  Path dir;
+
+  private CertPackage pkg;
+  private SequenceProperty first;
+  private SequenceProperty second;
+
+  @BeforeEach
+  void setUp() {
+    final var target = msgFactory.targetActor();
+    target.setName("T");
+    final var world = msgFactory.world();
+    world.setName("W");
+
+    // Topics are contained in their messages, so each message needs its own.
+    final var e = eventFactory.event("e");
+    final var f = eventFactory.event("f");
+
+    // W -> T : e; T -> W : f(_)
+    final var it1 = interaction(target, world,
+        occurrence(msgFactory.spec(world, target, msgFactory.eventTopic(e))),
+        occurrence(msgFactory.spec(target, world, msgFactory.eventTopic(f),
+            valueFactory.wildcard())));
+    // W -> T : e(3)
+    final var it2 = interaction(target, world,
+        occurrence(msgFactory.spec(world, target, msgFactory.eventTopic(e),
+            valueFactory.integer(3))));
+
+    final var group = certFactory.createSpecificationGroup();
+    group.setName("group");
+    group.getActors().addAll(List.of(target, world));
+    group.getInteractions().addAll(List.of(it1, it2));
+
+    first = property(it1);
+    second = property(it2);
+    final var assertions = certFactory.createAssertionGroup();
+    for (var p : List.of(first, second)) {
+      final var a = certFactory.createAssertion();
+      a.setProperty(p);
+      assertions.getAssertions().add(a);
+    }
+
+    pkg = certFactory.createCertPackage();
+    pkg.setName("pkg");
+    pkg.getGroups().addAll(List.of(group, assertions));
+  }
+
+  /**
+   * Tests that every (log, property) pair gets a verdict, in order.
+   */
+  @Test
+  void testRun() throws IOException {
+    Files.writeString(dir.resolve("a.log"), "# complete\nW -> T : e\ntock\n\nT -> W : f(true)\n");
+    Files.writeString(dir.resolve("b.log"), "W -> T : e(3)");
+    Files.writeString(dir.resolve("c.log"), "W -> T : e\nW -> X : e\n");
+
+    final var pool = new ForkJoinPool(4);
+    try {
+      final var report = runner.run(pkg, dir, pool);
+      final var verdicts = report.verdicts();
+      assertThat(verdicts.size(), is(6));
+
+      assertThat(verdict(verdicts.get(0), "a.log", first), is(Outcome.COMPLETE));
+      assertThat(verdicts.get(0).observations(), is(3L));
+      assertThat(verdict(verdicts.get(1), "a.log", second), is(Outcome.DIVERGED));
+      assertThat(verdicts.get(1).divergence().position(), is(0L));
+
+      assertThat(verdict(verdicts.get(2), "b.log", first), is(Outcome.DIVERGED));
+      assertThat(verdict(verdicts.get(3), "b.log", second), is(Outcome.COMPLETE));
+
+      // The second line is only read (and rejected) when the first line conforms.
+      assertThat(verdict(verdicts.get(4), "c.log", first), is(Outcome.ERROR));
+      assertThat(verdict(verdicts.get(5), "c.log", second), is(Outcome.DIVERGED));
+
+      assertThat(report.summary(), is("6 checks: 2 complete, 0 prefix, 3 diverged, 1 error"));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests that a trace that stops part-way through an interaction is a prefix.
+   */
+  @Test
+  void testRun_Prefix() throws IOException {
+    Files.writeString(dir.resolve("a.log"), "W -> T : e\r\ntock\r\n");
+
+    final var pool = new ForkJoinPool(2);
+    try {
+      final var verdicts = runner.run(pkg, dir, pool).verdicts();
+      assertThat(verdict(verdicts.get(0), "a.log", first), is(Outcome.PREFIX));
+      assertThat(verdict(verdicts.get(1), "a.log", second), is(Outcome.DIVERGED));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests naming actors that only appear in messages, and topics by their to-events.
+   */
+  @Test
+  void testRun_Names() throws IOException {
+    final var target = msgFactory.targetActor();
+    target.setName("T");
+    final var world = msgFactory.world();
+    world.setName("W");
+    // Not in the interaction's actor list, only in its messages.
+    final var comp = certFactory.createComponentActor();
+    comp.setName("C");
+
+    final var g = eventFactory.event("g");
+    // C -> T : g/h; T -> W : g/i
+    final var it = interaction(target, world,
+        occurrence(msgFactory.spec(comp, target,
+            msgFactory.eventTopic(g, eventFactory.event("h")))),
+        occurrence(msgFactory.spec(target, world,
+            msgFactory.eventTopic(g, eventFactory.event("i")))));
+
+    final var group = certFactory.createSpecificationGroup();
+    group.setName("group");
+    group.getActors().addAll(List.of(target, world, comp));
+    group.getInteractions().add(it);
+
+    final var p = property(it);
+    final var a = certFactory.createAssertion();
+    a.setProperty(p);
+    final var assertions = certFactory.createAssertionGroup();
+    assertions.getAssertions().add(a);
+
+    final var names = certFactory.createCertPackage();
+    names.setName("names");
+    names.getGroups().addAll(List.of(group, assertions));
+
+    Files.writeString(dir.resolve("a.log"), "C -> T : g/h\nT -> W : g/i\n");
+    // Both topics have the from-event 'g'.
+    Files.writeString(dir.resolve("b.log"), "C -> T : g\n");
+
+    final var pool = new ForkJoinPool(2);
+    try {
+      final var verdicts = runner.run(names, dir, pool).verdicts();
+      assertThat(verdict(verdicts.get(0), "a.log", p), is(Outcome.COMPLETE));
+      assertThat(verdict(verdicts.get(1), "b.log", p), is(Outcome.ERROR));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private Outcome verdict(TraceVerdict v, String log, SequenceProperty p) {
+    assertThat(v.trace().getFileName().toString(), is(log));
+    assertThat(v.property(), is(p));
+    return v.outcome();
+  }
+
+  private SequenceProperty property(Interaction it) {
+    final var p = certFactory.createSequenceProperty();
+    p.setInteraction(it);
+    return p;
+  }
+
+  private Interaction interaction(TargetActor target, World world,
+      InteractionFragment... fragments) {
+    final var it = certFactory.createInteraction();
+    it.getActors().addAll(List.of(target, world));
+    it.getFragments().addAll(List.of(fragments));
+    return it;
+  }
+
+  private InteractionFragment occurrence(Message m) {
+    final var occ = certFactory.createMessageOccurrence();
+    occ.setMessage(m);
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(occ);
+    return frag;
+  }
+}
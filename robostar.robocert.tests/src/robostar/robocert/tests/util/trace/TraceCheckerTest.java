@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+package robostar.robocert.tests.util.trace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import circus.robocalc.robochart.Event;
+import circus.robocalc.robochart.Expression;
+import circus.robocalc.robochart.RoboChartFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import robostar.robocert.EventTopic;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.Message;
+import robostar.robocert.OccurrenceFragment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.TargetActor;
+import robostar.robocert.ValueSpecification;
+import robostar.robocert.World;
+import robostar.robocert.util.EventFactory;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.InstantiationHelper;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.SetFactory;
+import robostar.robocert.util.ValueSpecificationFactory;
+import robostar.robocert.util.ir.InteractionCompiler;
+import robostar.robocert.util.trace.TraceChecker;
+import robostar.robocert.util.trace.TraceCompiler;
+
+/**
+ * Tests the {@link TraceChecker} over automata from the {@link TraceCompiler}.
+ *
+ * @author Matt Windsor
+ */
+class TraceCheckerTest {
+
+  private final RoboChartFactory chartFactory = RoboChartFactory.eINSTANCE;
+  private final RoboCertFactory certFactory = RoboCertFactory.eINSTANCE;
+  private final EventFactory eventFactory = new EventFactory(chartFactory);
+  private final ExpressionFactory exprFactory = new ExpressionFactory(chartFactory);
+  private final MessageFactory msgFactory = new MessageFactory(certFactory);
+  private final SetFactory setFactory = new SetFactory(certFactory);
+  private final ValueSpecificationFactory valueFactory = new ValueSpecificationFactory(
+      exprFactory, chartFactory, certFactory);
+
+  private final TraceCompiler compiler = new TraceCompiler(new InteractionCompiler(),
+      new Fingerprinter(), new ExpressionFolder(exprFactory, new InstantiationHelper()));
+
+  private final Map<String, Event> events = new HashMap<>();
+
+  private TargetActor target;
+  private World world;
+  private Interaction it;
+
+  @BeforeEach
+  void setUp() {
+    target = msgFactory.targetActor();
+    world = msgFactory.world();
+
+    // e; loop(1, 2) { f }; alt { g } else { h }; par { i } and { j }; until(k) { l }; wait(1); m
+    final var bound = certFactory.createDiscreteBound();
+    bound.setLower(exprFactory.integer(1));
+    bound.setUpper(exprFactory.integer(2));
+    final var loop = certFactory.createLoopFragment();
+    loop.setBody(operand(occurrence("f")));
+    loop.setBound(bound);
+
+    final var alt = certFactory.createAltFragment();
+    alt.getBranches().addAll(List.of(operand(occurrence("g")), operand(occurrence("h"))));
+
+    final var par = certFactory.createParFragment();
+    par.getBranches().addAll(List.of(operand(occurrence("i")), operand(occurrence("j"))));
+
+    final var until = certFactory.createUntilFragment();
+    until.setIntraMessages(setFactory.singleton(spec("k")));
+    until.setBody(operand(occurrence("l")));
+
+    final var wait = certFactory.createWaitOccurrence();
+    wait.setActor(world);
+    wait.setUnits(exprFactory.integer(1));
+    final var waitFrag = certFactory.createOccurrenceFragment();
+    waitFrag.setOccurrence(wait);
+
+    it = certFactory.createInteraction();
+    it.setName("seq");
+    it.getActors().addAll(List.of(target, world));
+    it.getFragments().addAll(
+        List.of(occurrence("e"), loop, alt, par, until, waitFrag, occurrence("m")));
+  }
+
+  /**
+   * Tests a trace that runs through every fragment.
+   */
+  @Test
+  void testCheck_Conforming() {
+    final var checker = compiler.compile(it).checker();
+    for (var e : List.of("e", "f", "f", "h", "j", "i", "k", "k", "l")) {
+      assertThat(checker.message(observed(e)), is(true));
+    }
+    assertThat(checker.isComplete(), is(false));
+    assertThat(checker.tock(), is(true));
+    assertThat(checker.message(observed("m")), is(true));
+    assertThat(checker.isComplete(), is(true));
+    assertThat(checker.divergence().isPresent(), is(false));
+  }
+
+  /**
+   * Tests that the first divergence is reported, with what was expected instead.
+   */
+  @Test
+  void testCheck_Divergence() {
+    final var checker = compiler.compile(it).checker();
+    assertThat(checker.message(observed("e")), is(true));
+    assertThat(checker.message(observed("g")), is(false));
+
+    final var div = checker.divergence().orElseThrow();
+    assertThat(div.position(), is(1L));
+    assertThat(div.expected().size(), is(1));
+    final var topic = (EventTopic) div.expected().get(0).getTopic();
+    assertThat(topic.getEfrom(), is(events.get("f")));
+
+    // Everything after a divergence is rejected.
+    assertThat(checker.message(observed("f")), is(false));
+  }
+
+  /**
+   * Tests that waits need time to pass, and that loops respect their upper bounds.
+   */
+  @Test
+  void testCheck_Bounds() {
+    final var waiting = compiler.compile(it).checker();
+    for (var e : List.of("e", "f", "g", "i", "j", "l")) {
+      assertThat(waiting.message(observed(e)), is(true));
+    }
+    assertThat(waiting.message(observed("m")), is(false));
+    assertThat(waiting.divergence().orElseThrow().position(), is(6L));
+
+    final var looping = compiler.compile(it).checker();
+    for (var e : List.of("e", "f", "f")) {
+      assertThat(looping.message(observed(e)), is(true));
+    }
+    assertThat(looping.message(observed("f")), is(false));
+  }
+
+  /**
+   * Tests that wildcard arguments match any observed argument.
+   */
+  @Test
+  void testCheck_Wildcard() {
+    final var wild = certFactory.createInteraction();
+    wild.getActors().addAll(List.of(target, world));
+    wild.getFragments().add(occurrence(spec("e", valueFactory.wildcard())));
+
+    final var checker = compiler.compile(wild).checker();
+    assertThat(checker.message(observed("e", valueFactory.integer(42))), is(true));
+    assertThat(checker.isComplete(), is(true));
+  }
+
+  /**
+   * Tests that specification arguments are folded under the group's constants, and that arguments
+   * that don't fold to literals are rejected.
+   */
+  @Test
+  void testCheck_Constants() {
+    final var n = chartFactory.createVariable();
+    n.setName("N");
+    final var asn = certFactory.createConstAssignment();
+    asn.getConstants().add(n);
+    asn.setValue(exprFactory.integer(2));
+
+    // e(N); f(1 + 1)
+    final var folded = certFactory.createInteraction();
+    folded.getActors().addAll(List.of(target, world));
+    folded.getFragments().addAll(List.of(occurrence(spec("e", arg(exprFactory.ref(n)))),
+        occurrence(spec("f", arg(exprFactory.plus(exprFactory.integer(1),
+            exprFactory.integer(1)))))));
+
+    final var group = certFactory.createSpecificationGroup();
+    group.getAssignments().add(asn);
+    group.getInteractions().add(folded);
+
+    final var checker = compiler.compile(folded).checker();
+    assertThat(checker.message(observed("e", valueFactory.integer(2))), is(true));
+    assertThat(checker.message(observed("f", valueFactory.integer(3))), is(false));
+
+    // Changing the constant rebuilds the automaton.
+    asn.setValue(exprFactory.integer(3));
+    final var changed = compiler.compile(folded).checker();
+    assertThat(changed.message(observed("e", valueFactory.integer(3))), is(true));
+
+    // Without the assignment, N can't be folded.
+    group.getAssignments().clear();
+    assertThrows(IllegalArgumentException.class, () -> compiler.compile(folded));
+  }
+
+  /**
+   * Tests that a specification without a to-event matches observations with any to-event.
+   */
+  @Test
+  void testCheck_AnyTo() {
+    final var g = eventFactory.event("g");
+    final var h = eventFactory.event("h");
+
+    final var any = certFactory.createInteraction();
+    any.getActors().addAll(List.of(target, world));
+    any.getFragments().add(occurrence(msgFactory.spec(world, target, msgFactory.eventTopic(g))));
+    final var anyChecker = compiler.compile(any).checker();
+    assertThat(anyChecker.message(
+        msgFactory.spec(world, target, msgFactory.eventTopic(g, h))), is(true));
+
+    final var to = certFactory.createInteraction();
+    to.getActors().addAll(List.of(target, world));
+    to.getFragments().add(occurrence(msgFactory.spec(world, target, msgFactory.eventTopic(g, h))));
+    final var toChecker = compiler.compile(to).checker();
+    assertThat(toChecker.message(msgFactory.spec(world, target, msgFactory.eventTopic(g))),
+        is(false));
+  }
+
+  private ValueSpecification arg(Expression e) {
+    final var it = certFactory.createExpressionValueSpecification();
+    it.setExpr(e);
+    return it;
+  }
+
+  private InteractionOperand operand(InteractionFragment... fragments) {
+    final var op = certFactory.createInteractionOperand();
+    op.setGuard(certFactory.createEmptyGuard());
+    op.getFragments().addAll(List.of(fragments));
+    return op;
+  }
+
+  private OccurrenceFragment occurrence(String event) {
+    return occurrence(spec(event));
+  }
+
+  private OccurrenceFragment occurrence(Message m) {
+    final var occ = certFactory.createMessageOccurrence();
+    occ.setMessage(m);
+    final var frag = certFactory.createOccurrenceFragment();
+    frag.setOccurrence(occ);
+    return frag;
+  }
+
+  private Message spec(String event, ValueSpecification... args) {
+    final var topic = msgFactory.eventTopic(events.computeIfAbsent(event, eventFactory::event));
+    return msgFactory.spec(world, target, topic, args);
+  }
+
+  private Message observed(String event, ValueSpecification... args) {
+    return spec(event, args);
+  }
+}
@@ -19,9 +19,16 @@ import circus.robocalc.robochart.RCModule;
 import circus.robocalc.robochart.RoboticPlatform;
 import circus.robocalc.robochart.StateMachineBody;
 import com.google.inject.Inject;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
 import robostar.robocert.Actor;
 import robostar.robocert.ComponentActor;
 import robostar.robocert.ControllerTarget;
@@ -47,6 +54,12 @@ import robostar.robocert.util.resolve.StateMachineResolver;
 public record ActorNodeResolver(ControllerResolver ctrlRes, ModuleResolver modRes,
                                 StateMachineResolver stmRes) {
 
+  /**
+   * Caches the world nodes of modules, controllers, and state machine bodies.
+   */
+  private static final ModelCache<EObject, Set<ConnectionNode>> WORLDS = new ModelCache<>(
+      ActorNodeResolver::affectsWorld);
+
   /**
    * Constructs an actor resolver.
    *
@@ -154,6 +167,21 @@ public record ActorNodeResolver(ControllerResolver ctrlRes, ModuleResolver modRe
    * @return a stream of connection nodes that can represent the target actor.
    */
   public Stream<ConnectionNode> resolveWorld(Target target) {
+    return worldNodes(target).stream();
+  }
+
+  /**
+   * Deduces the set of connection nodes that can represent the world actor for a target.
+   *
+   * <p>The set is computed once per module, controller, state machine, or operation, and kept
+   * until the enclosing module's {@code nodes}, or controller's {@code machines} or
+   * {@code lOperations}, change.  It iterates in the same order as {@link #resolveWorld(Target)},
+   * and, as RoboChart nodes use identity equality, has constant-time identity membership tests.
+   *
+   * @param target the target for which we are resolving target-relative actors.
+   * @return an unmodifiable set of connection nodes that can represent the world actor.
+   */
+  public Set<ConnectionNode> worldNodes(Target target) {
     if (target instanceof InModuleTarget m) {
       return moduleWorld(m.getModule());
     }
@@ -178,28 +206,47 @@ public record ActorNodeResolver(ControllerResolver ctrlRes, ModuleResolver modRe
     throw new IllegalArgumentException("can't resolve world actor for target %s".formatted(target));
   }
 
-  private Stream<ConnectionNode> moduleWorld(RCModule m) {
-    // The world of a module is just its platform (with some casting to ConnectionNode).
-    return modRes.platform(m).stream().map(x -> x);
+  private Set<ConnectionNode> moduleWorld(RCModule m) {
+    // The world of a module is just its platform.
+    return WORLDS.get(m, (x, watch) -> scope(modRes.platform(m).stream()));
   }
 
-  private Stream<ConnectionNode> controllerWorld(ControllerDef c) {
+  private Set<ConnectionNode> controllerWorld(ControllerDef c) {
     // The world of a controller is everything visible inside its module, except the controller
     // itself.
-    return ctrlRes.module(c).stream().flatMap(m -> {
-      final var above = moduleWorld(m);
+    return WORLDS.get(c, (x, watch) -> scope(ctrlRes.module(c).stream().flatMap(m -> {
+      watch.accept(m);
+      final var above = moduleWorld(m).stream();
       final var local = m.getNodes().stream();
-      return Stream.concat(above, local.filter(x -> x != c));
-    });
+      return Stream.concat(above, local.filter(y -> y != c));
+    })));
   }
 
-  private Stream<ConnectionNode> stmBodyWorld(StateMachineBody s) {
+  private Set<ConnectionNode> stmBodyWorld(StateMachineBody s) {
     // The world of a state machine or operation is everything visible inside its controller,
     // except the state machine body itself.
-    return stmRes.controller(s).stream().flatMap(c -> {
-      final var above = StreamHelper.push(c, controllerWorld(c));
+    return WORLDS.get(s, (x, watch) -> scope(stmRes.controller(s).stream().flatMap(c -> {
+      watch.accept(c);
+      ctrlRes.module(c).ifPresent(watch);
+      final var above = StreamHelper.push(c, controllerWorld(c).stream());
       final var local = Stream.concat(c.getLOperations().stream(), c.getMachines().stream());
-      return Stream.concat(above, local.filter(x -> x != s));
-    });
+      return Stream.concat(above, local.filter(y -> y != s));
+    })));
+  }
+
+  private static Set<ConnectionNode> scope(Stream<? extends ConnectionNode> nodes) {
+    final var set = nodes.collect(Collectors.<ConnectionNode, Set<ConnectionNode>>toCollection(
+        LinkedHashSet::new));
+    return Collections.unmodifiableSet(set);
+  }
+
+  private static boolean affectsWorld(Notification msg) {
+    if (!(msg.getNotifier() instanceof RCModule || msg.getNotifier() instanceof ControllerDef)) {
+      return false;
+    }
+    return msg.getFeature() instanceof EReference r && switch (r.getName()) {
+      case "nodes", "machines", "lOperations" -> true;
+      default -> false;
+    };
   }
 }
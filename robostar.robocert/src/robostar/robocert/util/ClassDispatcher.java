@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+
+/**
+ * A prebuilt dispatch table from the classes of a package to integer cases.
+ *
+ * <p>This replaces the generated EMF switches where they are on hot paths.  Instead of walking the
+ * supertypes of an object's class on every call, the dispatcher works out the case for every
+ * class in the package once, up front, and then looks it up by classifier ID.  Callers then
+ * {@code switch} on the case, which keeps call sites monomorphic and allocation-free:
+ *
+ * <pre>{@code
+ * private static final int CASE_FOO = 0;
+ * private static final ClassDispatcher DISPATCH = ClassDispatcher.builder(MyPackage.eINSTANCE)
+ *     .on(MyPackage.Literals.FOO, CASE_FOO).build();
+ *
+ * return switch (DISPATCH.dispatch(x)) {
+ *   case CASE_FOO -> foo((Foo) x);
+ *   default -> fallback(x);
+ * };
+ * }</pre>
+ *
+ * <p>As with the generated switches, an object whose class has no case of its own takes the case
+ * of its nearest registered supertype (breadth-first, in declaration order).  Objects of classes
+ * from other packages (for instance, extensions of this package) are handled the same way, but
+ * their cases are computed on first sight.  Dispatchers are immutable once built, apart from this
+ * cache, and are safe to share between threads.
+ *
+ * @author Matt Windsor
+ */
+public final class ClassDispatcher {
+
+  /**
+   * The case returned for objects with no registered case.
+   */
+  public static final int NONE = -1;
+
+  private final EPackage pkg;
+  private final Map<EClass, Integer> registered;
+  private final int[] table;
+  private final Map<EClass, Integer> foreign = new ConcurrentHashMap<>();
+
+  private ClassDispatcher(EPackage pkg, Map<EClass, Integer> registered) {
+    this.pkg = pkg;
+    this.registered = Map.copyOf(registered);
+
+    final var classes = pkg.getEClassifiers().stream().filter(EClass.class::isInstance)
+        .map(EClass.class::cast).toList();
+    final var size = classes.stream().mapToInt(EClass::getClassifierID).max().orElse(-1) + 1;
+    table = new int[size];
+    Arrays.fill(table, NONE);
+    for (var c : classes) {
+      table[c.getClassifierID()] = lookup(c);
+    }
+  }
+
+  /**
+   * Starts building a dispatcher.
+   *
+   * @param pkg the package whose classes are to be dispatched on.
+   * @return a builder for the dispatcher.
+   */
+  public static Builder builder(EPackage pkg) {
+    return new Builder(pkg);
+  }
+
+  /**
+   * Gets the case for an object.
+   *
+   * @param e the object to dispatch on (may be null).
+   * @return the case registered for the class of {@code e}, or its nearest supertype; {@link #NONE}
+   * if there is no such case or {@code e} is null.
+   */
+  public int dispatch(EObject e) {
+    if (e == null) {
+      return NONE;
+    }
+    final var cls = e.eClass();
+    if (cls.getEPackage() == pkg) {
+      return table[cls.getClassifierID()];
+    }
+    return foreign.computeIfAbsent(cls, this::lookup);
+  }
+
+  private int lookup(EClass cls) {
+    final var queue = new ArrayDeque<EClass>();
+    final var seen = new HashSet<EClass>();
+    queue.add(cls);
+    while (!queue.isEmpty()) {
+      final var c = queue.remove();
+      if (!seen.add(c)) {
+        continue;
+      }
+      final var found = registered.get(c);
+      if (found != null) {
+        return found;
+      }
+      queue.addAll(c.getESuperTypes());
+    }
+    return NONE;
+  }
+
+  /**
+   * Builder for {@link ClassDispatcher}s.
+   */
+  public static final class Builder {
+
+    private final EPackage pkg;
+    private final Map<EClass, Integer> registered = new HashMap<>();
+
+    private Builder(EPackage pkg) {
+      this.pkg = Objects.requireNonNull(pkg);
+    }
+
+    /**
+     * Registers a case for a class (and, unless overridden, its subclasses).
+     *
+     * @param cls      the class; may come from any package.
+     * @param caseCode the case, which must not be {@link #NONE}.
+     * @return this builder.
+     */
+    public Builder on(EClass cls, int caseCode) {
+      if (caseCode == NONE) {
+        throw new IllegalArgumentException("can't register NONE as a case");
+      }
+      registered.put(Objects.requireNonNull(cls), caseCode);
+      return this;
+    }
+
+    /**
+     * Builds the dispatcher.
+     *
+     * @return the dispatcher.
+     */
+    public ClassDispatcher build() {
+      return new ClassDispatcher(pkg, registered);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util;
+
+import com.google.inject.ImplementedBy;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Decides how resolvers stream over collections drawn from the model.
+ *
+ * <p>Most such collections are tiny, and EMF lists are not safe to traverse from several threads,
+ * so resolvers are {@link SequentialExecutionPolicy sequential} unless a parallel policy is bound
+ * explicitly.  Coarse-grained parallelism, such as that of
+ * {@link robostar.robocert.util.resolve.ParallelEventResolver}, is usually a better bet.
+ *
+ * @author Matt Windsor
+ */
+@ImplementedBy(SequentialExecutionPolicy.class)
+public interface ExecutionPolicy {
+
+  /**
+   * Streams over a collection according to this policy.
+   *
+   * @param xs  the collection to stream over.
+   * @param <T> type of elements.
+   * @return a stream over {@code xs}, which is ordered if {@code xs} is.
+   */
+  <T> Stream<T> stream(Collection<T> xs);
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util;
+
+import circus.robocalc.robochart.BinaryExpression;
+import circus.robocalc.robochart.BooleanExp;
+import circus.robocalc.robochart.Expression;
+import circus.robocalc.robochart.IntegerExp;
+import circus.robocalc.robochart.Neg;
+import circus.robocalc.robochart.Not;
+import circus.robocalc.robochart.ParExp;
+import circus.robocalc.robochart.RefExp;
+import circus.robocalc.robochart.RoboChartPackage;
+import circus.robocalc.robochart.Variable;
+import com.google.inject.Inject;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntBinaryOperator;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import robostar.robocert.ConstAssignment;
+import robostar.robocert.SpecificationGroup;
+
+/**
+ * Folds RoboChart expressions down to literals, substituting the constants instantiated by their
+ * specification group.
+ *
+ * <p>The folder understands integer and boolean literals, parentheses, constant references, and
+ * the operators built by {@link ExpressionFactory} (plus {@code not}).  Anything else is left as
+ * it is, as are operations that would overflow, divide by zero, or take the division or modulus
+ * of negative numbers (where RoboChart's semantics depend on the backend).  Where only some
+ * operands fold, the folder returns a residual expression, simplified with the usual identity and
+ * annihilation laws.
+ *
+ * <p>Folds are cached on the expressions they come from, and recomputed when the expression, any
+ * of its containers up to its group, or the group's assignments change.  Expressions outside a
+ * group have no constants to substitute, and their folds are not cached.
+ *
+ * @param exprFactory factory used to build folded expressions.
+ * @param instHelper  helper used to look up instantiated constants.
+ * @author Matt Windsor
+ */
+public record ExpressionFolder(ExpressionFactory exprFactory, InstantiationHelper instHelper) {
+
+  private static final int CASE_INTEGER = 0;
+  private static final int CASE_BOOLEAN = 1;
+  private static final int CASE_PAR = 2;
+  private static final int CASE_REF = 3;
+  private static final int CASE_PLUS = 4;
+  private static final int CASE_MINUS = 5;
+  private static final int CASE_MULT = 6;
+  private static final int CASE_DIV = 7;
+  private static final int CASE_MODULUS = 8;
+  private static final int CASE_AND = 9;
+  private static final int CASE_OR = 10;
+  private static final int CASE_DIFFERENT = 11;
+  private static final int CASE_LESS_OR_EQUAL = 12;
+  private static final int CASE_NEG = 13;
+  private static final int CASE_NOT = 14;
+
+  private static final ClassDispatcher FOLD = ClassDispatcher
+      .builder(RoboChartPackage.eINSTANCE)
+      .on(RoboChartPackage.Literals.INTEGER_EXP, CASE_INTEGER)
+      .on(RoboChartPackage.Literals.BOOLEAN_EXP, CASE_BOOLEAN)
+      .on(RoboChartPackage.Literals.PAR_EXP, CASE_PAR)
+      .on(RoboChartPackage.Literals.REF_EXP, CASE_REF)
+      .on(RoboChartPackage.Literals.PLUS, CASE_PLUS)
+      .on(RoboChartPackage.Literals.MINUS, CASE_MINUS)
+      .on(RoboChartPackage.Literals.MULT, CASE_MULT)
+      .on(RoboChartPackage.Literals.DIV, CASE_DIV)
+      .on(RoboChartPackage.Literals.MODULUS, CASE_MODULUS)
+      .on(RoboChartPackage.Literals.AND, CASE_AND)
+      .on(RoboChartPackage.Literals.OR, CASE_OR)
+      .on(RoboChartPackage.Literals.DIFFERENT, CASE_DIFFERENT)
+      .on(RoboChartPackage.Literals.LESS_OR_EQUAL, CASE_LESS_OR_EQUAL)
+      .on(RoboChartPackage.Literals.NEG, CASE_NEG)
+      .on(RoboChartPackage.Literals.NOT, CASE_NOT).build();
+
+  // Cached folds belong to the cache, and are only ever handed out as copies.
+  private static final ModelCache<Expression, Expression> CACHE = new ModelCache<>(x -> true);
+
+  /**
+   * Constructs an expression folder.
+   *
+   * @param exprFactory factory used to build folded expressions.
+   * @param instHelper  helper used to look up instantiated constants.
+   */
+  @Inject
+  public ExpressionFolder {
+    Objects.requireNonNull(exprFactory);
+    Objects.requireNonNull(instHelper);
+  }
+
+  /**
+   * Folds an expression.
+   *
+   * @param e the expression to fold.
+   * @return a fresh, uncontained expression equivalent to {@code e}: a literal if {@code e} folds
+   * completely, and a simplified residual expression otherwise.
+   */
+  public Expression fold(Expression e) {
+    return EcoreUtil.copy(folded(e));
+  }
+
+  /**
+   * Folds an expression to an integer, if possible.
+   *
+   * @param e the expression to fold.
+   * @return the value of {@code e}, if it folds to an integer literal.
+   */
+  public OptionalInt integer(Expression e) {
+    return folded(e) instanceof IntegerExp i ? OptionalInt.of(i.getValue()) : OptionalInt.empty();
+  }
+
+  /**
+   * Folds an expression to a boolean, if possible.
+   *
+   * @param e the expression to fold.
+   * @return the value of {@code e}, if it folds to a boolean literal.
+   */
+  public Optional<Boolean> bool(Expression e) {
+    return Optional.ofNullable(truth(folded(e)));
+  }
+
+  private Expression folded(Expression e) {
+    Objects.requireNonNull(e);
+    final var group = groupOf(e);
+    final var it = CACHE.get(e, (x, watch) -> {
+      final var assignments = group == null ? null : group.getAssignments();
+      if (group != null) {
+        watchScope(x, group, watch);
+      }
+      return fold(x, assignments, Collections.newSetFromMap(new IdentityHashMap<>()), watch);
+    });
+    if (group == null) {
+      // Moving the expression into a group can bring constants into scope, but we can't watch for
+      // that.
+      CACHE.invalidate(e);
+    }
+    return it;
+  }
+
+  private void watchScope(Expression e, SpecificationGroup group, Consumer<Notifier> watch) {
+    for (EObject x = e.eContainer(); x != null && x != group; x = x.eContainer()) {
+      watch.accept(x);
+    }
+    watch.accept(group);
+    for (var a : group.getAssignments()) {
+      watch.accept(a);
+      a.eAllContents().forEachRemaining(watch);
+    }
+  }
+
+  private Expression fold(Expression e, List<ConstAssignment> inst, Set<Variable> expanding,
+      Consumer<Notifier> watch) {
+    watch.accept(e);
+    return switch (FOLD.dispatch(e)) {
+      case CASE_INTEGER, CASE_BOOLEAN -> EcoreUtil.copy(e);
+      case CASE_PAR -> fold(((ParExp) e).getExp(), inst, expanding, watch);
+      case CASE_REF -> ref((RefExp) e, inst, expanding, watch);
+      case CASE_PLUS -> arith(e, inst, expanding, watch, Math::addExact);
+      case CASE_MINUS -> arith(e, inst, expanding, watch, Math::subtractExact);
+      case CASE_MULT -> arith(e, inst, expanding, watch, Math::multiplyExact);
+      case CASE_DIV -> arith(e, inst, expanding, watch, (x, y) -> x / y);
+      case CASE_MODULUS -> arith(e, inst, expanding, watch, (x, y) -> x % y);
+      case CASE_AND, CASE_OR -> logic(e, inst, expanding, watch);
+      case CASE_DIFFERENT, CASE_LESS_OR_EQUAL -> compare(e, inst, expanding, watch);
+      case CASE_NEG -> neg(fold(((Neg) e).getExp(), inst, expanding, watch));
+      case CASE_NOT -> not(fold(((Not) e).getExp(), inst, expanding, watch));
+      default -> EcoreUtil.copy(e);
+    };
+  }
+
+  private Expression ref(RefExp e, List<ConstAssignment> inst, Set<Variable> expanding,
+      Consumer<Notifier> watch) {
+    if (!(e.getRef() instanceof Variable k) || expanding.contains(k)) {
+      return EcoreUtil.copy(e);
+    }
+    final var value = instHelper.getConstant(inst, k);
+    if (value.isEmpty() || value.get() == null) {
+      return EcoreUtil.copy(e);
+    }
+
+    expanding.add(k);
+    final var it = fold(value.get(), inst, expanding, watch);
+    expanding.remove(k);
+    return it;
+  }
+
+  private Expression arith(Expression e, List<ConstAssignment> inst, Set<Variable> expanding,
+      Consumer<Notifier> watch, IntBinaryOperator op) {
+    final var b = (BinaryExpression) e;
+    final var lhs = fold(b.getLeft(), inst, expanding, watch);
+    final var rhs = fold(b.getRight(), inst, expanding, watch);
+    final var kind = FOLD.dispatch(e);
+
+    if (lhs instanceof IntegerExp l && rhs instanceof IntegerExp r) {
+      final var x = l.getValue();
+      final var y = r.getValue();
+      final var partial = kind == CASE_DIV || kind == CASE_MODULUS;
+      if (!partial || (0 <= x && 0 < y)) {
+        try {
+          return exprFactory.integer(op.applyAsInt(x, y));
+        } catch (ArithmeticException ex) {
+          // Overflow; leave it to the backend.
+        }
+      }
+    }
+
+    final var l = lhs instanceof IntegerExp i ? OptionalInt.of(i.getValue()) : OptionalInt.empty();
+    final var r = rhs instanceof IntegerExp i ? OptionalInt.of(i.getValue()) : OptionalInt.empty();
+    return switch (kind) {
+      case CASE_PLUS -> is(l, 0) ? rhs : is(r, 0) ? lhs : exprFactory.plus(lhs, rhs);
+      case CASE_MINUS -> is(r, 0) ? lhs : exprFactory.minus(lhs, rhs);
+      case CASE_MULT -> {
+        if (is(l, 0) || is(r, 0)) {
+          yield exprFactory.integer(0);
+        }
+        yield is(l, 1) ? rhs : is(r, 1) ? lhs : exprFactory.mult(lhs, rhs);
+      }
+      case CASE_DIV -> is(r, 1) ? lhs : exprFactory.div(lhs, rhs);
+      case CASE_MODULUS -> exprFactory.modulus(lhs, rhs);
+      // Safety valve in case we forget to add a case.
+      default -> throw new UnsupportedOperationException(
+          "Tried to fold an arithmetic expression %s that is not yet supported.  This is an internal error.".formatted(
+              e));
+    };
+  }
+
+  private Expression logic(Expression e, List<ConstAssignment> inst, Set<Variable> expanding,
+      Consumer<Notifier> watch) {
+    final var b = (BinaryExpression) e;
+    final var lhs = fold(b.getLeft(), inst, expanding, watch);
+    final var rhs = fold(b.getRight(), inst, expanding, watch);
+    final var l = truth(lhs);
+    final var r = truth(rhs);
+
+    // 'and' is annihilated by false and has true as identity; 'or' is the other way around.
+    final var isAnd = FOLD.dispatch(e) == CASE_AND;
+    if (Boolean.valueOf(!isAnd).equals(l) || Boolean.valueOf(!isAnd).equals(r)) {
+      return exprFactory.bool(!isAnd);
+    }
+    if (l != null) {
+      return rhs;
+    }
+    if (r != null) {
+      return lhs;
+    }
+    return isAnd ? exprFactory.and(lhs, rhs) : exprFactory.or(lhs, rhs);
+  }
+
+  private Expression compare(Expression e, List<ConstAssignment> inst, Set<Variable> expanding,
+      Consumer<Notifier> watch) {
+    final var b = (BinaryExpression) e;
+    final var lhs = fold(b.getLeft(), inst, expanding, watch);
+    final var rhs = fold(b.getRight(), inst, expanding, watch);
+    final var isDiff = FOLD.dispatch(e) == CASE_DIFFERENT;
+
+    if (lhs instanceof IntegerExp l && rhs instanceof IntegerExp r) {
+      final var x = l.getValue();
+      final var y = r.getValue();
+      return exprFactory.bool(isDiff ? x != y : x <= y);
+    }
+    final var l = truth(lhs);
+    final var r = truth(rhs);
+    if (isDiff && l != null && r != null) {
+      return exprFactory.bool(!l.equals(r));
+    }
+    return isDiff ? exprFactory.diff(lhs, rhs) : exprFactory.le(lhs, rhs);
+  }
+
+  private Expression neg(Expression x) {
+    if (x instanceof IntegerExp i && i.getValue() != Integer.MIN_VALUE) {
+      return exprFactory.integer(-i.getValue());
+    }
+    if (x instanceof Neg n) {
+      return EcoreUtil.copy(n.getExp());
+    }
+    return exprFactory.neg(x);
+  }
+
+  private Expression not(Expression x) {
+    final var t = truth(x);
+    if (t != null) {
+      return exprFactory.bool(!t);
+    }
+    final var it = exprFactory.rc().createNot();
+    it.setExp(x);
+    return it;
+  }
+
+  private static boolean is(OptionalInt x, int value) {
+    return x.isPresent() && x.getAsInt() == value;
+  }
+
+  private static Boolean truth(Expression e) {
+    if (e instanceof BooleanExp b && b.getValue() != null) {
+      return switch (b.getValue()) {
+        case "true" -> true;
+        case "false" -> false;
+        default -> null;
+      };
+    }
+    return null;
+  }
+
+  private static SpecificationGroup groupOf(EObject e) {
+    for (var x = e; x != null; x = x.eContainer()) {
+      if (x instanceof SpecificationGroup g) {
+        return g;
+      }
+    }
+    return null;
+  }
+}
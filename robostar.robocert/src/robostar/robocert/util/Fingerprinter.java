@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util;
+
+import java.util.List;
+import java.util.function.Consumer;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.Enumerator;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Computes and caches structural fingerprints of model objects, such as RoboChart events.
+ *
+ * <p>A fingerprint is a stable 64-bit hash of an object's class, attributes, and contents (with
+ * cross-references hashed by the class and attributes of their target).  Objects that are equal
+ * under {@link EcoreUtil#equals(EObject, EObject)} always have equal fingerprints, so comparing
+ * fingerprints first lets us skip most deep comparisons.  Fingerprints are cached on the objects
+ * they describe, and recomputed when anything that went into them changes.
+ *
+ * @author Matt Windsor
+ */
+public class Fingerprinter {
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private static final ModelCache<EObject, Long> CACHE = new ModelCache<>(
+      (e, watch) -> hashObject(FNV_OFFSET, e, watch));
+
+  /**
+   * Gets the fingerprint of an object.
+   *
+   * @param e the object to fingerprint (may be null).
+   * @return the fingerprint of {@code e}.
+   */
+  public long fingerprint(EObject e) {
+    return e == null ? FNV_OFFSET : CACHE.get(e);
+  }
+
+  /**
+   * Computes the fingerprint of an object afresh, reporting everything it depends on.
+   *
+   * <p>This is for other caches keyed on fingerprints, which must be discarded whenever one of
+   * their fingerprints changes.
+   *
+   * @param e     the object to fingerprint (may be null).
+   * @param watch accepts every object whose changes may change the fingerprint.
+   * @return the fingerprint of {@code e}, which is the same as {@link #fingerprint(EObject)}.
+   */
+  public long fingerprint(EObject e, Consumer<Notifier> watch) {
+    return e == null ? FNV_OFFSET : hashObject(FNV_OFFSET, e, watch);
+  }
+
+  /**
+   * Checks whether two objects are structurally equal.
+   *
+   * <p>This agrees with {@link EcoreUtil#equals(EObject, EObject)}, but only falls back to a deep
+   * comparison if the objects' fingerprints match.
+   *
+   * @param a the first object (may be null).
+   * @param b the second object (may be null).
+   * @return whether {@code a} and {@code b} are structurally equal.
+   */
+  public boolean equal(EObject a, EObject b) {
+    if (a == b) {
+      return true;
+    }
+    if (a == null || b == null || fingerprint(a) != fingerprint(b)) {
+      return false;
+    }
+    return EcoreUtil.equals(a, b);
+  }
+
+  //
+  // Hashing
+  //
+
+  private static long hashObject(long h, EObject e, Consumer<Notifier> watch) {
+    watch.accept(e);
+
+    final var cls = e.eClass();
+    h = hashString(h, cls.getName());
+
+    // EcoreUtil's equality ignores derived features, so we must too.
+    for (var f : cls.getEAllStructuralFeatures()) {
+      if (f.isDerived()) {
+        continue;
+      }
+      if (f instanceof EReference r) {
+        h = hashReference(h, e, r, watch);
+      } else if (f instanceof EAttribute a) {
+        h = hashValue(h, e.eGet(a));
+      }
+    }
+    return h;
+  }
+
+  private static long hashReference(long h, EObject e, EReference r, Consumer<Notifier> watch) {
+    final var value = e.eGet(r);
+    if (value instanceof List<?> xs) {
+      h = hashLong(h, xs.size());
+      for (var x : xs) {
+        h = hashTarget(h, (EObject) x, r, watch);
+      }
+      return h;
+    }
+    return hashTarget(h, (EObject) value, r, watch);
+  }
+
+  private static long hashTarget(long h, EObject x, EReference r, Consumer<Notifier> watch) {
+    if (x == null) {
+      return hashLong(h, 0);
+    }
+    if (r.isContainment()) {
+      return hashObject(h, x, watch);
+    }
+
+    // Cross-references can be cyclic, so we only look at the surface of their targets.
+    watch.accept(x);
+    h = hashString(h, x.eClass().getName());
+    for (var a : x.eClass().getEAllAttributes()) {
+      if (!a.isDerived()) {
+        h = hashValue(h, x.eGet(a));
+      }
+    }
+    return h;
+  }
+
+  private static long hashValue(long h, Object value) {
+    if (value instanceof List<?> xs) {
+      h = hashLong(h, xs.size());
+      for (var x : xs) {
+        h = hashValue(h, x);
+      }
+      return h;
+    }
+    if (value instanceof Enumerator en) {
+      return hashString(h, en.getLiteral());
+    }
+    return hashString(h, String.valueOf(value));
+  }
+
+  private static long hashString(long h, String s) {
+    h = hashLong(h, s.length());
+    for (var i = 0; i < s.length(); i++) {
+      h = (h ^ s.charAt(i)) * FNV_PRIME;
+    }
+    return h;
+  }
+
+  private static long hashLong(long h, long v) {
+    for (var i = 0; i < Long.BYTES; i++) {
+      h = (h ^ (v & 0xff)) * FNV_PRIME;
+      v >>>= 8;
+    }
+    return h;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util;
+
+import circus.robocalc.robochart.Expression;
+import circus.robocalc.robochart.Variable;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.eclipse.emf.common.notify.Notification;
+import robostar.robocert.ConstAssignment;
+import robostar.robocert.RoboCertPackage;
+import robostar.robocert.SpecificationGroup;
+
+/**
+ * A compiled instantiation: a map from each constant assigned in a list of
+ * {@link ConstAssignment}s to its value.
+ *
+ * <p>Looking up constants through the assignments themselves walks every assignment, and every
+ * constant of each, per lookup.  An environment instead does that walk once.  Constants are keyed
+ * by identity, as in {@link ConstAssignment#hasConstant(Variable)}, and, if a constant is assigned
+ * more than once, the first assignment wins.
+ *
+ * <p>Environments are snapshots; {@link #of(SpecificationGroup)} keeps them up to date with the
+ * group's assignments.
+ *
+ * @author Matt Windsor
+ */
+public final class InstantiationEnvironment {
+
+  private static final ModelCache<SpecificationGroup, InstantiationEnvironment> CACHE =
+      new ModelCache<>((group, watch) -> {
+        group.getAssignments().forEach(watch);
+        return compile(group.getAssignments());
+      }, InstantiationEnvironment::affectsAssignments);
+
+  private final Map<Variable, Expression> values;
+
+  private InstantiationEnvironment(Map<Variable, Expression> values) {
+    this.values = values;
+  }
+
+  /**
+   * Gets the environment for the assignments of a specification group, compiling it if needed.
+   *
+   * <p>The environment is cached on the group, and discarded when the group's assignment list, or
+   * any of the assignments in it, change.
+   *
+   * @param group the group whose assignments are wanted.
+   * @return the environment for the group's assignments.
+   */
+  public static InstantiationEnvironment of(SpecificationGroup group) {
+    return CACHE.get(group);
+  }
+
+  /**
+   * Compiles an environment from an instantiation, without caching it.
+   *
+   * @param inst the instantiation to compile (may be null).
+   * @return the environment for {@code inst}.
+   */
+  public static InstantiationEnvironment compile(List<ConstAssignment> inst) {
+    final var values = new IdentityHashMap<Variable, Expression>();
+    if (inst != null) {
+      for (var a : inst) {
+        for (var k : a.getConstants()) {
+          // Not putIfAbsent, which would let a later assignment replace a null value.
+          if (!values.containsKey(k)) {
+            values.put(k, a.getValue());
+          }
+        }
+      }
+    }
+    return new InstantiationEnvironment(values);
+  }
+
+  /**
+   * Tries to get the value of a constant.
+   *
+   * @param k the constant to find.
+   * @return the expression assigned to {@code k}, if there is one.
+   */
+  public Optional<Expression> get(Variable k) {
+    return Optional.ofNullable(values.get(k));
+  }
+
+  /**
+   * Gets whether a constant is assigned.
+   *
+   * @param k the constant to find.
+   * @return whether the environment assigns {@code k}.
+   */
+  public boolean has(Variable k) {
+    return values.containsKey(k);
+  }
+
+  private static boolean affectsAssignments(Notification msg) {
+    // Groups also notify on changes to their targets, actors, and so on, which we don't care about.
+    return msg.getNotifier() instanceof ConstAssignment
+        || msg.getFeature() == RoboCertPackage.Literals.SPECIFICATION_GROUP__ASSIGNMENTS;
+  }
+}
@@ -19,7 +19,10 @@ import java.util.stream.Stream;
 
 import circus.robocalc.robochart.Expression;
 import circus.robocalc.robochart.Variable;
+import org.eclipse.emf.ecore.EStructuralFeature;
 import robostar.robocert.ConstAssignment;
+import robostar.robocert.RoboCertPackage;
+import robostar.robocert.SpecificationGroup;
 
 /**
  * Helpers for dealing with an instantiation (list of ConstAssignments).
@@ -43,12 +46,25 @@ public class InstantiationHelper {
 	/**
 	 * Tries to get a constant from an instantiation.
 	 *
+	 * If the instantiation is the assignment list of a specification group, this
+	 * goes through {@link InstantiationEnvironment#of(SpecificationGroup)}.
+	 *
 	 * @param inst the instantiation to inspect (may be null).
 	 * @param k the constant to find.
 	 * @return the expression corresponding to k, if it is instantiated in inst.
 	 */
 	public Optional<Expression> getConstant(List<ConstAssignment> inst, Variable k) {
 		// TODO(@MattWindsor91): do we need to take Parameter here instead?
+
+		// The assignments of a group are usually looked up many times over, so we
+		// compile them into a cached environment.
+		final var assignments = RoboCertPackage.Literals.SPECIFICATION_GROUP__ASSIGNMENTS;
+		if (inst instanceof EStructuralFeature.Setting s
+				&& s.getEStructuralFeature() == assignments
+				&& s.getEObject() instanceof SpecificationGroup g) {
+			return InstantiationEnvironment.of(g).get(k);
+		}
+
 		return nullableInstToStream(inst)
 				.mapMulti(
 						(ConstAssignment x, Consumer<Expression> acc) -> {
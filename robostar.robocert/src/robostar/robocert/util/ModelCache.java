@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Memoises a value derived from an EMF object, discarding it when the model changes.
+ *
+ * <p>Each derived value lives in an adapter attached to the object from which it was derived (the
+ * <i>owner</i>).  The value is thrown away whenever the owner, or any other object the derivation
+ * asked to watch, sends a notification that is not a touch (and, optionally, that passes a
+ * filter).  This lets the (stateless) resolvers keep indexes over the model without tracking
+ * changes themselves.
+ *
+ * <p>Caches can be read from several threads at once, provided that nothing modifies the model
+ * while they do so.
+ *
+ * @param <K> type of owners.
+ * @param <V> type of derived values.
+ * @author Matt Windsor
+ */
+public final class ModelCache<K extends Notifier, V> {
+
+  private final Derivation<? super K, ? extends V> derivation;
+  private final Predicate<? super Notification> relevant;
+
+  /**
+   * Constructs a model cache.
+   *
+   * <p>Each cache is its own adapter type, so caches are usually held in static fields.
+   *
+   * @param derivation function used to compute values for owners.
+   */
+  public ModelCache(Derivation<? super K, ? extends V> derivation) {
+    this(derivation, x -> true);
+  }
+
+  /**
+   * Constructs a model cache that only discards values on some notifications.
+   *
+   * @param derivation function used to compute values for owners.
+   * @param relevant   tests whether a (non-touch) notification from the owner or a watched object
+   *                   should discard the value.
+   */
+  public ModelCache(Derivation<? super K, ? extends V> derivation,
+      Predicate<? super Notification> relevant) {
+    this.derivation = Objects.requireNonNull(derivation);
+    this.relevant = Objects.requireNonNull(relevant);
+  }
+
+  /**
+   * Constructs a model cache with no derivation of its own.
+   *
+   * <p>Values in such caches must be derived through {@link #get(Notifier, Derivation)}.
+   *
+   * @param relevant tests whether a (non-touch) notification from the owner or a watched object
+   *                 should discard the value.
+   */
+  public ModelCache(Predicate<? super Notification> relevant) {
+    this((owner, watch) -> {
+      throw new IllegalStateException("no derivation given for %s".formatted(owner));
+    }, relevant);
+  }
+
+  /**
+   * Gets the value derived from the given owner, computing it if there is no valid value cached.
+   *
+   * @param owner the object from which the value is derived.
+   * @return the derived value.
+   */
+  public V get(K owner) {
+    return entry(owner).get(derivation);
+  }
+
+  /**
+   * Gets the value derived from the given owner, computing it with the given derivation if there
+   * is no valid value cached.
+   *
+   * <p>This is useful when the derivation needs state that is not available when the cache is
+   * constructed, such as an injected resolver.  All derivations used with one cache must agree on
+   * the value for each owner.
+   *
+   * @param owner      the object from which the value is derived.
+   * @param derivation function used to compute the value if needed.
+   * @return the derived value.
+   */
+  public V get(K owner, Derivation<? super K, ? extends V> derivation) {
+    return entry(owner).get(derivation);
+  }
+
+  /**
+   * Discards any value cached for the given owner.
+   *
+   * @param owner the object whose derived value is to be discarded.
+   */
+  public void invalidate(K owner) {
+    synchronized (owner) {
+      final var existing = EcoreUtil.getExistingAdapter(owner, this);
+      if (existing instanceof ModelCache<?, ?>.Entry e) {
+        e.invalidate();
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Entry entry(K owner) {
+    synchronized (owner) {
+      final var existing = EcoreUtil.getExistingAdapter(owner, this);
+      if (existing != null) {
+        return (Entry) existing;
+      }
+      final var e = new Entry(owner);
+      owner.eAdapters().add(e);
+      return e;
+    }
+  }
+
+  /**
+   * A function that derives a value from an owner.
+   *
+   * @param <K> type of owners.
+   * @param <V> type of derived values.
+   */
+  @FunctionalInterface
+  public interface Derivation<K, V> {
+
+    /**
+     * Derives a value.
+     *
+     * @param owner the object from which the value is derived.
+     * @param watch accepts any objects, other than the owner, whose changes should invalidate the
+     *              value.
+     * @return the derived value.
+     */
+    V derive(K owner, Consumer<Notifier> watch);
+  }
+
+  private final class Entry extends AdapterImpl {
+
+    private final K owner;
+    private final Set<Notifier> watched = Collections.newSetFromMap(new IdentityHashMap<>());
+    private V value;
+    private boolean valid;
+
+    private Entry(K owner) {
+      this.owner = owner;
+    }
+
+    @Override
+    public boolean isAdapterForType(Object type) {
+      return type == ModelCache.this;
+    }
+
+    @Override
+    public void notifyChanged(Notification msg) {
+      // Touches include our own removal from watched objects, so this doesn't recurse.
+      if (!msg.isTouch() && relevant.test(msg)) {
+        invalidate();
+      }
+    }
+
+    private synchronized V get(Derivation<? super K, ? extends V> derivation) {
+      if (!valid) {
+        value = derivation.derive(owner, this::watch);
+        valid = true;
+      }
+      return value;
+    }
+
+    private synchronized void invalidate() {
+      valid = false;
+      value = null;
+
+      for (var n : watched) {
+        synchronized (n) {
+          n.eAdapters().remove(this);
+        }
+      }
+      watched.clear();
+    }
+
+    private void watch(Notifier n) {
+      if (n == null || n == owner || !watched.add(n)) {
+        return;
+      }
+      synchronized (n) {
+        n.eAdapters().add(this);
+      }
+    }
+  }
+}
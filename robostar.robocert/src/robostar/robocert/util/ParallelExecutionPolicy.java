@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Execution policy that streams in parallel on the common fork-join pool.
+ *
+ * <p>Only bind this if the collections involved are large enough to be worth splitting, and
+ * nothing else is modifying the model.
+ *
+ * @author Matt Windsor
+ */
+public class ParallelExecutionPolicy implements ExecutionPolicy {
+
+  @Override
+  public <T> Stream<T> stream(Collection<T> xs) {
+    return xs.parallelStream();
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Helpers for resolving proxies ahead of time.
+ *
+ * <p>EMF resolves proxies lazily, writing the resolved objects back into the model the first time
+ * a reference is followed.  Code that reads a model from several threads at once must resolve
+ * everything it can reach before forking, or those writes will race.
+ *
+ * @author Matt Windsor
+ */
+public final class ProxyHelper {
+
+  private ProxyHelper() {
+  }
+
+  /**
+   * Resolves every proxy reachable from an object.
+   *
+   * <p>If the object is in a resource set, this resolves the whole set, including any resources
+   * it loads on the way.  Otherwise, it resolves the tree containing the object, and the trees
+   * containing everything that tree refers to, transitively; this covers RoboChart models held in
+   * memory alongside a RoboCert model.
+   *
+   * @param e the object from which to resolve.
+   */
+  public static void resolveAll(EObject e) {
+    final var res = e.eResource();
+    if (res != null && res.getResourceSet() != null) {
+      EcoreUtil.resolveAll(res.getResourceSet());
+      return;
+    }
+
+    final Set<Notifier> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    final var todo = new ArrayDeque<EObject>();
+    todo.add(EcoreUtil.getRootContainer(e));
+    while (!todo.isEmpty()) {
+      final var root = todo.poll();
+      final var rootRes = root.eResource();
+      if (!seen.add(rootRes == null ? root : rootRes)) {
+        continue;
+      }
+      if (rootRes == null) {
+        EcoreUtil.resolveAll(root);
+      } else {
+        EcoreUtil.resolveAll(rootRes);
+      }
+
+      final List<EObject> roots = rootRes == null ? List.of(root) : rootRes.getContents();
+      for (var r : roots) {
+        StreamHelper.push(r, StreamHelper.allContents(r))
+            .flatMap(x -> x.eCrossReferences().stream())
+            .forEach(x -> todo.add(EcoreUtil.getRootContainer(x)));
+      }
+    }
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Execution policy that streams sequentially on the calling thread; this is the default.
+ *
+ * @author Matt Windsor
+ */
+public class SequentialExecutionPolicy implements ExecutionPolicy {
+
+  @Override
+  public <T> Stream<T> stream(Collection<T> xs) {
+    return xs.stream();
+  }
+}
@@ -13,10 +13,14 @@
 package robostar.robocert.util;
 
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
 
 /**
  * Miscellaneous stream helpers.
@@ -74,4 +78,16 @@ public class StreamHelper {
   public static <T, U extends T> EList<T> toEList(Stream<U> in) {
     return in.collect(Collectors.toCollection(BasicEList::new));
   }
+
+  /**
+   * Streams every object transitively contained by an object, in tree order.
+   *
+   * @param e the container whose contents we are streaming (not itself included).
+   * @return a stream over the contents of {@code e}, as given by {@code eAllContents()}.
+   */
+  public static Stream<EObject> allContents(EObject e) {
+    final var it = Spliterators.spliteratorUnknownSize(e.eAllContents(),
+        Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(it, false);
+  }
 }
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.ir;
+
+import circus.robocalc.robochart.Expression;
+import java.util.List;
+import org.eclipse.emf.ecore.EObject;
+import robostar.robocert.Actor;
+import robostar.robocert.DiscreteBound;
+import robostar.robocert.Interaction;
+import robostar.robocert.MessageSet;
+import robostar.robocert.MessageTopic;
+
+/**
+ * An interaction lowered into a flat, immutable instruction array.
+ *
+ * <p>Each fragment, occurrence, and operand of the interaction becomes one instruction, in
+ * pre-order.  Instructions live in parallel arrays indexed by <i>program counter</i> ({@code pc}),
+ * so walking an interaction is a loop over {@code 0 <= pc < size()} with no allocation or
+ * {@code instanceof} checks.  Every instruction has an {@link #opcode(int) opcode}, two integer
+ * arguments, the {@link #source(int) source} element it was compiled from, and possibly a
+ * pre-resolved {@link #operand(int) operand}:
+ *
+ * <table>
+ *   <caption>Instruction encoding</caption>
+ *   <tr><th>opcode</th><th>arg 0</th><th>arg 1</th><th>operand</th></tr>
+ *   <tr><td>{@link #MESSAGE}</td><td>from actor</td><td>to actor</td><td>topic</td></tr>
+ *   <tr><td>{@link #DEADLOCK}</td><td>actor</td><td>-</td><td>-</td></tr>
+ *   <tr><td>{@link #WAIT}</td><td>actor</td><td>-</td><td>units</td></tr>
+ *   <tr><td>{@link #OPT}</td><td>end</td><td>-</td><td>-</td></tr>
+ *   <tr><td>{@link #LOOP}</td><td>end</td><td>-</td><td>bound (if any)</td></tr>
+ *   <tr><td>{@link #DEADLINE}</td><td>end</td><td>actor</td><td>units</td></tr>
+ *   <tr><td>{@link #UNTIL}</td><td>end</td><td>-</td><td>intra-messages</td></tr>
+ *   <tr><td>{@link #ALT}, {@link #XALT}, {@link #PAR}</td><td>end</td><td>branch count</td>
+ *   <td>-</td></tr>
+ *   <tr><td>{@link #BRANCH}</td><td>next branch or end</td><td>guard kind</td>
+ *   <td>guard expression (if any)</td></tr>
+ *   <tr><td>{@link #END}</td><td>start</td><td>-</td><td>-</td></tr>
+ * </table>
+ *
+ * <p>Actors are indices into {@link #actors()}, the interaction's lifelines, or -1 if the actor
+ * is not one of them.  Every combined fragment starts with an instruction naming the {@code pc} of
+ * its {@link #END}, followed by one {@link #BRANCH} per operand (a block fragment has exactly one),
+ * each followed by the instructions of that operand.  Unused arguments are -1, and unused operands
+ * null.
+ *
+ * @author Matt Windsor
+ */
+public final class CompiledInteraction {
+
+  /**
+   * A message occurrence.
+   */
+  public static final int MESSAGE = 0;
+
+  /**
+   * A deadlock occurrence.
+   */
+  public static final int DEADLOCK = 1;
+
+  /**
+   * A wait occurrence.
+   */
+  public static final int WAIT = 2;
+
+  /**
+   * The start of an opt fragment.
+   */
+  public static final int OPT = 3;
+
+  /**
+   * The start of a loop fragment.
+   */
+  public static final int LOOP = 4;
+
+  /**
+   * The start of a deadline fragment.
+   */
+  public static final int DEADLINE = 5;
+
+  /**
+   * The start of an until fragment.
+   */
+  public static final int UNTIL = 6;
+
+  /**
+   * The start of an alt fragment.
+   */
+  public static final int ALT = 7;
+
+  /**
+   * The start of an xalt fragment.
+   */
+  public static final int XALT = 8;
+
+  /**
+   * The start of a par fragment.
+   */
+  public static final int PAR = 9;
+
+  /**
+   * The start of an interaction operand.
+   */
+  public static final int BRANCH = 10;
+
+  /**
+   * The end of a combined fragment.
+   */
+  public static final int END = 11;
+
+  /**
+   * Guard kind for operands with an empty guard.
+   */
+  public static final int GUARD_EMPTY = 0;
+
+  /**
+   * Guard kind for operands with an expression guard.
+   */
+  public static final int GUARD_EXPR = 1;
+
+  /**
+   * Guard kind for operands with an else guard.
+   */
+  public static final int GUARD_ELSE = 2;
+
+  private final Interaction interaction;
+  private final List<Actor> actors;
+  private final int size;
+  private final int[] opcodes;
+  private final int[] args0;
+  private final int[] args1;
+  private final EObject[] sources;
+  private final EObject[] operands;
+
+  CompiledInteraction(Interaction interaction, List<Actor> actors, int size, int[] opcodes,
+      int[] args0, int[] args1, EObject[] sources, EObject[] operands) {
+    this.interaction = interaction;
+    this.actors = List.copyOf(actors);
+    this.size = size;
+    this.opcodes = opcodes;
+    this.args0 = args0;
+    this.args1 = args1;
+    this.sources = sources;
+    this.operands = operands;
+  }
+
+  /**
+   * Gets the interaction from which this was compiled.
+   *
+   * @return the source interaction.
+   */
+  public Interaction interaction() {
+    return interaction;
+  }
+
+  /**
+   * Gets the actors to which actor arguments refer.
+   *
+   * @return the lifelines of the interaction, in order, at the time of compilation.
+   */
+  public List<Actor> actors() {
+    return actors;
+  }
+
+  /**
+   * Gets the number of instructions.
+   *
+   * @return the number of instructions.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the opcode of an instruction.
+   *
+   * @param pc the index of the instruction.
+   * @return the opcode, which is one of the opcode constants in this class.
+   */
+  public int opcode(int pc) {
+    return opcodes[checkPc(pc)];
+  }
+
+  /**
+   * Gets the first argument of an instruction.
+   *
+   * @param pc the index of the instruction.
+   * @return the first argument (see the class documentation for its meaning).
+   */
+  public int arg0(int pc) {
+    return args0[checkPc(pc)];
+  }
+
+  /**
+   * Gets the second argument of an instruction.
+   *
+   * @param pc the index of the instruction.
+   * @return the second argument (see the class documentation for its meaning).
+   */
+  public int arg1(int pc) {
+    return args1[checkPc(pc)];
+  }
+
+  /**
+   * Gets the model element from which an instruction was compiled.
+   *
+   * <p>This is the occurrence for occurrence instructions, the fragment for the starts and ends of
+   * combined fragments, and the operand for branches.
+   *
+   * @param pc the index of the instruction.
+   * @return the source element.
+   */
+  public EObject source(int pc) {
+    return sources[checkPc(pc)];
+  }
+
+  /**
+   * Gets the pre-resolved operand of an instruction.
+   *
+   * @param pc the index of the instruction.
+   * @return the operand (see the class documentation for its meaning), or null if there is none.
+   */
+  public EObject operand(int pc) {
+    return operands[checkPc(pc)];
+  }
+
+  /**
+   * Gets the topic of a {@link #MESSAGE} instruction.
+   *
+   * @param pc the index of the instruction.
+   * @return the topic of the message.
+   */
+  public MessageTopic topic(int pc) {
+    return (MessageTopic) operands[expect(pc, MESSAGE)];
+  }
+
+  /**
+   * Gets the expression of a {@link #WAIT} or {@link #DEADLINE} instruction, or the guard
+   * expression of a {@link #BRANCH}.
+   *
+   * @param pc the index of the instruction.
+   * @return the expression, or null if a branch has no expression guard.
+   */
+  public Expression expression(int pc) {
+    return (Expression) operands[checkPc(pc)];
+  }
+
+  /**
+   * Gets the bound of a {@link #LOOP} instruction.
+   *
+   * @param pc the index of the instruction.
+   * @return the bound, or null if the loop is unbounded.
+   */
+  public DiscreteBound bound(int pc) {
+    return (DiscreteBound) operands[expect(pc, LOOP)];
+  }
+
+  /**
+   * Gets the intra-messages of an {@link #UNTIL} instruction.
+   *
+   * @param pc the index of the instruction.
+   * @return the set of messages that may occur while waiting.
+   */
+  public MessageSet intraMessages(int pc) {
+    return (MessageSet) operands[expect(pc, UNTIL)];
+  }
+
+  private int checkPc(int pc) {
+    if (pc < 0 || size <= pc) {
+      throw new IndexOutOfBoundsException(pc);
+    }
+    return pc;
+  }
+
+  private int expect(int pc, int opcode) {
+    if (opcode(pc) != opcode) {
+      throw new IllegalArgumentException(
+          "instruction %d has opcode %d, not %d".formatted(pc, opcodes[pc], opcode));
+    }
+    return pc;
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.ir;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.emf.ecore.EObject;
+import robostar.robocert.Actor;
+import robostar.robocert.BlockFragment;
+import robostar.robocert.BranchFragment;
+import robostar.robocert.DeadlineFragment;
+import robostar.robocert.ExprGuard;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.LifelineOccurrence;
+import robostar.robocert.LoopFragment;
+import robostar.robocert.MessageOccurrence;
+import robostar.robocert.OccurrenceFragment;
+import robostar.robocert.RoboCertPackage;
+import robostar.robocert.UntilFragment;
+import robostar.robocert.WaitOccurrence;
+import robostar.robocert.util.ClassDispatcher;
+import robostar.robocert.util.ModelCache;
+import robostar.robocert.util.StreamHelper;
+
+/**
+ * Compiles interactions into {@link CompiledInteraction}s.
+ *
+ * <p>Compiled interactions are cached on their source interactions, and rebuilt whenever anything
+ * inside the interaction changes.
+ *
+ * @author Matt Windsor
+ */
+public class InteractionCompiler {
+
+  private static final ModelCache<Interaction, CompiledInteraction> CACHE = new ModelCache<>(
+      (it, watch) -> {
+        StreamHelper.allContents(it).forEach(watch);
+        return new Emitter(it).emit();
+      });
+
+  // Cases for fragments, occurrences and guards; these share one dispatcher as all are RoboCert.
+  private static final int CASE_OCCURRENCE = 0;
+  private static final int CASE_MESSAGE = 1;
+  private static final int CASE_DEADLOCK = 2;
+  private static final int CASE_WAIT = 3;
+  private static final int CASE_OPT = 4;
+  private static final int CASE_LOOP = 5;
+  private static final int CASE_DEADLINE = 6;
+  private static final int CASE_UNTIL = 7;
+  private static final int CASE_ALT = 8;
+  private static final int CASE_XALT = 9;
+  private static final int CASE_PAR = 10;
+  private static final int CASE_EMPTY_GUARD = 11;
+  private static final int CASE_EXPR_GUARD = 12;
+  private static final int CASE_ELSE_GUARD = 13;
+
+  private static final ClassDispatcher COMPILE = ClassDispatcher
+      .builder(RoboCertPackage.eINSTANCE)
+      .on(RoboCertPackage.Literals.OCCURRENCE_FRAGMENT, CASE_OCCURRENCE)
+      .on(RoboCertPackage.Literals.MESSAGE_OCCURRENCE, CASE_MESSAGE)
+      .on(RoboCertPackage.Literals.DEADLOCK_OCCURRENCE, CASE_DEADLOCK)
+      .on(RoboCertPackage.Literals.WAIT_OCCURRENCE, CASE_WAIT)
+      .on(RoboCertPackage.Literals.OPT_FRAGMENT, CASE_OPT)
+      .on(RoboCertPackage.Literals.LOOP_FRAGMENT, CASE_LOOP)
+      .on(RoboCertPackage.Literals.DEADLINE_FRAGMENT, CASE_DEADLINE)
+      .on(RoboCertPackage.Literals.UNTIL_FRAGMENT, CASE_UNTIL)
+      .on(RoboCertPackage.Literals.ALT_FRAGMENT, CASE_ALT)
+      .on(RoboCertPackage.Literals.XALT_FRAGMENT, CASE_XALT)
+      .on(RoboCertPackage.Literals.PAR_FRAGMENT, CASE_PAR)
+      .on(RoboCertPackage.Literals.EMPTY_GUARD, CASE_EMPTY_GUARD)
+      .on(RoboCertPackage.Literals.EXPR_GUARD, CASE_EXPR_GUARD)
+      .on(RoboCertPackage.Literals.ELSE_GUARD, CASE_ELSE_GUARD).build();
+
+  /**
+   * Compiles an interaction, or gets its cached compilation.
+   *
+   * @param it the interaction to compile.
+   * @return the compiled form of {@code it}.
+   */
+  public CompiledInteraction compile(Interaction it) {
+    return CACHE.get(it);
+  }
+
+  /**
+   * Accumulates the instructions of one interaction.
+   */
+  private static final class Emitter {
+
+    private final Interaction interaction;
+    private final List<Actor> actors;
+    private final Map<Actor, Integer> actorIndices = new IdentityHashMap<>();
+
+    private int size;
+    private int[] opcodes = new int[16];
+    private int[] args0 = new int[16];
+    private int[] args1 = new int[16];
+    private EObject[] sources = new EObject[16];
+    private EObject[] operands = new EObject[16];
+
+    private Emitter(Interaction interaction) {
+      this.interaction = interaction;
+      actors = interaction.getActors();
+      for (var i = 0; i < actors.size(); i++) {
+        actorIndices.putIfAbsent(actors.get(i), i);
+      }
+    }
+
+    private CompiledInteraction emit() {
+      fragments(interaction.getFragments());
+      return new CompiledInteraction(interaction, actors, size, Arrays.copyOf(opcodes, size),
+          Arrays.copyOf(args0, size), Arrays.copyOf(args1, size), Arrays.copyOf(sources, size),
+          Arrays.copyOf(operands, size));
+    }
+
+    private void fragments(List<InteractionFragment> fs) {
+      for (var f : fs) {
+        fragment(f);
+      }
+    }
+
+    private void fragment(InteractionFragment f) {
+      switch (COMPILE.dispatch(f)) {
+        case CASE_OCCURRENCE -> occurrence((OccurrenceFragment) f);
+        case CASE_OPT -> block(CompiledInteraction.OPT, (BlockFragment) f, -1, null);
+        case CASE_LOOP -> {
+          final var l = (LoopFragment) f;
+          block(CompiledInteraction.LOOP, l, -1, l.getBound());
+        }
+        case CASE_DEADLINE -> {
+          final var d = (DeadlineFragment) f;
+          block(CompiledInteraction.DEADLINE, d, actor(d.getActor()), d.getUnits());
+        }
+        case CASE_UNTIL -> {
+          final var u = (UntilFragment) f;
+          block(CompiledInteraction.UNTIL, u, -1, u.getIntraMessages());
+        }
+        case CASE_ALT -> branches(CompiledInteraction.ALT, (BranchFragment) f);
+        case CASE_XALT -> branches(CompiledInteraction.XALT, (BranchFragment) f);
+        case CASE_PAR -> branches(CompiledInteraction.PAR, (BranchFragment) f);
+        // Safety valve in case we forget to add a case.
+        default -> throw new UnsupportedOperationException(
+            "Tried to compile a fragment %s that is not yet supported.  This is an internal error.".formatted(
+                f));
+      }
+    }
+
+    private void occurrence(OccurrenceFragment f) {
+      final var occ = f.getOccurrence();
+      switch (COMPILE.dispatch(occ)) {
+        case CASE_MESSAGE -> {
+          final var m = ((MessageOccurrence) occ).getMessage();
+          add(CompiledInteraction.MESSAGE, actor(m.getFrom()), actor(m.getTo()), occ,
+              m.getTopic());
+        }
+        case CASE_DEADLOCK -> add(CompiledInteraction.DEADLOCK,
+            actor(((LifelineOccurrence) occ).getActor()), -1, occ, null);
+        case CASE_WAIT -> {
+          final var w = (WaitOccurrence) occ;
+          add(CompiledInteraction.WAIT, actor(w.getActor()), -1, occ, w.getUnits());
+        }
+        // Safety valve in case we forget to add a case.
+        default -> throw new UnsupportedOperationException(
+            "Tried to compile an occurrence %s that is not yet supported.  This is an internal error.".formatted(
+                occ));
+      }
+    }
+
+    private void block(int opcode, BlockFragment f, int arg1, EObject operand) {
+      final var start = add(opcode, -1, arg1, f, operand);
+      operand(f.getBody());
+      end(start, f);
+    }
+
+    private void branches(int opcode, BranchFragment f) {
+      final var start = add(opcode, -1, f.getBranches().size(), f, null);
+      for (var b : f.getBranches()) {
+        operand(b);
+      }
+      end(start, f);
+    }
+
+    private void operand(InteractionOperand op) {
+      final var guard = op.getGuard();
+      final var kind = switch (COMPILE.dispatch(guard)) {
+        case CASE_EXPR_GUARD -> CompiledInteraction.GUARD_EXPR;
+        case CASE_ELSE_GUARD -> CompiledInteraction.GUARD_ELSE;
+        // Missing guards behave as empty ones.
+        default -> CompiledInteraction.GUARD_EMPTY;
+      };
+      final var expr = guard instanceof ExprGuard g ? g.getExpr() : null;
+
+      final var start = add(CompiledInteraction.BRANCH, -1, kind, op, expr);
+      fragments(op.getFragments());
+      // Branches jump to the next branch, or to the end of the fragment.
+      args0[start] = size;
+    }
+
+    private void end(int start, EObject fragment) {
+      args0[start] = add(CompiledInteraction.END, start, -1, fragment, null);
+    }
+
+    private int actor(Actor a) {
+      return actorIndices.getOrDefault(a, -1);
+    }
+
+    private int add(int opcode, int arg0, int arg1, EObject source, EObject operand) {
+      if (size == opcodes.length) {
+        final var cap = size * 2;
+        opcodes = Arrays.copyOf(opcodes, cap);
+        args0 = Arrays.copyOf(args0, cap);
+        args1 = Arrays.copyOf(args1, cap);
+        sources = Arrays.copyOf(sources, cap);
+        operands = Arrays.copyOf(operands, cap);
+      }
+      opcodes[size] = opcode;
+      args0[size] = arg0;
+      args1[size] = arg1;
+      sources[size] = source;
+      operands[size] = operand;
+      return size++;
+    }
+  }
+}
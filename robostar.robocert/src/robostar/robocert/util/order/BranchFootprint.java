@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.order;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+import robostar.robocert.Actor;
+
+/**
+ * The actors and topics that a branch of a par fragment can touch.
+ *
+ * <p>Topics are represented by the fingerprints of the RoboChart events and operations they
+ * name, so two topics over the same event always share a key.  Distinct events can, rarely, share
+ * a key too; this only makes branches look more dependent than they are.
+ *
+ * @param actors    the actors on which the branch can place occurrences, compared by identity.
+ * @param topicKeys the fingerprints of the events and operations the branch can communicate on.
+ * @param opaque    whether the branch mentions messages we could not enumerate (for instance, a
+ *                  message set outside any specification group), and so may touch anything.
+ * @author Matt Windsor
+ */
+public record BranchFootprint(Set<Actor> actors, Set<Long> topicKeys, boolean opaque) {
+
+  /**
+   * Constructs a branch footprint.
+   *
+   * @param actors    the actors on which the branch can place occurrences (nulls are ignored).
+   * @param topicKeys the fingerprints of the events and operations the branch can communicate on.
+   * @param opaque    whether the branch may touch anything.
+   */
+  public BranchFootprint {
+    actors = Collections.unmodifiableSet(identitySet(actors));
+    topicKeys = Set.copyOf(topicKeys);
+  }
+
+  /**
+   * Checks whether this footprint is independent of another.
+   *
+   * <p>Footprints are independent if neither is opaque and they share neither actors nor topics.
+   * Steps from independent footprints can be reordered without changing anything observable on
+   * any lifeline or channel.
+   *
+   * @param other the other footprint.
+   * @return whether the two footprints are independent.
+   */
+  public boolean independentOf(BranchFootprint other) {
+    Objects.requireNonNull(other);
+    if (opaque || other.opaque) {
+      return false;
+    }
+    return Collections.disjoint(actors, other.actors) && Collections.disjoint(topicKeys,
+        other.topicKeys);
+  }
+
+  private static Set<Actor> identitySet(Set<Actor> actors) {
+    final var it = Collections.<Actor>newSetFromMap(new IdentityHashMap<>());
+    for (var a : actors) {
+      if (a != null) {
+        it.add(a);
+      }
+    }
+    return it;
+  }
+}
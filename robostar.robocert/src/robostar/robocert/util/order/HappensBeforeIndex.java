@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.order;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.emf.common.notify.Notification;
+import robostar.robocert.BlockFragment;
+import robostar.robocert.BranchFragment;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.Occurrence;
+import robostar.robocert.OccurrenceFragment;
+import robostar.robocert.RoboCertPackage;
+import robostar.robocert.util.ClassDispatcher;
+import robostar.robocert.util.ModelCache;
+import robostar.robocert.util.StreamHelper;
+
+/**
+ * The happens-before order between the occurrences of an interaction.
+ *
+ * <p>Occurrences are numbered densely, in the order in which they appear in the interaction.  An
+ * occurrence <i>precedes</i> another if it comes earlier in the fragment list of their innermost
+ * common operand (or of the interaction itself): every run that reaches both does so in that
+ * order.  Otherwise, their innermost common ancestor is a branch fragment, and they are either
+ * <i>concurrent</i> (in different branches of a par) or <i>exclusive</i> (in different branches of
+ * an alt or xalt, and so never both in one run).  Loops are treated as their bodies, so all of
+ * these relations only hold within one iteration of every enclosing loop: across iterations, an
+ * occurrence can follow one it precedes, and exclusive occurrences can both happen.
+ *
+ * <p>Both relations are stored as bitset matrices, so every query takes constant time.  The
+ * happens-before matrix is transitively closed by construction, as the occurrences of each
+ * fragment are numbered contiguously.
+ *
+ * <p>Indexes are cached on the interaction.  They are only rebuilt when the fragment structure of
+ * the interaction changes, not when (for instance) messages, guards, or bounds do.
+ *
+ * @author Matt Windsor
+ */
+public final class HappensBeforeIndex {
+
+  // Only changes to these features can change the order of occurrences.
+  private static final Set<Object> STRUCTURE = Set.of(
+      RoboCertPackage.Literals.INTERACTION__FRAGMENTS,
+      RoboCertPackage.Literals.INTERACTION_OPERAND__FRAGMENTS,
+      RoboCertPackage.Literals.BLOCK_FRAGMENT__BODY,
+      RoboCertPackage.Literals.BRANCH_FRAGMENT__BRANCHES,
+      RoboCertPackage.Literals.OCCURRENCE_FRAGMENT__OCCURRENCE);
+
+  private static final ModelCache<Interaction, HappensBeforeIndex> CACHE = new ModelCache<>(
+      (it, watch) -> {
+        StreamHelper.allContents(it).forEach(watch);
+        return new HappensBeforeIndex(it);
+      }, HappensBeforeIndex::isStructural);
+
+  private static final int CASE_OCCURRENCE = 0;
+  private static final int CASE_BLOCK = 1;
+  private static final int CASE_CHOICE = 2;
+  private static final int CASE_PAR = 3;
+
+  private static final ClassDispatcher INDEX = ClassDispatcher.builder(RoboCertPackage.eINSTANCE)
+      .on(RoboCertPackage.Literals.OCCURRENCE_FRAGMENT, CASE_OCCURRENCE)
+      .on(RoboCertPackage.Literals.BLOCK_FRAGMENT, CASE_BLOCK)
+      .on(RoboCertPackage.Literals.ALT_FRAGMENT, CASE_CHOICE)
+      .on(RoboCertPackage.Literals.XALT_FRAGMENT, CASE_CHOICE)
+      .on(RoboCertPackage.Literals.PAR_FRAGMENT, CASE_PAR).build();
+
+  private final Interaction interaction;
+  private final List<Occurrence> occurrences = new ArrayList<>();
+  private final Map<Occurrence, Integer> indices = new IdentityHashMap<>();
+  private final List<BitSet> after = new ArrayList<>();
+  private final List<BitSet> concurrent = new ArrayList<>();
+
+  private HappensBeforeIndex(Interaction interaction) {
+    this.interaction = interaction;
+    sequence(interaction.getFragments(), 0);
+  }
+
+  /**
+   * Gets the happens-before index of an interaction.
+   *
+   * @param it the interaction.
+   * @return the (cached) index of {@code it}.
+   */
+  public static HappensBeforeIndex of(Interaction it) {
+    return CACHE.get(it);
+  }
+
+  private static boolean isStructural(Notification msg) {
+    return STRUCTURE.contains(msg.getFeature());
+  }
+
+  /**
+   * Gets the indexed interaction.
+   *
+   * @return the interaction.
+   */
+  public Interaction interaction() {
+    return interaction;
+  }
+
+  /**
+   * Gets the number of occurrences in the interaction.
+   *
+   * @return the number of occurrences.
+   */
+  public int size() {
+    return occurrences.size();
+  }
+
+  /**
+   * Gets the occurrence with the given number.
+   *
+   * @param i the number of the occurrence.
+   * @return the occurrence.
+   */
+  public Occurrence occurrence(int i) {
+    return occurrences.get(i);
+  }
+
+  /**
+   * Gets the number of an occurrence.
+   *
+   * @param o the occurrence.
+   * @return the number of {@code o}, or -1 if it is not in the interaction.
+   */
+  public int indexOf(Occurrence o) {
+    return indices.getOrDefault(o, -1);
+  }
+
+  /**
+   * Gets whether one occurrence must happen before another, within one iteration of every
+   * enclosing loop.
+   *
+   * @param a the number of the first occurrence.
+   * @param b the number of the second occurrence.
+   * @return whether {@code a} happens before {@code b} in every run that contains both within one
+   * iteration of every enclosing loop.
+   */
+  public boolean precedes(int a, int b) {
+    return after.get(a).get(b);
+  }
+
+  /**
+   * Gets whether one occurrence must happen before another, within one iteration of every
+   * enclosing loop.
+   *
+   * @param a the first occurrence.
+   * @param b the second occurrence.
+   * @return whether {@code a} happens before {@code b} in every run that contains both within one
+   * iteration of every enclosing loop.
+   * @throws IllegalArgumentException if either occurrence is not in the interaction.
+   */
+  public boolean precedes(Occurrence a, Occurrence b) {
+    return precedes(require(a), require(b));
+  }
+
+  /**
+   * Gets whether two occurrences can happen in either order.
+   *
+   * @param a the number of the first occurrence.
+   * @param b the number of the second occurrence.
+   * @return whether {@code a} and {@code b} are in different branches of a par.
+   */
+  public boolean concurrent(int a, int b) {
+    return concurrent.get(a).get(b);
+  }
+
+  /**
+   * Gets whether two occurrences can happen in either order.
+   *
+   * @param a the first occurrence.
+   * @param b the second occurrence.
+   * @return whether {@code a} and {@code b} are in different branches of a par.
+   * @throws IllegalArgumentException if either occurrence is not in the interaction.
+   */
+  public boolean concurrent(Occurrence a, Occurrence b) {
+    return concurrent(require(a), require(b));
+  }
+
+  /**
+   * Gets whether two occurrences can never happen within one iteration of every enclosing loop.
+   *
+   * <p>Exclusive occurrences inside a loop can still both happen in one run, in different
+   * iterations.
+   *
+   * @param a the number of the first occurrence.
+   * @param b the number of the second occurrence.
+   * @return whether {@code a} and {@code b} are in different branches of an alt or xalt.
+   */
+  public boolean exclusive(int a, int b) {
+    return a != b && !precedes(a, b) && !precedes(b, a) && !concurrent(a, b);
+  }
+
+  /**
+   * Gets all occurrences that must happen after an occurrence, within one iteration of every
+   * enclosing loop.
+   *
+   * @param a the number of the occurrence.
+   * @return a fresh set of the numbers of the occurrences that {@code a} precedes.
+   */
+  public BitSet successors(int a) {
+    return (BitSet) after.get(a).clone();
+  }
+
+  /**
+   * Gets all occurrences that can happen in either order with an occurrence.
+   *
+   * @param a the number of the occurrence.
+   * @return a fresh set of the numbers of the occurrences concurrent with {@code a}.
+   */
+  public BitSet concurrentWith(int a) {
+    return (BitSet) concurrent.get(a).clone();
+  }
+
+  private int require(Occurrence o) {
+    final var i = indexOf(o);
+    if (i < 0) {
+      throw new IllegalArgumentException(
+          "occurrence %s is not in %s".formatted(o, interaction.getName()));
+    }
+    return i;
+  }
+
+  private int sequence(List<InteractionFragment> fs, int start) {
+    final var ends = new int[fs.size()];
+    var pos = start;
+    for (var k = 0; k < ends.length; k++) {
+      pos = fragment(fs.get(k), pos);
+      ends[k] = pos;
+    }
+
+    // Everything in each fragment precedes everything in the fragments after it.
+    var from = start;
+    for (var end : ends) {
+      for (var i = from; i < end; i++) {
+        after.get(i).set(end, pos);
+      }
+      from = end;
+    }
+    return pos;
+  }
+
+  private int operand(InteractionOperand op, int start) {
+    return op == null ? start : sequence(op.getFragments(), start);
+  }
+
+  private int fragment(InteractionFragment f, int start) {
+    return switch (INDEX.dispatch(f)) {
+      case CASE_OCCURRENCE -> occurrence(((OccurrenceFragment) f).getOccurrence(), start);
+      case CASE_BLOCK -> operand(((BlockFragment) f).getBody(), start);
+      case CASE_CHOICE -> branches((BranchFragment) f, start, false);
+      case CASE_PAR -> branches((BranchFragment) f, start, true);
+      // Safety valve in case we forget to add a case.
+      default -> throw new UnsupportedOperationException(
+          "Tried to index a fragment %s that is not yet supported.  This is an internal error.".formatted(
+              f));
+    };
+  }
+
+  private int occurrence(Occurrence o, int start) {
+    occurrences.add(o);
+    indices.putIfAbsent(o, start);
+    after.add(new BitSet());
+    concurrent.add(new BitSet());
+    return start + 1;
+  }
+
+  private int branches(BranchFragment f, int start, boolean par) {
+    final var branches = f.getBranches();
+    final var ends = new int[branches.size()];
+    var pos = start;
+    for (var k = 0; k < ends.length; k++) {
+      pos = operand(branches.get(k), pos);
+      ends[k] = pos;
+    }
+    if (!par) {
+      return pos;
+    }
+
+    // Everything in each branch is concurrent with everything in the other branches.
+    var from = start;
+    for (var end : ends) {
+      for (var i = from; i < end; i++) {
+        final var row = concurrent.get(i);
+        row.set(start, from);
+        row.set(end, pos);
+      }
+      from = end;
+    }
+    return pos;
+  }
+}
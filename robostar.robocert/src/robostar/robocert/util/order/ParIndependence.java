@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.order;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.ParFragment;
+
+/**
+ * The independence relation between the branches of a par fragment.
+ *
+ * <p>Two branches are independent if their {@link BranchFootprint}s are.  Steps of independent
+ * branches commute, so an engine exploring the interleavings of a par only needs to interleave
+ * steps within each {@link #components() component} of mutually dependent branches; it can take
+ * the components one after another, in any fixed order, as the single representative of all of
+ * their interleavings.  Likewise, a generator can emit each component as its own interleaving,
+ * knowing that nothing outside it can observe the order of its steps relative to other
+ * components.
+ *
+ * @author Matt Windsor
+ */
+public final class ParIndependence {
+
+  private final ParFragment par;
+  private final List<BranchFootprint> footprints;
+  private final BitSet[] dependent;
+  private final List<List<InteractionOperand>> components;
+
+  /**
+   * Constructs the independence relation of a par fragment.
+   *
+   * @param par        the par fragment.
+   * @param footprints the footprint of each branch of {@code par}, in order.
+   */
+  ParIndependence(ParFragment par, List<BranchFootprint> footprints) {
+    this.par = Objects.requireNonNull(par);
+    this.footprints = List.copyOf(footprints);
+
+    final var n = this.footprints.size();
+    dependent = new BitSet[n];
+    for (var i = 0; i < n; i++) {
+      dependent[i] = new BitSet(n);
+    }
+    for (var i = 0; i < n; i++) {
+      for (var j = i + 1; j < n; j++) {
+        if (!this.footprints.get(i).independentOf(this.footprints.get(j))) {
+          dependent[i].set(j);
+          dependent[j].set(i);
+        }
+      }
+    }
+    components = partition(n);
+  }
+
+  private List<List<InteractionOperand>> partition(int n) {
+    final var branches = par.getBranches();
+    final var seen = new BitSet(n);
+    final var it = new ArrayList<List<InteractionOperand>>();
+
+    for (var root = seen.nextClearBit(0); root < n; root = seen.nextClearBit(root + 1)) {
+      final var members = new BitSet(n);
+      final var stack = new ArrayList<Integer>();
+      stack.add(root);
+      seen.set(root);
+      while (!stack.isEmpty()) {
+        final int i = stack.remove(stack.size() - 1);
+        members.set(i);
+        final var next = (BitSet) dependent[i].clone();
+        next.andNot(seen);
+        seen.or(next);
+        next.stream().forEach(stack::add);
+      }
+      it.add(members.stream().mapToObj(branches::get).toList());
+    }
+    return List.copyOf(it);
+  }
+
+  /**
+   * Gets the par fragment this relation describes.
+   *
+   * @return the par fragment.
+   */
+  public ParFragment par() {
+    return par;
+  }
+
+  /**
+   * Gets the footprint of each branch.
+   *
+   * @return the footprints, in branch order.
+   */
+  public List<BranchFootprint> footprints() {
+    return footprints;
+  }
+
+  /**
+   * Checks whether two branches are independent.
+   *
+   * @param i the index of the first branch.
+   * @param j the index of the second branch, which must differ from {@code i}.
+   * @return whether the two branches are independent.
+   * @throws IllegalArgumentException if {@code i == j}.
+   */
+  public boolean independent(int i, int j) {
+    if (i == j) {
+      throw new IllegalArgumentException("branch %d compared with itself".formatted(i));
+    }
+    return !dependent[Objects.checkIndex(i, dependent.length)].get(
+        Objects.checkIndex(j, dependent.length));
+  }
+
+  /**
+   * Checks whether every pair of branches is independent.
+   *
+   * @return whether the par's branches are pairwise independent.
+   */
+  public boolean isFullyIndependent() {
+    return components.size() == footprints.size();
+  }
+
+  /**
+   * Partitions the branches into components, such that branches in different components are
+   * independent, and each component is connected by dependencies.
+   *
+   * @return the components, ordered by their first branch, each listing its branches in order.
+   */
+  public List<List<InteractionOperand>> components() {
+    return components;
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.order;
+
+import com.google.inject.Inject;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import robostar.robocert.Actor;
+import robostar.robocert.DeadlineFragment;
+import robostar.robocert.EventTopic;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.LifelineOccurrence;
+import robostar.robocert.Message;
+import robostar.robocert.MessageTopic;
+import robostar.robocert.OperationTopic;
+import robostar.robocert.ParFragment;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.UntilFragment;
+import robostar.robocert.util.ModelCache;
+import robostar.robocert.util.StreamHelper;
+import robostar.robocert.util.sets.MessageSetEvaluator;
+
+/**
+ * Works out which branches of par fragments, and which pairs of messages, are independent.
+ *
+ * <p>The footprint of a branch covers every message and lifeline occurrence inside it, every
+ * deadline actor, and every member of the intra-message sets of until fragments (evaluated over
+ * the group's message universe).  A branch is opaque if it has an intra-message set that includes
+ * messages the group never mentions, such as the universe set, as we can't tell which actors or
+ * channels those use.  Results are cached on the par fragment and recomputed when
+ * anything inside it, or any event or operation it names, changes; if the par has an until
+ * fragment, any change to its specification group also invalidates the result.  Results with
+ * opaque branches are never cached.
+ *
+ * @param setEval the evaluator used to expand intra-message sets.
+ * @author Matt Windsor
+ */
+public record ParIndependenceAnalyser(MessageSetEvaluator setEval) {
+
+  private static final ModelCache<ParFragment, ParIndependence> CACHE = new ModelCache<>(
+      x -> true);
+
+  /**
+   * Constructs a par independence analyser.
+   *
+   * @param setEval the evaluator used to expand intra-message sets.
+   */
+  @Inject
+  public ParIndependenceAnalyser {
+    Objects.requireNonNull(setEval);
+  }
+
+  /**
+   * Analyses the independence of the branches of a par fragment.
+   *
+   * @param par the par fragment to analyse.
+   * @return the (cached) independence relation over the branches of {@code par}.
+   * @throws IllegalArgumentException if an intra-message set refers to itself through named sets.
+   */
+  public ParIndependence analyse(ParFragment par) {
+    final var it = CACHE.get(par, (p, watch) -> {
+      StreamHelper.allContents(p).forEach(watch);
+      return new ParIndependence(p, p.getBranches().stream().map(b -> footprint(b, watch))
+          .toList());
+    });
+    // Moving the par into a group can make opaque branches evaluable, but we can't watch for that.
+    if (it.footprints().stream().anyMatch(BranchFootprint::opaque)) {
+      CACHE.invalidate(par);
+    }
+    return it;
+  }
+
+  /**
+   * Checks whether two messages are independent.
+   *
+   * <p>Messages are independent if they share no actors and communicate on no common event or
+   * operation.  Adjacent steps on independent messages can be swapped without changing what any
+   * lifeline or channel observes.
+   *
+   * @param a the first message.
+   * @param b the second message.
+   * @return whether {@code a} and {@code b} are independent.
+   */
+  public boolean independent(Message a, Message b) {
+    final var x = footprint(a, n -> {
+    });
+    final var y = footprint(b, n -> {
+    });
+    return x.independentOf(y);
+  }
+
+  private BranchFootprint footprint(Message m, Consumer<Notifier> watch) {
+    final var actors = Collections.<Actor>newSetFromMap(new IdentityHashMap<>());
+    final var keys = new HashSet<Long>();
+    addMessage(m, actors, keys, watch);
+    return new BranchFootprint(actors, keys, false);
+  }
+
+  private BranchFootprint footprint(InteractionOperand branch, Consumer<Notifier> watch) {
+    final var actors = Collections.<Actor>newSetFromMap(new IdentityHashMap<>());
+    final var keys = new HashSet<Long>();
+    var opaque = false;
+
+    for (var it = branch.eAllContents(); it.hasNext(); ) {
+      final var x = it.next();
+      if (x instanceof Message m) {
+        addMessage(m, actors, keys, watch);
+      } else if (x instanceof LifelineOccurrence o) {
+        actors.add(o.getActor());
+      } else if (x instanceof DeadlineFragment d) {
+        actors.add(d.getActor());
+      } else if (x instanceof UntilFragment u && u.getIntraMessages() != null) {
+        opaque |= !addSet(u, actors, keys, watch);
+      }
+    }
+    return new BranchFootprint(actors, keys, opaque);
+  }
+
+  private boolean addSet(UntilFragment u, Collection<Actor> actors, Set<Long> keys,
+      Consumer<Notifier> watch) {
+    final var group = groupOf(u);
+    if (group == null) {
+      return false;
+    }
+    // Named sets, and the universe, can depend on anything in the group.
+    watch.accept(group);
+    StreamHelper.allContents(group).forEach(watch);
+
+    final var universe = setEval.universe(group);
+    final var set = setEval.evaluate(u.getIntraMessages());
+    if (set.rest()) {
+      // The set can contain messages on any channel, including ones nothing else mentions.
+      return false;
+    }
+    // Every message in a cell has the actors and topic of the cell's shape, whatever its arguments.
+    set.cells().stream().forEach(i -> addMessage(universe.shape(i), actors, keys, watch));
+    return true;
+  }
+
+  private void addMessage(Message m, Collection<Actor> actors, Set<Long> keys,
+      Consumer<Notifier> watch) {
+    actors.add(m.getFrom());
+    actors.add(m.getTo());
+    addTopic(m.getTopic(), keys, watch);
+  }
+
+  private void addTopic(MessageTopic t, Set<Long> keys, Consumer<Notifier> watch) {
+    if (t instanceof EventTopic e) {
+      addKey(e.getEfrom(), keys, watch);
+      addKey(e.getEto(), keys, watch);
+    } else if (t instanceof OperationTopic o) {
+      addKey(o.getOperation(), keys, watch);
+    }
+  }
+
+  private void addKey(EObject e, Set<Long> keys, Consumer<Notifier> watch) {
+    if (e != null) {
+      keys.add(setEval.fingerprinter().fingerprint(e, watch));
+    }
+  }
+
+  private SpecificationGroup groupOf(EObject e) {
+    for (var x = e; x != null; x = x.eContainer()) {
+      if (x instanceof SpecificationGroup g) {
+        return g;
+      }
+    }
+    return null;
+  }
+}
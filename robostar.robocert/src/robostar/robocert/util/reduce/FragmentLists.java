@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.reduce;
+
+import java.util.List;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+
+/**
+ * Helpers for splicing fragments in and out of the lists that contain them.
+ *
+ * @author Matt Windsor
+ */
+final class FragmentLists {
+
+  private FragmentLists() {
+  }
+
+  /**
+   * Replaces a fragment, in its containing list, with a sequence of other fragments.
+   *
+   * @param f    the fragment to replace.
+   * @param with the fragments to put in its place (which may be moved from elsewhere, including
+   *             from inside {@code f}).
+   */
+  static void replace(InteractionFragment f, List<? extends InteractionFragment> with) {
+    final var siblings = siblings(f);
+    final var index = siblings.indexOf(f);
+    // Copy the replacements out first, as adding them elsewhere removes them from 'with'.
+    final var replacements = List.<InteractionFragment>copyOf(with);
+    siblings.remove(index);
+    siblings.addAll(index, replacements);
+  }
+
+  /**
+   * Gets the list containing a fragment.
+   *
+   * @param f the fragment in question.
+   * @return the fragment list of {@code f}'s interaction or operand.
+   */
+  static List<InteractionFragment> siblings(InteractionFragment f) {
+    final var parent = f.eContainer();
+    if (parent instanceof Interaction i) {
+      return i.getFragments();
+    }
+    if (parent instanceof InteractionOperand o) {
+      return o.getFragments();
+    }
+    // Safety valve in case we forget to add a case.
+    throw new UnsupportedOperationException(
+        "Tried to splice a fragment %s whose parent is not yet supported.  This is an internal error.".formatted(
+            f));
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.reduce;
+
+import com.google.inject.Inject;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import robostar.robocert.AltFragment;
+import robostar.robocert.BranchFragment;
+import robostar.robocert.ElseGuard;
+import robostar.robocert.EmptyGuard;
+import robostar.robocert.ExprGuard;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.OptFragment;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.XAltFragment;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.StreamHelper;
+
+/**
+ * Removes statically dead operands from alt, xalt, and opt fragments.
+ *
+ * <p>Guards are folded under the constants of the interaction's group.  An {@link ElseGuard} is
+ * true if every other guard in its fragment folds to false, and false if any other guard folds to
+ * true (or is empty).  Pruning then:
+ * <ul>
+ *   <li>drops alt and xalt operands whose guards are false;</li>
+ *   <li>replaces an alt or xalt with the contents of its only remaining operand, if that
+ *   operand's guard is true;</li>
+ *   <li>drops opt fragments whose guards are false;</li>
+ *   <li>replaces guards that are true with empty guards.</li>
+ * </ul>
+ * An alt or xalt whose operands are all dead is left as it is, as it stands for a deadlock rather
+ * than a skip.
+ *
+ * @param folder      folder used to evaluate guard expressions.
+ * @param certFactory factory used to build replacement guards.
+ * @author Matt Windsor
+ */
+public record GuardPruner(ExpressionFolder folder, RoboCertFactory certFactory) {
+
+  /**
+   * Constructs a guard pruner.
+   *
+   * @param folder      folder used to evaluate guard expressions.
+   * @param certFactory factory used to build replacement guards.
+   */
+  @Inject
+  public GuardPruner {
+    Objects.requireNonNull(folder);
+    Objects.requireNonNull(certFactory);
+  }
+
+  /**
+   * Statically evaluates the guard of an operand.
+   *
+   * @param op the operand whose guard is to be evaluated.
+   * @return the truth of {@code op}'s guard, if it can be determined without running the
+   * interaction.
+   */
+  public Optional<Boolean> enabled(InteractionOperand op) {
+    final var guard = op.getGuard();
+    if (guard == null || guard instanceof EmptyGuard) {
+      return Optional.of(true);
+    }
+    if (guard instanceof ExprGuard g) {
+      return g.getExpr() == null ? Optional.empty() : folder.bool(g.getExpr());
+    }
+    if (guard instanceof ElseGuard) {
+      return elseEnabled(op);
+    }
+    return Optional.empty();
+  }
+
+  private Optional<Boolean> elseEnabled(InteractionOperand op) {
+    // Operands of block fragments have no siblings, so all of the other guards are false.
+    if (!(op.eContainer() instanceof BranchFragment b)) {
+      return Optional.of(true);
+    }
+
+    var allFalse = true;
+    for (var other : b.getBranches()) {
+      if (other == op || other.getGuard() instanceof ElseGuard) {
+        continue;
+      }
+      final var x = enabled(other);
+      if (x.isEmpty()) {
+        allFalse = false;
+      } else if (x.get()) {
+        return Optional.of(false);
+      }
+    }
+    return allFalse ? Optional.of(true) : Optional.empty();
+  }
+
+  /**
+   * Prunes dead operands from an interaction.
+   *
+   * <p>This does not change {@code it}; the pruned interaction is a copy, outside any group, that
+   * shares the actors, events, and other cross-referenced objects of the original.
+   *
+   * @param it the interaction to prune.
+   * @return a pruned copy of {@code it}.
+   */
+  public Interaction prune(Interaction it) {
+    final var copier = new EcoreUtil.Copier();
+    final var copy = (Interaction) copier.copy(it);
+    copier.copyReferences();
+
+    // Decide everything on the original, where the guards can see the group's constants, then
+    // rewrite the copy innermost first.
+    final var fragments = StreamHelper.filter(StreamHelper.allContents(it),
+        InteractionFragment.class).toList();
+    for (var i = fragments.size() - 1; 0 <= i; i--) {
+      final var f = fragments.get(i);
+      final var target = (InteractionFragment) copier.get(f);
+      if (f instanceof AltFragment || f instanceof XAltFragment) {
+        pruneBranches((BranchFragment) f, (BranchFragment) target, copier);
+      } else if (f instanceof OptFragment o) {
+        pruneOpt(o, (OptFragment) target);
+      }
+    }
+    return copy;
+  }
+
+  private void pruneBranches(BranchFragment f, BranchFragment target, EcoreUtil.Copier copier) {
+    final var live = f.getBranches().stream().filter(op -> enabled(op).orElse(true)).toList();
+    if (live.isEmpty()) {
+      return;
+    }
+
+    for (var op : f.getBranches()) {
+      final var opCopy = (InteractionOperand) copier.get(op);
+      if (!live.contains(op)) {
+        target.getBranches().remove(opCopy);
+      } else if (enabled(op).orElse(false)) {
+        opCopy.setGuard(certFactory.createEmptyGuard());
+      }
+    }
+
+    final var only = live.get(0);
+    if (live.size() == 1 && enabled(only).orElse(false)) {
+      FragmentLists.replace(target, ((InteractionOperand) copier.get(only)).getFragments());
+    }
+  }
+
+  private void pruneOpt(OptFragment f, OptFragment target) {
+    final var body = f.getBody();
+    if (body == null) {
+      return;
+    }
+    final var x = enabled(body);
+    if (x.isEmpty()) {
+      return;
+    }
+    if (x.get()) {
+      target.getBody().setGuard(certFactory.createEmptyGuard());
+    } else {
+      FragmentLists.replace(target, List.of());
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.reduce;
+
+import com.google.inject.Inject;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import robostar.robocert.AltFragment;
+import robostar.robocert.BranchFragment;
+import robostar.robocert.ElseGuard;
+import robostar.robocert.EmptyGuard;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.MessageOccurrence;
+import robostar.robocert.NamedMessageSet;
+import robostar.robocert.RefMessageSet;
+import robostar.robocert.RoboCertFactory;
+import robostar.robocert.SemanticModel;
+import robostar.robocert.SequenceProperty;
+import robostar.robocert.Target;
+import robostar.robocert.Temperature;
+import robostar.robocert.XAltFragment;
+import robostar.robocert.util.StreamHelper;
+
+/**
+ * Reduces interactions checked under {@link SemanticModel#TRACES}.
+ *
+ * <p>The traces model ignores liveness, so temperature and the distinction between alt and xalt
+ * do not affect the result of a check.  The reduction therefore works on a {@link GuardPruner
+ * pruned} copy of the interaction, in a scratch group, in which it:
+ * <ul>
+ *   <li>makes every message occurrence cold;</li>
+ *   <li>turns every xalt into an alt;</li>
+ *   <li>flattens alts whose operand is unguarded and holds nothing but another alt, provided
+ *   that neither alt has an else guard (whose meaning would change).</li>
+ * </ul>
+ * Deadlocks, waits, and deadlines all constrain traces (tocks are visible), so they stay.
+ *
+ * <p>The scratch group holds copies of the original group's target, actors, constants, and those
+ * message sets that the interaction refers to, so the copy can be folded, compiled, and generated
+ * like the original without copying the group's other interactions.
+ *
+ * @param pruner      pruner used to copy interactions and remove their dead operands.
+ * @param certFactory factory used to build replacement fragments.
+ * @author Matt Windsor
+ */
+public record TracesReducer(GuardPruner pruner, RoboCertFactory certFactory) {
+
+  /**
+   * Constructs a traces reducer.
+   *
+   * @param pruner      pruner used to copy interactions and remove their dead operands.
+   * @param certFactory factory used to build replacement fragments.
+   */
+  @Inject
+  public TracesReducer {
+    Objects.requireNonNull(pruner);
+    Objects.requireNonNull(certFactory);
+  }
+
+  /**
+   * Gets the interaction to generate for a sequence property.
+   *
+   * @param p the property in question.
+   * @return a reduced copy of the property's interaction if it is checked under the traces model,
+   * and the interaction itself otherwise.
+   */
+  public Interaction reduce(SequenceProperty p) {
+    final var it = p.getInteraction();
+    return p.getModel() == SemanticModel.TRACES ? reduce(it) : it;
+  }
+
+  /**
+   * Reduces an interaction for checking under the traces model.
+   *
+   * <p>This does not change {@code it} or its group.
+   *
+   * @param it the interaction to reduce.
+   * @return a reduced copy of {@code it}, inside a scratch group holding copies of what it
+   * needs from its own group (if any).
+   */
+  public Interaction reduce(Interaction it) {
+    final var original = scratch(it);
+    final var copy = pruner.prune(original);
+    EcoreUtil.replace(original, copy);
+
+    StreamHelper.filter(StreamHelper.allContents(copy), MessageOccurrence.class)
+        .forEach(o -> o.setTemperature(Temperature.COLD));
+
+    // Innermost first, so that flattening sees already-merged alts.
+    final var branches = StreamHelper.filter(StreamHelper.allContents(copy), BranchFragment.class)
+        .toList();
+    for (var i = branches.size() - 1; 0 <= i; i--) {
+      final var b = branches.get(i);
+      if (b instanceof XAltFragment x) {
+        final var alt = certFactory.createAltFragment();
+        alt.setName(x.getName());
+        alt.getBranches().addAll(List.copyOf(x.getBranches()));
+        FragmentLists.replace(x, List.of(alt));
+        flatten(alt);
+      } else if (b instanceof AltFragment a) {
+        flatten(a);
+      }
+    }
+    return copy;
+  }
+
+  private Interaction scratch(Interaction it) {
+    final var scratch = certFactory.createSpecificationGroup();
+    final var copier = new EcoreUtil.Copier();
+
+    // Only what the interaction can see is copied, so that reducing one of many interactions in a
+    // group doesn't pay for copying all of them.
+    final var group = it.getGroup();
+    if (group != null) {
+      scratch.setName(group.getName());
+      if (group.getTarget() != null) {
+        scratch.setTarget((Target) copier.copy(group.getTarget()));
+      }
+      scratch.getActors().addAll(copier.copyAll(group.getActors()));
+      scratch.getAssignments().addAll(copier.copyAll(group.getAssignments()));
+      scratch.getMessageSets().addAll(copier.copyAll(referencedSets(it)));
+      scratch.getImportedEnums().addAll(group.getImportedEnums());
+    }
+
+    final var copy = (Interaction) copier.copy(it);
+    scratch.getInteractions().add(copy);
+    copier.copyReferences();
+    return copy;
+  }
+
+  private Set<NamedMessageSet> referencedSets(Interaction it) {
+    // Named sets can refer to other named sets, so this has to follow references transitively.
+    final var sets = new LinkedHashSet<NamedMessageSet>();
+    final var pending = new ArrayDeque<EObject>(List.of(it));
+    while (!pending.isEmpty()) {
+      StreamHelper.filter(StreamHelper.allContents(pending.pop()), RefMessageSet.class)
+          .map(RefMessageSet::getSet).filter(Objects::nonNull).filter(sets::add)
+          .forEach(pending::add);
+    }
+    return sets;
+  }
+
+  private void flatten(AltFragment alt) {
+    if (hasElse(alt)) {
+      return;
+    }
+
+    final var flat = new ArrayList<InteractionOperand>();
+    var changed = false;
+    for (var op : alt.getBranches()) {
+      final var inner = nestedAlt(op);
+      if (inner == null) {
+        flat.add(op);
+      } else {
+        flat.addAll(inner.getBranches());
+        changed = true;
+      }
+    }
+    if (changed) {
+      final var moved = List.copyOf(flat);
+      alt.getBranches().clear();
+      alt.getBranches().addAll(moved);
+    }
+  }
+
+  private AltFragment nestedAlt(InteractionOperand op) {
+    if (!(op.getGuard() instanceof EmptyGuard) || op.getFragments().size() != 1) {
+      return null;
+    }
+    // Inner xalts have already become alts by now.
+    if (op.getFragments().get(0) instanceof AltFragment inner && !hasElse(inner)) {
+      return inner;
+    }
+    return null;
+  }
+
+  private boolean hasElse(BranchFragment b) {
+    return b.getBranches().stream().anyMatch(op -> op.getGuard() instanceof ElseGuard);
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.resolve;
+
+import circus.robocalc.robochart.ControllerDef;
+import circus.robocalc.robochart.RCModule;
+import circus.robocalc.robochart.RCPackage;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Finds the nearest enclosing package, module, and controller of model objects without walking
+ * their containers each time.
+ *
+ * <p>The first lookup on an object installs an index on its resource (or, if it has none, its
+ * root container).  The index is built in one traversal of the containment tree, and follows
+ * objects as they are added to, moved around, or removed from the tree.
+ *
+ * @author Matt Windsor
+ */
+public final class AncestorIndex {
+
+  private AncestorIndex() {
+  }
+
+  /**
+   * Gets the nearest package strictly containing an object.
+   *
+   * @param e object to inspect.
+   * @return package of {@code e}, if any.
+   */
+  public static Optional<RCPackage> packageOf(EObject e) {
+    return Optional.ofNullable(ancestors(e).pkg());
+  }
+
+  /**
+   * Gets the nearest module strictly containing an object.
+   *
+   * @param e object to inspect.
+   * @return module of {@code e}, if any.
+   */
+  public static Optional<RCModule> moduleOf(EObject e) {
+    return Optional.ofNullable(ancestors(e).module());
+  }
+
+  /**
+   * Gets the nearest controller definition strictly containing an object.
+   *
+   * @param e object to inspect.
+   * @return controller of {@code e}, if any.
+   */
+  public static Optional<ControllerDef> controllerOf(EObject e) {
+    return Optional.ofNullable(ancestors(e).ctrl());
+  }
+
+  private static Ancestors ancestors(EObject e) {
+    return adapter(e).ancestors.get(e);
+  }
+
+  private static Adapter adapter(EObject e) {
+    for (var a = existingAdapter(e); a != null; a = existingAdapter(e)) {
+      if (!a.isStale()) {
+        return a;
+      }
+      a.detach();
+    }
+
+    // Not indexed yet, so index the whole tree that contains e.
+    final Notifier host = e.eResource() == null ? EcoreUtil.getRootContainer(e) : e.eResource();
+    synchronized (host) {
+      if (EcoreUtil.getExistingAdapter(host, Adapter.class) instanceof Adapter a) {
+        return a;
+      }
+      final var a = new Adapter(host);
+      host.eAdapters().add(a);
+      return a;
+    }
+  }
+
+  private static Adapter existingAdapter(EObject e) {
+    synchronized (e) {
+      return (Adapter) EcoreUtil.getExistingAdapter(e, Adapter.class);
+    }
+  }
+
+  /**
+   * The nearest enclosing objects of interest to an object.
+   *
+   * @param pkg    the nearest package, or null.
+   * @param module the nearest module, or null.
+   * @param ctrl   the nearest controller definition, or null.
+   */
+  private record Ancestors(RCPackage pkg, RCModule module, ControllerDef ctrl) {
+
+    private static final Ancestors NONE = new Ancestors(null, null, null);
+
+    /**
+     * Gets the ancestors of a child of the given parent, whose ancestors are this.
+     *
+     * @param parent the parent.
+     * @return the ancestors of any child of {@code parent}.
+     */
+    private Ancestors below(EObject parent) {
+      if (parent instanceof RCPackage p) {
+        return new Ancestors(p, module, ctrl);
+      }
+      if (parent instanceof RCModule m) {
+        return new Ancestors(pkg, m, ctrl);
+      }
+      if (parent instanceof ControllerDef c) {
+        return new Ancestors(pkg, module, c);
+      }
+      return this;
+    }
+  }
+
+  /**
+   * Content adapter that keeps the index.
+   *
+   * <p>{@link EContentAdapter} attaches to parents before their children, and detaches from
+   * subtrees as they leave the tree, so we can maintain the index as it does so.
+   */
+  private static final class Adapter extends EContentAdapter {
+
+    private final Notifier host;
+    private final Map<EObject, Ancestors> ancestors = new ConcurrentHashMap<>();
+
+    private Adapter(Notifier host) {
+      this.host = host;
+    }
+
+    /**
+     * Checks whether this index was built for a root object that has since joined another tree.
+     *
+     * <p>That tree's index will have attached to the old root's objects, but ours will still be
+     * in the way.
+     *
+     * @return whether the index is out of date.
+     */
+    private boolean isStale() {
+      return host instanceof EObject o && (o.eContainer() != null || o.eResource() != null);
+    }
+
+    private void detach() {
+      synchronized (host) {
+        host.eAdapters().remove(this);
+      }
+    }
+
+    @Override
+    public boolean isAdapterForType(Object type) {
+      return type == Adapter.class;
+    }
+
+    @Override
+    protected void setTarget(EObject target) {
+      final var parent = target.eContainer();
+      final var above = parent == null ? null : ancestors.get(parent);
+      ancestors.put(target, above == null ? Ancestors.NONE : above.below(parent));
+      super.setTarget(target);
+    }
+
+    @Override
+    protected void unsetTarget(EObject target) {
+      super.unsetTarget(target);
+      ancestors.remove(target);
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.resolve;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import robostar.robocert.util.ModelCache;
+
+/**
+ * Decorates a name resolver with a cache of the names it produces.
+ *
+ * <p>Names are cached on the elements they name, as immutable lists of interned segments.  A name
+ * is recomputed when the {@code name} attribute of the element or any of its containers changes,
+ * when the element or any of its containers is removed from its container, or when the outermost
+ * container is itself added to a container.
+ *
+ * <p>The cache is shared by every cached resolver, and keyed on the underlying resolver as well as
+ * the element, so constructing many cached resolvers (as Guice does, one per injection) does not
+ * attach more than one cache to each element.  Underlying resolvers that are equal share names.
+ *
+ * @param <T> type of elements to name.
+ * @author Matt Windsor
+ */
+public final class CachedNameResolver<T extends EObject> implements NameResolver<T> {
+
+  private static final ModelCache<EObject, Names> CACHE = new ModelCache<>((e, watch) -> {
+    // Names are built from those of the element's containers.
+    EObject root = e;
+    for (var c = e.eContainer(); c != null; c = c.eContainer()) {
+      watch.accept(c);
+      root = c;
+    }
+    return new Names(root, new ConcurrentHashMap<>());
+  }, CachedNameResolver::affectsName);
+
+  private final NameResolver<? super T> inner;
+
+  /**
+   * Constructs a cached name resolver.
+   *
+   * @param inner the resolver whose names we are caching.
+   */
+  public CachedNameResolver(NameResolver<? super T> inner) {
+    this.inner = Objects.requireNonNull(inner);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The array is cached along with the name, and shared between calls, so callers must not
+   * modify it; {@link #path(EObject)} gives an immutable view of the same name.
+   */
+  @Override
+  public String[] name(T element) {
+    return lookup(element).segments();
+  }
+
+  /**
+   * Gets the name of the element as an immutable list of interned segments.
+   *
+   * @param element the element itself.
+   * @return the name of the element (null if the underlying resolver returns null).
+   */
+  public List<String> path(T element) {
+    return lookup(element).path();
+  }
+
+  /**
+   * Gets the name of the element with its segments joined by the given separator.
+   *
+   * @param element   the element itself.
+   * @param separator the separator to place between segments (for instance, {@code "::"}).
+   * @return the joined name of the element (null if the underlying resolver returns null).
+   */
+  public String joined(T element, String separator) {
+    final var name = lookup(element);
+    if (name.path() == null) {
+      return null;
+    }
+    return name.joined().computeIfAbsent(separator, s -> String.join(s, name.path()).intern());
+  }
+
+  private Name lookup(T element) {
+    var names = CACHE.get(element);
+    if (names.root().eContainer() != null) {
+      // The root has since been added to a container, which we weren't watching.
+      CACHE.invalidate(element);
+      names = CACHE.get(element);
+    }
+    return names.byResolver().computeIfAbsent(inner, r -> Name.of(inner.name(element)));
+  }
+
+  private static boolean affectsName(Notification msg) {
+    final var feature = msg.getFeature();
+    if (feature instanceof EAttribute a) {
+      return "name".equals(a.getName());
+    }
+    if (feature instanceof EReference r && r.isContainment()) {
+      // Additions can't move anything we're watching, but anything else might.
+      return msg.getEventType() != Notification.ADD && msg.getEventType() != Notification.ADD_MANY;
+    }
+    return false;
+  }
+
+  /**
+   * The cached names of one element.
+   *
+   * @param root       the outermost container of the element when it was named.
+   * @param byResolver the element's name under each underlying resolver asked so far.
+   */
+  private record Names(EObject root, Map<NameResolver<?>, Name> byResolver) {
+
+  }
+
+  /**
+   * A cached name.
+   *
+   * @param segments the name segments as the underlying resolver gave them, or null.
+   * @param path     the name segments, interned, or null.
+   * @param joined   the name joined by each separator requested so far.
+   */
+  private record Name(String[] segments, List<String> path, Map<String, String> joined) {
+
+    private static Name of(String[] segments) {
+      if (segments == null) {
+        return new Name(null, null, Map.of());
+      }
+      // Unnamed elements can give null segments, which we keep as they are.
+      final var path = Arrays.stream(segments).map(s -> s == null ? null : s.intern()).toList();
+      return new Name(path.toArray(String[]::new), path, new ConcurrentHashMap<>());
+    }
+  }
+}
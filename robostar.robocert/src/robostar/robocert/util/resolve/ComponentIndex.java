@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.resolve;
+
+import circus.robocalc.robochart.ConnectionNode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.ModelCache;
+
+/**
+ * An index of the components of a module or controller, keyed on the structure of their
+ * definitions.
+ *
+ * <p>Indexes are cached on the module or controller.  They are rebuilt after it, or anything that
+ * went into the fingerprint of one of the component definitions, changes.
+ *
+ * @author Matt Windsor
+ */
+final class ComponentIndex {
+
+  private static final Fingerprinter FINGERPRINTER = new Fingerprinter();
+
+  private static final ModelCache<EObject, ComponentIndex> CACHE = new ModelCache<>(x -> true);
+
+  private final DefinitionResolver defRes;
+  private final Map<Long, List<Component>> byFingerprint = new HashMap<>();
+
+  private ComponentIndex(Stream<ConnectionNode> components, DefinitionResolver defRes,
+      Consumer<Notifier> watch) {
+    this.defRes = defRes;
+
+    components.forEach(node -> {
+      final var def = defRes.normalise(node);
+      final var fp = FINGERPRINTER.fingerprint(def, watch);
+      watch.accept(node);
+      byFingerprint.computeIfAbsent(fp, k -> new ArrayList<>(1)).add(new Component(node, def));
+    });
+  }
+
+  /**
+   * Gets the component index for a module or controller.
+   *
+   * @param container  the module or controller.
+   * @param components supplies the components of {@code container}, in order, if the index needs
+   *                   building.
+   * @param defRes     the definition resolver used to normalise components.
+   * @return the index.
+   */
+  static ComponentIndex of(EObject container, Supplier<Stream<ConnectionNode>> components,
+      DefinitionResolver defRes) {
+    return CACHE.get(container, (c, watch) -> new ComponentIndex(components.get(), defRes, watch));
+  }
+
+  /**
+   * Finds the first component whose definition is structurally equal to that of the given node.
+   *
+   * @param node the node to look up.
+   * @return the first matching component, if any.
+   */
+  Optional<ConnectionNode> find(ConnectionNode node) {
+    final var def = defRes.normalise(node);
+    final var bucket = byFingerprint.get(FINGERPRINTER.fingerprint(def));
+    if (bucket == null) {
+      return Optional.empty();
+    }
+    // Fingerprints can collide, so we still need to check equality.
+    return bucket.stream().filter(c -> FINGERPRINTER.equal(def, c.def())).findFirst()
+        .map(Component::node);
+  }
+
+  /**
+   * A component and its definition.
+   *
+   * @param node the component as it appears in the container.
+   * @param def  the normalised definition of the component.
+   */
+  private record Component(ConnectionNode node, ConnectionNode def) {
+
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.resolve;
+
+import circus.robocalc.robochart.Connection;
+import circus.robocalc.robochart.ConnectionNode;
+import circus.robocalc.robochart.ControllerDef;
+import circus.robocalc.robochart.RCModule;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.eclipse.emf.common.notify.Notifier;
+import robostar.robocert.util.ModelCache;
+
+/**
+ * An index of the connections of a RoboChart module or controller, keyed on their endpoints.
+ *
+ * <p>Indexes are built once per module or controller and cached on it; they are rebuilt after the
+ * module or controller, or any of its connections, changes.
+ *
+ * @author Matt Windsor
+ */
+public final class ConnectionIndex {
+
+  private static final ModelCache<RCModule, ConnectionIndex> MODULES = new ModelCache<>(
+      (m, watch) -> new ConnectionIndex(m.getConnections(), watch));
+
+  private static final ModelCache<ControllerDef, ConnectionIndex> CONTROLLERS = new ModelCache<>(
+      (c, watch) -> new ConnectionIndex(c.getConnections(), watch));
+
+  /**
+   * An index over no connections.
+   */
+  static final ConnectionIndex EMPTY = new ConnectionIndex(List.of(), x -> {
+  });
+
+  private final List<Connection> connections;
+  private final Map<Endpoints, BitSet> byEndpoints;
+
+  private ConnectionIndex(List<Connection> connections, Consumer<Notifier> watch) {
+    this.connections = List.copyOf(connections);
+    this.byEndpoints = new HashMap<>(connections.size() * 2);
+
+    for (var i = 0; i < this.connections.size(); i++) {
+      final var c = this.connections.get(i);
+      watch.accept(c);
+
+      add(new Endpoints(c.getFrom(), c.getTo()), i);
+      if (c.isBidirec()) {
+        add(new Endpoints(c.getTo(), c.getFrom()), i);
+      }
+    }
+  }
+
+  /**
+   * Gets the connection index for a module.
+   *
+   * @param m the module to index.
+   * @return the index of the module's connections.
+   */
+  public static ConnectionIndex of(RCModule m) {
+    return MODULES.get(m);
+  }
+
+  /**
+   * Gets the connection index for a controller.
+   *
+   * @param c the controller to index.
+   * @return the index of the controller's connections.
+   */
+  public static ConnectionIndex of(ControllerDef c) {
+    return CONTROLLERS.get(c);
+  }
+
+  /**
+   * Gets every connection in the index.
+   *
+   * @return the connections, in declaration order.
+   */
+  List<Connection> connections() {
+    return connections;
+  }
+
+  /**
+   * Gets every connection that can carry a message from any of the given nodes to any of the
+   * others.
+   *
+   * <p>This includes bidirectional connections declared in the opposite direction.  Connections
+   * come out in declaration order, and at most once each.
+   *
+   * @param from the nodes that can appear at the source end.
+   * @param to   the nodes that can appear at the destination end.
+   * @return the stream of connections between the two sets of nodes.
+   */
+  public Stream<Connection> between(Set<ConnectionNode> from, Set<ConnectionNode> to) {
+    final var hits = new BitSet(connections.size());
+    for (var f : from) {
+      for (var t : to) {
+        final var set = byEndpoints.get(new Endpoints(f, t));
+        if (set != null) {
+          hits.or(set);
+        }
+      }
+    }
+    return hits.stream().mapToObj(connections::get);
+  }
+
+  private void add(Endpoints key, int index) {
+    byEndpoints.computeIfAbsent(key, k -> new BitSet()).set(index);
+  }
+
+  /**
+   * Connection endpoints; RoboChart nodes use identity equality, so this is an identity key.
+   *
+   * @param from the source node.
+   * @param to   the destination node.
+   */
+  private record Endpoints(ConnectionNode from, ConnectionNode to) {
+
+  }
+}
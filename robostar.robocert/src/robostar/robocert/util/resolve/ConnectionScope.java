@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.resolve;
+
+import circus.robocalc.robochart.Connection;
+import circus.robocalc.robochart.ConnectionNode;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * The connections that a message on a given target can use: those of a module or controller that
+ * pass a filter.
+ *
+ * @param index  the index of the module or controller's connections.
+ * @param filter the filter selecting which of those connections are in scope.
+ * @author Matt Windsor
+ */
+record ConnectionScope(ConnectionIndex index, Predicate<Connection> filter) {
+
+  /**
+   * A scope containing no connections.
+   */
+  static final ConnectionScope EMPTY = new ConnectionScope(ConnectionIndex.EMPTY, x -> false);
+
+  /**
+   * Gets every connection in scope that can carry a message between the given nodes.
+   *
+   * @param from the nodes that can appear at the source end.
+   * @param to   the nodes that can appear at the destination end.
+   * @return the stream of connections, in declaration order.
+   */
+  Stream<Connection> between(Set<ConnectionNode> from, Set<ConnectionNode> to) {
+    return index.between(from, to).filter(filter);
+  }
+
+  /**
+   * Gets every connection in scope, no matter its nodes.
+   *
+   * @return the stream of connections, in declaration order.
+   */
+  Stream<Connection> all() {
+    return index.connections().stream().filter(filter);
+  }
+}
@@ -36,7 +36,7 @@ public class ControllerResolver implements NameResolver<Controller> {
    * @return the controller's module, if it has one.
    */
   public Optional<RCModule> module(Controller c) {
-    return ResolveHelper.containerOfType(c, RCModule.class);
+    return AncestorIndex.moduleOf(c);
   }
 
   @Override
@@ -19,13 +19,14 @@ import circus.robocalc.robochart.ControllerRef;
 import circus.robocalc.robochart.Operation;
 import circus.robocalc.robochart.OperationDef;
 import circus.robocalc.robochart.OperationRef;
+import circus.robocalc.robochart.RoboChartPackage;
 import circus.robocalc.robochart.RoboticPlatform;
 import circus.robocalc.robochart.RoboticPlatformDef;
 import circus.robocalc.robochart.RoboticPlatformRef;
 import circus.robocalc.robochart.StateMachine;
 import circus.robocalc.robochart.StateMachineDef;
 import circus.robocalc.robochart.StateMachineRef;
-import circus.robocalc.robochart.util.RoboChartSwitch;
+import robostar.robocert.util.ClassDispatcher;
 
 /**
  * Helper class for finding definitions of various RoboChart components.
@@ -34,6 +35,18 @@ import circus.robocalc.robochart.util.RoboChartSwitch;
  */
 public class DefinitionResolver {
 
+  private static final int CASE_STATE_MACHINE = 0;
+  private static final int CASE_CONTROLLER = 1;
+  private static final int CASE_OPERATION = 2;
+  private static final int CASE_ROBOTIC_PLATFORM = 3;
+
+  private static final ClassDispatcher NORMALISE = ClassDispatcher
+      .builder(RoboChartPackage.eINSTANCE)
+      .on(RoboChartPackage.Literals.STATE_MACHINE, CASE_STATE_MACHINE)
+      .on(RoboChartPackage.Literals.CONTROLLER, CASE_CONTROLLER)
+      .on(RoboChartPackage.Literals.OPERATION, CASE_OPERATION)
+      .on(RoboChartPackage.Literals.ROBOTIC_PLATFORM, CASE_ROBOTIC_PLATFORM).build();
+
   /**
    * If the node is a reference, dereference it.
    *
@@ -42,33 +55,14 @@ public class DefinitionResolver {
    * @return n if it is not a reference; the result of n.getRef() otherwise.
    */
   public ConnectionNode normalise(ConnectionNode n) {
-    return new RoboChartSwitch<ConnectionNode>() {
-      @Override
-      public ConnectionNode caseConnectionNode(ConnectionNode n) {
-        // return the node unchanged
-        return n;
-      }
-
-      @Override
-      public ConnectionNode caseStateMachine(StateMachine s) {
-        return resolve(s);
-      }
-
-      @Override
-      public ConnectionNode caseController(Controller c) {
-        return resolve(c);
-      }
-
-      @Override
-      public ConnectionNode caseOperation(Operation o) {
-        return resolve(o);
-      }
-
-      @Override
-      public ConnectionNode caseRoboticPlatform(RoboticPlatform r) {
-        return resolve(r);
-      }
-    }.doSwitch(n);
+    return switch (NORMALISE.dispatch(n)) {
+      case CASE_STATE_MACHINE -> resolve((StateMachine) n);
+      case CASE_CONTROLLER -> resolve((Controller) n);
+      case CASE_OPERATION -> resolve((Operation) n);
+      case CASE_ROBOTIC_PLATFORM -> resolve((RoboticPlatform) n);
+      // return the node unchanged
+      default -> n;
+    };
   }
 
   /**
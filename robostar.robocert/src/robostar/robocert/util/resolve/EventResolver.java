@@ -14,9 +14,16 @@
 package robostar.robocert.util.resolve;
 
 import circus.robocalc.robochart.Connection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 import robostar.robocert.Actor;
 import robostar.robocert.EventTopic;
+import robostar.robocert.Interaction;
+import robostar.robocert.MessageOccurrence;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.util.StreamHelper;
 
 /**
  * Resolves an event topic to a connection.
@@ -37,4 +44,81 @@ public interface EventResolver {
    * @return the stream of candidate connections.
    */
   Stream<Connection> resolve(EventTopic topic, Actor from, Actor to);
+
+  /**
+   * Resolves an event to a candidate stream of connections, sharing work with other resolutions
+   * in the same context.
+   *
+   * <p>This is otherwise the same as {@link #resolve(EventTopic, Actor, Actor)}, and should be
+   * preferred when resolving many events over the same actors.  The default implementation
+   * ignores the context.
+   *
+   * @param topic the topic of the event to look up.
+   * @param from  the from-actor of the event's message.
+   * @param to    the to-actor of the event's message.
+   * @param ctx   the context of the current resolution session.
+   * @return the stream of candidate connections.
+   */
+  default Stream<Connection> resolve(EventTopic topic, Actor from, Actor to,
+      ResolutionContext ctx) {
+    return resolve(topic, from, to);
+  }
+
+  /**
+   * Does, on the calling thread, any work that resolving the events of a group would otherwise do
+   * lazily by writing to the model, such as installing cache adapters.
+   *
+   * <p>After priming, resolving the group's events in the same context should only read the
+   * model, and so is safe to spread over several threads.  The default implementation does
+   * nothing.
+   *
+   * @param group the group whose messages we are about to resolve.
+   * @param ctx   the context of the coming resolution session.
+   */
+  default void prime(SpecificationGroup group, ResolutionContext ctx) {
+  }
+
+  /**
+   * Resolves the events of every message occurrence in an interaction.
+   *
+   * @param it  the interaction whose messages we are resolving.
+   * @param ctx the context of the current resolution session.
+   * @return a map from each event topic on a message occurrence in {@code it} to its candidate
+   * connections, in the order in which the occurrences appear.
+   */
+  default Map<EventTopic, List<Connection>> resolveAll(Interaction it, ResolutionContext ctx) {
+    final var result = new LinkedHashMap<EventTopic, List<Connection>>();
+    resolveAllInto(result, it, ctx);
+    return result;
+  }
+
+  /**
+   * Resolves the events of every message occurrence in every interaction of a group.
+   *
+   * <p>All of the interactions share the given context, and so the work done to resolve the
+   * group's actors and target.
+   *
+   * @param group the group whose messages we are resolving.
+   * @param ctx   the context of the current resolution session.
+   * @return a map from each event topic on a message occurrence in {@code group} to its candidate
+   * connections, in the order in which the interactions and occurrences appear.
+   */
+  default Map<EventTopic, List<Connection>> resolveAll(SpecificationGroup group,
+      ResolutionContext ctx) {
+    final var result = new LinkedHashMap<EventTopic, List<Connection>>();
+    for (var it : group.getInteractions()) {
+      resolveAllInto(result, it, ctx);
+    }
+    return result;
+  }
+
+  private void resolveAllInto(Map<EventTopic, List<Connection>> result, Interaction it,
+      ResolutionContext ctx) {
+    StreamHelper.filter(StreamHelper.allContents(it), MessageOccurrence.class)
+        .map(MessageOccurrence::getMessage).forEach(m -> {
+          if (m.getTopic() instanceof EventTopic t) {
+            result.put(t, resolve(t, m.getFrom(), m.getTo(), ctx).toList());
+          }
+        });
+  }
 }
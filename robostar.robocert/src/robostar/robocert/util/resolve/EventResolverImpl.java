@@ -15,17 +15,15 @@ package robostar.robocert.util.resolve;
 
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.eclipse.emf.ecore.util.EcoreUtil;
-
 import com.google.inject.Inject;
 
 import circus.robocalc.robochart.Connection;
 import circus.robocalc.robochart.ConnectionNode;
 import circus.robocalc.robochart.ControllerDef;
 import circus.robocalc.robochart.ControllerRef;
+import circus.robocalc.robochart.Event;
 import circus.robocalc.robochart.OperationRef;
 import circus.robocalc.robochart.RCModule;
 import circus.robocalc.robochart.RoboticPlatform;
@@ -41,10 +39,13 @@ import robostar.robocert.InControllerTarget;
 import robostar.robocert.InModuleTarget;
 import robostar.robocert.ModuleTarget;
 import robostar.robocert.OperationTarget;
+import robostar.robocert.SpecificationGroup;
 import robostar.robocert.StateMachineTarget;
 import robostar.robocert.Target;
 import robostar.robocert.World;
 import robostar.robocert.util.ActorNodeResolver;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.StreamHelper;
 
 /**
  * Resolves an event topic to a connection.
@@ -52,37 +53,84 @@ import robostar.robocert.util.ActorNodeResolver;
  * @author Matt Windsor
  */
 public record EventResolverImpl(ActorNodeResolver actorRes, ControllerResolver ctrlRes,
-                                StateMachineResolver stmRes) implements EventResolver {
+                                StateMachineResolver stmRes, Fingerprinter fingerprinter) implements
+    EventResolver {
 
   @Inject
   public EventResolverImpl {
     Objects.requireNonNull(actorRes);
     Objects.requireNonNull(ctrlRes);
     Objects.requireNonNull(stmRes);
+    Objects.requireNonNull(fingerprinter);
+  }
+
+  /**
+   * Constructs an event resolver with a fresh fingerprinter.
+   *
+   * @param actorRes resolves actors to their connection nodes.
+   * @param ctrlRes  resolves controller names.
+   * @param stmRes   resolves state machine names.
+   */
+  public EventResolverImpl(ActorNodeResolver actorRes, ControllerResolver ctrlRes,
+      StateMachineResolver stmRes) {
+    this(actorRes, ctrlRes, stmRes, new Fingerprinter());
+  }
+
+  @Override
+  public void prime(SpecificationGroup group, ResolutionContext ctx) {
+    final var topics = StreamHelper.filter(StreamHelper.allContents(group), EventTopic.class)
+        .toList();
+    if (topics.isEmpty()) {
+      return;
+    }
+
+    // Matching fingerprints every topic's events and every candidate connection's events, and
+    // the scopes install connection indexes on their modules or controllers.
+    for (var t : topics) {
+      primeEvents(t.getEfrom(), t.getEto());
+    }
+    final var target = group.getTarget();
+    ctx.outboundScope(target, this::outboundConnections).all()
+        .forEach(c -> primeEvents(c.getEfrom(), c.getEto()));
+    if (target instanceof CollectionTarget t) {
+      ctx.innerScope(t, this::innerConnections).all()
+          .forEach(c -> primeEvents(c.getEfrom(), c.getEto()));
+    }
+  }
+
+  private void primeEvents(Event efrom, Event eto) {
+    fingerprinter.fingerprint(efrom);
+    fingerprinter.fingerprint(eto);
   }
 
   @Override
   public Stream<Connection> resolve(EventTopic topic, Actor from, Actor to) {
+    return resolve(topic, from, to, new ResolutionContext(actorRes));
+  }
+
+  @Override
+  public Stream<Connection> resolve(EventTopic topic, Actor from, Actor to,
+      ResolutionContext ctx) {
     final var target = from.getGroup().getTarget();
     if (target instanceof ComponentTarget t) {
-      return resolveComponent(topic, from, to, t);
+      return resolveComponent(topic, from, to, t, ctx);
     }
     if (target instanceof CollectionTarget t) {
-      return resolveCollection(topic, from, to, t);
+      return resolveCollection(topic, from, to, t, ctx);
     }
     throw new IllegalArgumentException(
         "target neither component nor collection: %s".formatted(target));
   }
 
-  private Stream<Connection> resolveComponent(EventTopic topic, Actor from, Actor to, Target t) {
+  private Stream<Connection> resolveComponent(EventTopic topic, Actor from, Actor to, Target t,
+      ResolutionContext ctx) {
     // Component targets are easy to resolve: all of their connections go from the target to
     // the world, or backwards (and so are outbound in some sense).
-    return outboundConnections(t).filter(
-        x -> matchesComponent(x, topic, actorNodes(from), actorNodes(to)));
+    return resolveOutbound(topic, ctx.actorNodes(from), ctx.actorNodes(to), t, ctx);
   }
 
   private Stream<Connection> resolveCollection(EventTopic topic, Actor from, Actor to,
-      CollectionTarget t) {
+      CollectionTarget t, ResolutionContext ctx) {
     // Collection target connections are more complicated than component target connections, as
     // there are two situations:
     //
@@ -91,16 +139,16 @@ public record EventResolverImpl(ActorNodeResolver actorRes, ControllerResolver c
     // - from a ComponentActor to a World, in which case we need to proceed as if we were resolving
     //   a component connection from the target to the world instead.
     if (from instanceof ComponentActor && to instanceof ComponentActor) {
-      return innerConnections(t).filter(
-          x -> matchesComponent(x, topic, actorNodes(from), actorNodes(to)));
+      return ctx.innerScope(t, this::innerConnections)
+          .between(ctx.actorNodes(from), ctx.actorNodes(to)).filter(x -> eventsMatch(x, topic));
     }
 
     // WFC CGsA2 has that at least one of these must be the world.
     if (from instanceof World) {
-      return resolveOutbound(topic, actorNodes(from), targetNodes(t), t);
+      return resolveOutbound(topic, ctx.actorNodes(from), ctx.targetNodes(t), t, ctx);
     }
     if (to instanceof World) {
-      return resolveOutbound(topic, targetNodes(t), actorNodes(to), t);
+      return resolveOutbound(topic, ctx.targetNodes(t), ctx.actorNodes(to), t, ctx);
     }
 
     throw new IllegalArgumentException(
@@ -108,18 +156,19 @@ public record EventResolverImpl(ActorNodeResolver actorRes, ControllerResolver c
   }
 
   private Stream<Connection> resolveOutbound(EventTopic topic, Set<ConnectionNode> fromNodes,
-      Set<ConnectionNode> toNodes, Target t) {
-    return outboundConnections(t).filter(x -> matchesComponent(x, topic, fromNodes, toNodes));
+      Set<ConnectionNode> toNodes, Target t, ResolutionContext ctx) {
+    return ctx.outboundScope(t, this::outboundConnections).between(fromNodes, toNodes)
+        .filter(x -> eventsMatch(x, topic));
   }
 
 
   /**
-   * Gets the stream of connections that go from this target to its world.
+   * Gets the scope of connections that go from this target to its world.
    *
    * @param target the target whose connections should be enumerated.
-   * @return the stream of outbound connections.
+   * @return the scope of outbound connections.
    */
-  private Stream<Connection> outboundConnections(Target target) {
+  private ConnectionScope outboundConnections(Target target) {
     // We consider the connections from module elements to the platform to be 'outer', here.
     if (target instanceof InModuleTarget m) {
       return outboundModuleConnections(m.getModule());
@@ -146,43 +195,29 @@ public record EventResolverImpl(ActorNodeResolver actorRes, ControllerResolver c
         "can't get outbound connections for target %s".formatted(target));
   }
 
-  private Set<ConnectionNode> actorNodes(Actor from) {
-    return actorRes.resolve(from).collect(Collectors.toUnmodifiableSet());
-  }
-
-  private Set<ConnectionNode> targetNodes(Target t) {
-    return actorRes.resolveTarget(t).collect(Collectors.toUnmodifiableSet());
-  }
-
-  private boolean matchesComponent(Connection c, EventTopic topic, Set<ConnectionNode> from,
-      Set<ConnectionNode> to) {
-    if (!(nodesMatch(c, from, to) || (c.isBidirec() && nodesMatch(c, to, from)))) {
-      return false;
-    }
+  private boolean eventsMatch(Connection c, EventTopic topic) {
+    // The connection scope has already checked the nodes.
+    // Events are compared structurally, but their fingerprints let us avoid most deep comparisons.
     // TODO(@MattWindsor91): do we need reversibility here?
-    if (!EcoreUtil.equals(topic.getEfrom(), c.getEfrom())) {
+    if (!fingerprinter.equal(topic.getEfrom(), c.getEfrom())) {
       return false;
     }
     final var eto = topic.getEto();
-    return eto == null || EcoreUtil.equals(topic.getEto(), c.getEto());
-  }
-
-  private boolean nodesMatch(Connection c, Set<ConnectionNode> from, Set<ConnectionNode> to) {
-    return from.contains(c.getFrom()) && to.contains(c.getTo());
+    return eto == null || fingerprinter.equal(eto, c.getEto());
   }
 
   /**
-   * Gets the connections between components inside this target.
+   * Gets the scope of connections between components inside this target.
    *
    * @param target the collection target whose connections we are searching.
-   * @return the stream of connections defined between this target's components.
+   * @return the scope of connections defined between this target's components.
    */
-  private Stream<Connection> innerConnections(CollectionTarget target) {
+  private ConnectionScope innerConnections(CollectionTarget target) {
     if (target instanceof InModuleTarget m) {
-      return moduleConnections(m.getModule()).filter(x -> !connectsPlatform(x));
+      return new ConnectionScope(ConnectionIndex.of(m.getModule()), x -> !connectsPlatform(x));
     }
     if (target instanceof InControllerTarget c) {
-      return c.getController().getConnections().stream();
+      return new ConnectionScope(ConnectionIndex.of(c.getController()), x -> true);
     }
 
     throw new IllegalArgumentException("can't get inner connections of %s".formatted(target));
@@ -192,28 +227,22 @@ public record EventResolverImpl(ActorNodeResolver actorRes, ControllerResolver c
   // Utilities
   //
 
-  private Stream<Connection> moduleConnections(RCModule m) {
-    return m.getConnections().stream();
-  }
-
-  private Stream<Connection> controllerConnections(ControllerDef ctrl) {
-    return ctrl.getConnections().stream();
-  }
-
-  private Stream<Connection> outboundModuleConnections(RCModule m) {
-    return moduleConnections(m).filter(this::connectsPlatform);
+  private ConnectionScope outboundModuleConnections(RCModule m) {
+    return new ConnectionScope(ConnectionIndex.of(m), this::connectsPlatform);
   }
 
-  private Stream<Connection> outboundControllerConnections(ControllerDef ctrl) {
+  private ConnectionScope outboundControllerConnections(ControllerDef ctrl) {
     // An outbound controller connection is any connection in the module that goes to or from the
     // controller.
-    return ctrlRes.module(ctrl).stream().flatMap(this::moduleConnections)
-        .filter(c -> connectsController(c, ctrl));
+    return ctrlRes.module(ctrl)
+        .map(m -> new ConnectionScope(ConnectionIndex.of(m), c -> connectsController(c, ctrl)))
+        .orElse(ConnectionScope.EMPTY);
   }
 
-  private Stream<Connection> outboundStateMachineBodyConnections(StateMachineBody smb) {
-    return stmRes.controller(smb).stream().flatMap(this::controllerConnections)
-        .filter(c -> connectsStateMachine(c, smb));
+  private ConnectionScope outboundStateMachineBodyConnections(StateMachineBody smb) {
+    return stmRes.controller(smb)
+        .map(c -> new ConnectionScope(ConnectionIndex.of(c), x -> connectsStateMachine(x, smb)))
+        .orElse(ConnectionScope.EMPTY);
   }
 
   private boolean connectsController(Connection c, ControllerDef ctrl) {
@@ -23,24 +23,39 @@ import com.google.inject.Inject;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
+import robostar.robocert.util.ExecutionPolicy;
+import robostar.robocert.util.SequentialExecutionPolicy;
 import robostar.robocert.util.StreamHelper;
 
 /**
  * Resolves various aspects of modules.
  *
  * @param defRes utility for resolving references into definitions.
+ * @param policy policy for streaming over module nodes.
  * @author Matt Windsor
  */
-public record ModuleResolver(DefinitionResolver defRes) implements NameResolver<RCModule> {
+public record ModuleResolver(DefinitionResolver defRes, ExecutionPolicy policy) implements
+    NameResolver<RCModule> {
 
   /**
    * Constructs a module resolver.
    *
    * @param defRes utility for resolving references into definitions.
+   * @param policy policy for streaming over module nodes.
    */
   @Inject
   public ModuleResolver {
     Objects.requireNonNull(defRes);
+    Objects.requireNonNull(policy);
+  }
+
+  /**
+   * Constructs a sequential module resolver.
+   *
+   * @param defRes utility for resolving references into definitions.
+   */
+  public ModuleResolver(DefinitionResolver defRes) {
+    this(defRes, new SequentialExecutionPolicy());
   }
 
   @Override
@@ -76,6 +91,6 @@ public record ModuleResolver(DefinitionResolver defRes) implements NameResolver<
     if (m == null) {
       return Stream.empty();
     }
-    return StreamHelper.filter(m.getNodes().parallelStream(), clazz);
+    return StreamHelper.filter(policy.stream(m.getNodes()), clazz);
   }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.resolve;
+
+import circus.robocalc.robochart.Connection;
+import com.google.inject.Inject;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import org.eclipse.emf.ecore.EObject;
+import robostar.robocert.CertPackage;
+import robostar.robocert.EventTopic;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.util.ActorNodeResolver;
+import robostar.robocert.util.ProxyHelper;
+import robostar.robocert.util.StreamHelper;
+
+/**
+ * Resolves the events of whole packages and groups, spreading the interactions over a fork-join
+ * pool.
+ *
+ * <p>Resolution only reads the model, but EMF can write to it behind our backs when resolving
+ * proxies.  To keep the parallel phase read-only, we resolve all proxies (in the RoboChart models
+ * as well as the RoboCert ones; see {@link ProxyHelper#resolveAll(EObject)}), index the ancestors
+ * of every group's target, find the nodes of every group's actors, and
+ * {@link EventResolver#prime(SpecificationGroup, ResolutionContext) prime} the event resolver's
+ * own caches, on the calling thread before forking.  After this, the workers should not install
+ * any cache adapters.  The model must not change while a resolution is in progress.
+ *
+ * <p>Results are gathered in the order of the groups, interactions, and occurrences in the model,
+ * no matter the order in which the tasks complete.
+ *
+ * @param eventRes resolver used for each interaction.
+ * @param actorRes resolver used to build the shared resolution context.
+ * @param elemRes  resolver used to find the targets of groups.
+ * @author Matt Windsor
+ */
+public record ParallelEventResolver(EventResolver eventRes, ActorNodeResolver actorRes,
+                                    TargetElementResolver elemRes) {
+
+  /**
+   * Constructs a parallel event resolver.
+   *
+   * @param eventRes resolver used for each interaction.
+   * @param actorRes resolver used to build the shared resolution context.
+   * @param elemRes  resolver used to find the targets of groups.
+   */
+  @Inject
+  public ParallelEventResolver {
+    Objects.requireNonNull(eventRes);
+    Objects.requireNonNull(actorRes);
+    Objects.requireNonNull(elemRes);
+  }
+
+  /**
+   * Resolves the events of every specification group in a package.
+   *
+   * @param pkg  the package to resolve.
+   * @param pool the pool on which to resolve interactions.
+   * @return a map from each specification group in {@code pkg}, in package order, to the result
+   * of {@link EventResolver#resolveAll(SpecificationGroup, ResolutionContext)} on it.
+   */
+  public Map<SpecificationGroup, Map<EventTopic, List<Connection>>> resolveAll(CertPackage pkg,
+      ForkJoinPool pool) {
+    ProxyHelper.resolveAll(pkg);
+
+    final var groups = StreamHelper.filter(pkg.getGroups().stream(), SpecificationGroup.class)
+        .toList();
+    return fork(groups, pool);
+  }
+
+  /**
+   * Resolves the events of a specification group.
+   *
+   * @param group the group to resolve.
+   * @param pool  the pool on which to resolve interactions.
+   * @return the same result as {@link EventResolver#resolveAll(SpecificationGroup,
+   * ResolutionContext)} on {@code group}.
+   */
+  public Map<EventTopic, List<Connection>> resolveAll(SpecificationGroup group,
+      ForkJoinPool pool) {
+    ProxyHelper.resolveAll(group);
+    return fork(List.of(group), pool).get(group);
+  }
+
+  private Map<SpecificationGroup, Map<EventTopic, List<Connection>>> fork(
+      List<SpecificationGroup> groups, ForkJoinPool pool) {
+    final var ctx = new ResolutionContext(actorRes);
+    for (var g : groups) {
+      prime(g, ctx);
+    }
+
+    // Fork every interaction up front, then join in model order.
+    final var tasks = groups.stream().map(g -> g.getInteractions().stream()
+        .map(it -> pool.submit(() -> eventRes.resolveAll(it, ctx))).toList()).toList();
+
+    final var result = new LinkedHashMap<SpecificationGroup, Map<EventTopic, List<Connection>>>();
+    for (var i = 0; i < groups.size(); i++) {
+      final var merged = new LinkedHashMap<EventTopic, List<Connection>>();
+      for (var t : tasks.get(i)) {
+        merged.putAll(t.join());
+      }
+      result.put(groups.get(i), merged);
+    }
+    return result;
+  }
+
+  private void prime(SpecificationGroup group, ResolutionContext ctx) {
+    // Installing the ancestor index adds adapters throughout the target's model.
+    AncestorIndex.packageOf(elemRes.resolve(group.getTarget()));
+
+    ctx.targetNodes(group.getTarget());
+    for (var a : group.getActors()) {
+      ctx.actorNodes(a);
+    }
+    eventRes.prime(group, ctx);
+  }
+}
@@ -14,18 +14,56 @@ package robostar.robocert.util.resolve;
 
 import circus.robocalc.robochart.Parameter;
 import circus.robocalc.robochart.Type;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import org.eclipse.emf.common.notify.Notifier;
 import robostar.robocert.EventTopic;
 import robostar.robocert.MessageTopic;
 import robostar.robocert.OperationTopic;
+import robostar.robocert.RoboCertPackage;
+import robostar.robocert.util.ClassDispatcher;
+import robostar.robocert.util.ModelCache;
 import robostar.robocert.util.RoboCertSwitch;
 
 /**
  * Resolver for parameter types of message topics.
  *
+ * <p>{@link #resolve(MessageTopic)} derives a fresh stream on each call, whereas
+ * {@link #types(MessageTopic)} memoises an immutable list on the topic.  The latter suits callers
+ * (such as argument checking) that ask after the same topics many times.  The class is final so
+ * that every resolver agrees with the list cache, which all resolvers share.
+ *
  * @author Matt Windsor
  */
-public class ParamTypeResolver extends RoboCertSwitch<Stream<Type>> {
+public final class ParamTypeResolver extends RoboCertSwitch<Stream<Type>> {
+
+  private static final int CASE_EVENT = 0;
+  private static final int CASE_OPERATION = 1;
+
+  private static final ClassDispatcher RESOLVE = ClassDispatcher
+      .builder(RoboCertPackage.eINSTANCE)
+      .on(RoboCertPackage.Literals.EVENT_TOPIC, CASE_EVENT)
+      .on(RoboCertPackage.Literals.OPERATION_TOPIC, CASE_OPERATION).build();
+
+  private static final ModelCache<MessageTopic, List<Type>> TYPES = new ModelCache<>(x -> true);
+
+  /**
+   * Resolves the parameter types of a message topic as a list, caching the result on the topic.
+   *
+   * <p>The list is discarded when the topic, its event, or its operation or that operation's
+   * parameters change.
+   *
+   * @param t the topic whose parameter types are wanted.
+   * @return an immutable list of types, in the same order as the parameters of the topic.
+   */
+  public List<Type> types(MessageTopic t) {
+    return TYPES.get(t, (topic, watch) -> {
+      watchSignature(topic, watch);
+      // The streams from both cases are sized, so this allocates the list once.
+      return resolve(topic).toList();
+    });
+  }
 
   /**
    * Resolves the parameter types of a message topic.
@@ -34,7 +72,13 @@ public class ParamTypeResolver extends RoboCertSwitch<Stream<Type>> {
    * @return a stream of types, in the same order as the parameters of the topic.
    */
   public Stream<Type> resolve(MessageTopic t) {
-    final var types = doSwitch(t);
+    // We dispatch through the table rather than doSwitch, falling back to the latter for topics
+    // the table doesn't cover.
+    final var types = switch (RESOLVE.dispatch(t)) {
+      case CASE_EVENT -> caseEventTopic((EventTopic) t);
+      case CASE_OPERATION -> caseOperationTopic((OperationTopic) t);
+      default -> doSwitch(t);
+    };
 
     // Safety valve in case we forget to add an override.
     if (types == null) {
@@ -57,4 +101,13 @@ public class ParamTypeResolver extends RoboCertSwitch<Stream<Type>> {
   public Stream<Type> caseOperationTopic(OperationTopic t) {
     return t.getOperation().getParameters().stream().map(Parameter::getType);
   }
+
+  private static void watchSignature(MessageTopic t, Consumer<Notifier> watch) {
+    if (t instanceof EventTopic e) {
+      watch.accept(e.getEfrom());
+    } else if (t instanceof OperationTopic o && o.getOperation() != null) {
+      watch.accept(o.getOperation());
+      o.getOperation().getParameters().forEach(watch);
+    }
+  }
 }
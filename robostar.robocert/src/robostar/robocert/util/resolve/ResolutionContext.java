@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.resolve;
+
+import circus.robocalc.robochart.ConnectionNode;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import robostar.robocert.Actor;
+import robostar.robocert.CollectionTarget;
+import robostar.robocert.Target;
+import robostar.robocert.util.ActorNodeResolver;
+
+/**
+ * Shared state for a session of resolutions, such as resolving all messages of a group.
+ *
+ * <p>A context memoises the connection nodes standing for each actor and target it sees, and the
+ * connections available to each target, so that resolving many messages over the same actors does
+ * not keep walking the target.  Contexts assume that the model does not change while they are in
+ * use, so they should be thrown away at the end of the session.  They may be shared between
+ * threads.
+ *
+ * @author Matt Windsor
+ */
+public final class ResolutionContext {
+
+  private final ActorNodeResolver actorRes;
+  private final Map<Actor, Set<ConnectionNode>> actorNodes = new ConcurrentHashMap<>();
+  private final Map<Target, Set<ConnectionNode>> targetNodes = new ConcurrentHashMap<>();
+  private final Map<Target, ConnectionScope> outboundScopes = new ConcurrentHashMap<>();
+  private final Map<CollectionTarget, ConnectionScope> innerScopes = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a resolution context.
+   *
+   * @param actorRes resolver used to find the nodes of actors and targets.
+   */
+  public ResolutionContext(ActorNodeResolver actorRes) {
+    this.actorRes = Objects.requireNonNull(actorRes);
+  }
+
+  /**
+   * Gets the set of connection nodes that can represent an actor.
+   *
+   * @param actor the actor to resolve.
+   * @return the nodes resolved by {@link ActorNodeResolver#resolve(Actor)}, as a set.
+   */
+  public Set<ConnectionNode> actorNodes(Actor actor) {
+    return actorNodes.computeIfAbsent(actor,
+        a -> actorRes.resolve(a).collect(Collectors.toUnmodifiableSet()));
+  }
+
+  /**
+   * Gets the set of connection nodes that can represent the target actor of a target.
+   *
+   * @param target the target to resolve.
+   * @return the nodes resolved by {@link ActorNodeResolver#resolveTarget(Target)}, as a set.
+   */
+  public Set<ConnectionNode> targetNodes(Target target) {
+    return targetNodes.computeIfAbsent(target,
+        t -> actorRes.resolveTarget(t).collect(Collectors.toUnmodifiableSet()));
+  }
+
+  /**
+   * Gets the scope of connections from a target to its world, deriving it on first use.
+   *
+   * @param target the target whose connections are wanted.
+   * @param derive derives the scope.
+   * @return the scope of outbound connections for the target.
+   */
+  ConnectionScope outboundScope(Target target, Function<Target, ConnectionScope> derive) {
+    return outboundScopes.computeIfAbsent(target, derive);
+  }
+
+  /**
+   * Gets the scope of connections inside a collection target, deriving it on first use.
+   *
+   * @param target the target whose connections are wanted.
+   * @param derive derives the scope.
+   * @return the scope of inner connections for the target.
+   */
+  ConnectionScope innerScope(CollectionTarget target,
+      Function<CollectionTarget, ConnectionScope> derive) {
+    return innerScopes.computeIfAbsent(target, derive);
+  }
+}
@@ -34,13 +34,14 @@ public class ResolveHelper {
    * @return package of {@code e}, if any.
    */
   public static Optional<RCPackage> packageOf(EObject e) {
-    return containerOfType(e, RCPackage.class);
+    return AncestorIndex.packageOf(e);
   }
 
   /**
    * Gets the first container of the given object that matches the given class.
    * <p>
-   * This should be compatible with {@code EcoreUtil2.getContainerOfType}.
+   * This should be compatible with {@code EcoreUtil2.getContainerOfType}.  Prefer
+   * {@link AncestorIndex} when looking for packages, modules, or controllers.
    *
    * @param e      object to inspect.
    * @param tClass reification of T.
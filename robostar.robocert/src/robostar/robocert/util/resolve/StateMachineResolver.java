@@ -17,13 +17,10 @@ import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
 
-import org.eclipse.emf.ecore.EObject;
-
 import com.google.inject.Inject;
 
 import circus.robocalc.robochart.ControllerDef;
 import circus.robocalc.robochart.OperationDef;
-import circus.robocalc.robochart.RCModule;
 import circus.robocalc.robochart.StateMachineBody;
 import circus.robocalc.robochart.StateMachineDef;
 
@@ -55,13 +52,7 @@ public record StateMachineResolver(ControllerResolver ctrlRes) implements
    * @return the body's controller, if it has one.
    */
   public Optional<ControllerDef> controller(StateMachineBody b) {
-    for (EObject e = b; e != null; e = e.eContainer()) {
-      if (e instanceof ControllerDef m) {
-        return Optional.of(m);
-      }
-    }
-
-    return Optional.empty();
+    return AncestorIndex.controllerOf(b);
   }
 
   @Override
@@ -69,12 +60,8 @@ public record StateMachineResolver(ControllerResolver ctrlRes) implements
     final var ctrl = controller(element);
     return ctrl.map(c -> nameInController(element, c)).orElseGet(() -> {
       // State machine is not inside a controller.
-      for (EObject e = element; e != null; e = e.eContainer()) {
-        if (e instanceof RCModule mod) {
-          return new String[]{mod.getName(), innerName(element)};
-        }
-      }
-      return null;
+      final var mod = AncestorIndex.moduleOf(element);
+      return mod.map(m -> new String[]{m.getName(), innerName(element)}).orElse(null);
     });
   }
 
@@ -18,28 +18,49 @@ import com.google.inject.Inject;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 import robostar.robocert.CollectionTarget;
 import robostar.robocert.InControllerTarget;
 import robostar.robocert.InModuleTarget;
+import robostar.robocert.RoboCertPackage;
 import robostar.robocert.Target;
-import robostar.robocert.util.RoboCertSwitch;
+import robostar.robocert.util.ClassDispatcher;
 
 /**
  * Resolves the components of RoboCert collection targets.
  *
+ * @param defRes  the definition resolver to use for inspecting controller components.
+ * @param elemRes the target element resolver to use for finding the containers of targets.
  * @author Matt Windsor
  */
-public record TargetComponentsResolver(DefinitionResolver defRes) {
+public record TargetComponentsResolver(DefinitionResolver defRes, TargetElementResolver elemRes) {
+
+  private static final int CASE_IN_MODULE = 0;
+  private static final int CASE_IN_CONTROLLER = 1;
+
+  private static final ClassDispatcher RESOLVE = ClassDispatcher
+      .builder(RoboCertPackage.eINSTANCE)
+      .on(RoboCertPackage.Literals.IN_MODULE_TARGET, CASE_IN_MODULE)
+      .on(RoboCertPackage.Literals.IN_CONTROLLER_TARGET, CASE_IN_CONTROLLER).build();
 
   /**
    * Constructs a target components resolver.
    *
-   * @param defRes the definition resolver to use for inspecting controller components.
+   * @param defRes  the definition resolver to use for inspecting controller components.
+   * @param elemRes the target element resolver to use for finding the containers of targets.
    */
   @Inject
   public TargetComponentsResolver {
     Objects.requireNonNull(defRes);
+    Objects.requireNonNull(elemRes);
+  }
+
+  /**
+   * Constructs a target components resolver with a fresh target element resolver.
+   *
+   * @param defRes the definition resolver to use for inspecting controller components.
+   */
+  public TargetComponentsResolver(DefinitionResolver defRes) {
+    this(defRes, new TargetElementResolver());
   }
 
   /*
@@ -55,14 +76,7 @@ public record TargetComponentsResolver(DefinitionResolver defRes) {
    * this resolver is equal to the given component modulo definition resolving.
    */
   public boolean hasComponent(Target target, ConnectionNode component) {
-    if (!(target instanceof CollectionTarget c)) {
-      return false;
-    }
-
-    // Equality by structural testing of the underlying definitions.
-    final var def = defRes.normalise(component);
-
-    return resolve(c).anyMatch(x -> EcoreUtil.equals(def, defRes.normalise(x)));
+    return find(target, component).isPresent();
   }
 
   /**
@@ -80,10 +94,10 @@ public record TargetComponentsResolver(DefinitionResolver defRes) {
       return Optional.empty();
     }
 
-    // As above.
-    final var def = defRes.normalise(component);
-
-    return resolve(c).filter(x -> EcoreUtil.equals(def, defRes.normalise(x))).findFirst();
+    // Equality by structural testing of the underlying definitions, through an index cached on
+    // the target's module or controller.
+    final var container = elemRes.resolve(c);
+    return ComponentIndex.of(container, () -> resolve(c), defRes).find(component);
   }
 
   /*
@@ -102,31 +116,22 @@ public record TargetComponentsResolver(DefinitionResolver defRes) {
    * @return a stream of that target's components, as connection nodes.
    */
   public Stream<ConnectionNode> resolve(CollectionTarget t) {
-    final var comps = new RoboCertSwitch<Stream<ConnectionNode>>() {
-      @Override
-      public Stream<ConnectionNode> caseInModuleTarget(InModuleTarget t) {
-        return t.getModule().getNodes().stream().filter(x -> !(x instanceof RoboticPlatform));
-      }
-
-      @Override
-      public Stream<ConnectionNode> caseInControllerTarget(InControllerTarget t) {
+    return switch (RESOLVE.dispatch(t)) {
+      case CASE_IN_MODULE -> ((InModuleTarget) t).getModule().getNodes().stream()
+          .filter(x -> !(x instanceof RoboticPlatform));
+      case CASE_IN_CONTROLLER -> {
         /* We do not resolve references to definitions.  This is because the CSP emitted at the
            RoboChart side does not (seemingly) do this resolution either.
 
            As such, equality/membership testing and other such operations need to be sensitive of
            whether they are getting a def or a ref. */
-        final var ctrl = t.getController();
-        return Stream.concat(ctrl.getLOperations().stream(), ctrl.getMachines().stream());
+        final var ctrl = ((InControllerTarget) t).getController();
+        yield Stream.concat(ctrl.getLOperations().stream(), ctrl.getMachines().stream());
       }
-    }.doSwitch(t);
-
-    // Safety valve in case we forget to add an override.
-    if (comps == null) {
-      throw new UnsupportedOperationException(
+      // Safety valve in case we forget to add a case.
+      default -> throw new UnsupportedOperationException(
           "Tried to resolve the components of a target %s that is not yet supported.  This is an internal error.".formatted(
               t));
-    }
-
-    return comps;
+    };
   }
 }
@@ -18,9 +18,10 @@ import robostar.robocert.InControllerTarget;
 import robostar.robocert.InModuleTarget;
 import robostar.robocert.ModuleTarget;
 import robostar.robocert.OperationTarget;
+import robostar.robocert.RoboCertPackage;
 import robostar.robocert.StateMachineTarget;
 import robostar.robocert.Target;
-import robostar.robocert.util.RoboCertSwitch;
+import robostar.robocert.util.ClassDispatcher;
 
 /**
  * Resolves the elements of RoboCert targets.
@@ -28,6 +29,23 @@ import robostar.robocert.util.RoboCertSwitch;
  * @author Matt Windsor
  */
 public class TargetElementResolver {
+
+  private static final int CASE_IN_MODULE = 0;
+  private static final int CASE_IN_CONTROLLER = 1;
+  private static final int CASE_MODULE = 2;
+  private static final int CASE_CONTROLLER = 3;
+  private static final int CASE_STATE_MACHINE = 4;
+  private static final int CASE_OPERATION = 5;
+
+  private static final ClassDispatcher RESOLVE = ClassDispatcher
+      .builder(RoboCertPackage.eINSTANCE)
+      .on(RoboCertPackage.Literals.IN_MODULE_TARGET, CASE_IN_MODULE)
+      .on(RoboCertPackage.Literals.IN_CONTROLLER_TARGET, CASE_IN_CONTROLLER)
+      .on(RoboCertPackage.Literals.MODULE_TARGET, CASE_MODULE)
+      .on(RoboCertPackage.Literals.CONTROLLER_TARGET, CASE_CONTROLLER)
+      .on(RoboCertPackage.Literals.STATE_MACHINE_TARGET, CASE_STATE_MACHINE)
+      .on(RoboCertPackage.Literals.OPERATION_TARGET, CASE_OPERATION).build();
+
   /* This used to be an innate derived attribute of Target, but implementing it on the metamodel
   side (which has poor support for inheritance of derived attributes) involved overriding the code
   with custom implementations in a way that is flimsy when exposed to Maven builds.  As such, we now
@@ -41,57 +59,20 @@ public class TargetElementResolver {
    * target, or the container of a collection target).
    */
   public NamedElement resolve(Target t) {
-    final var elem = new Switch().doSwitch(t);
-
-    // Safety valve in case we forget to add an override.
-    if (elem == null) {
-      throw new UnsupportedOperationException(
+    // NOTE: add any new Targets as they are defined.
+    return switch (RESOLVE.dispatch(t)) {
+      // Collection targets
+      case CASE_IN_MODULE -> ((InModuleTarget) t).getModule();
+      case CASE_IN_CONTROLLER -> ((InControllerTarget) t).getController();
+      // Component targets
+      case CASE_MODULE -> ((ModuleTarget) t).getModule();
+      case CASE_CONTROLLER -> ((ControllerTarget) t).getController();
+      case CASE_STATE_MACHINE -> ((StateMachineTarget) t).getStateMachine();
+      case CASE_OPERATION -> ((OperationTarget) t).getOperation();
+      // Safety valve in case we forget to add a case.
+      default -> throw new UnsupportedOperationException(
           "Tried to resolve the element of a target %s that is not yet supported.  This is an internal error.".formatted(
               t));
-    }
-
-    return elem;
-  }
-
-  private static class Switch extends RoboCertSwitch<NamedElement> {
-    // NOTE: add any new Targets as they are defined.
-
-    //
-    // Collection targets
-    //
-
-    @Override
-    public NamedElement caseInModuleTarget(InModuleTarget t) {
-      return t.getModule();
-    }
-
-    @Override
-    public NamedElement caseInControllerTarget(InControllerTarget t) {
-      return t.getController();
-    }
-
-    //
-    // Component targets
-    //
-
-    @Override
-    public NamedElement caseModuleTarget(ModuleTarget t) {
-      return t.getModule();
-    }
-
-    @Override
-    public NamedElement caseControllerTarget(ControllerTarget t) {
-      return t.getController();
-    }
-
-    @Override
-    public NamedElement caseStateMachineTarget(StateMachineTarget t) {
-      return t.getStateMachine();
-    }
-
-    @Override
-    public NamedElement caseOperationTarget(OperationTarget t) {
-      return t.getOperation();
-    }
+    };
   }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.sets;
+
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * The denotation of a message set over a {@link MessageUniverse}.
+ *
+ * <p>A denotation is a set of cells of the universe, and whether it also includes the rest of the
+ * universe (every message whose shape the group never mentions).  This keeps the universe set,
+ * and differences from it, exact without enumerating every message the target could send.
+ *
+ * @param cells the cells in the set; callers must not modify this.
+ * @param rest  whether the set includes every message outside the cells of the universe.
+ * @author Matt Windsor
+ */
+public record MessageDenotation(BitSet cells, boolean rest) {
+
+  /**
+   * Constructs a denotation.
+   *
+   * @param cells the cells in the set; callers must not modify this.
+   * @param rest  whether the set includes every message outside the cells of the universe.
+   */
+  public MessageDenotation {
+    Objects.requireNonNull(cells);
+  }
+
+  /**
+   * Gets whether the set has no members.
+   *
+   * @return whether the set has no cells and excludes the rest.
+   */
+  public boolean isEmpty() {
+    return !rest && cells.isEmpty();
+  }
+
+  /**
+   * Takes the union of this set and another.
+   *
+   * @param other the other set.
+   * @return a fresh denotation of the union.
+   */
+  public MessageDenotation union(MessageDenotation other) {
+    final var it = (BitSet) cells.clone();
+    it.or(other.cells);
+    return new MessageDenotation(it, rest || other.rest);
+  }
+
+  /**
+   * Takes the intersection of this set and another.
+   *
+   * @param other the other set.
+   * @return a fresh denotation of the intersection.
+   */
+  public MessageDenotation inter(MessageDenotation other) {
+    final var it = (BitSet) cells.clone();
+    it.and(other.cells);
+    return new MessageDenotation(it, rest && other.rest);
+  }
+
+  /**
+   * Takes the difference of this set and another.
+   *
+   * @param other the set to remove.
+   * @return a fresh denotation of the difference.
+   */
+  public MessageDenotation diff(MessageDenotation other) {
+    final var it = (BitSet) cells.clone();
+    it.andNot(other.cells);
+    return new MessageDenotation(it, rest && !other.rest);
+  }
+}
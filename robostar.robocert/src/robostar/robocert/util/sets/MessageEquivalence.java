@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.sets;
+
+import java.util.Objects;
+import robostar.robocert.Message;
+import robostar.robocert.util.Fingerprinter;
+
+/**
+ * The equivalence under which two message specifications are the same member of a message set.
+ *
+ * <p>Two messages are equivalent if they have the same source and destination actors, and
+ * structurally equal topics and arguments.
+ *
+ * @param fingerprinter the fingerprinter used to compare topics and arguments.
+ * @author Matt Windsor
+ */
+record MessageEquivalence(Fingerprinter fingerprinter) {
+
+  /**
+   * Constructs a message equivalence.
+   *
+   * @param fingerprinter the fingerprinter used to compare topics and arguments.
+   */
+  MessageEquivalence {
+    Objects.requireNonNull(fingerprinter);
+  }
+
+  /**
+   * Hashes a message consistently with {@link #same(Message, Message)}.
+   *
+   * @param m the message to hash.
+   * @return the hash of {@code m}.
+   */
+  long key(Message m) {
+    var h = fingerprinter.fingerprint(m.getTopic());
+    for (var a : m.getArguments()) {
+      h = 31 * h + fingerprinter.fingerprint(a);
+    }
+    h = 31 * h + System.identityHashCode(m.getFrom());
+    return 31 * h + System.identityHashCode(m.getTo());
+  }
+
+  /**
+   * Checks whether two messages are equivalent.
+   *
+   * @param a the first message.
+   * @param b the second message.
+   * @return whether {@code a} and {@code b} denote the same member of message sets.
+   */
+  boolean same(Message a, Message b) {
+    if (a == b) {
+      return true;
+    }
+    if (a.getFrom() != b.getFrom() || a.getTo() != b.getTo()
+        || !fingerprinter.equal(a.getTopic(), b.getTopic())) {
+      return false;
+    }
+
+    final var aArgs = a.getArguments();
+    final var bArgs = b.getArguments();
+    if (aArgs.size() != bArgs.size()) {
+      return false;
+    }
+    for (var i = 0; i < aArgs.size(); i++) {
+      if (!fingerprinter.equal(aArgs.get(i), bArgs.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.sets;
+
+import com.google.inject.Inject;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import org.eclipse.emf.ecore.EObject;
+import robostar.robocert.BinaryMessageSet;
+import robostar.robocert.ExtensionalMessageSet;
+import robostar.robocert.Message;
+import robostar.robocert.MessageSet;
+import robostar.robocert.NamedMessageSet;
+import robostar.robocert.RefMessageSet;
+import robostar.robocert.RoboCertPackage;
+import robostar.robocert.SpecificationGroup;
+import robostar.robocert.util.ClassDispatcher;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.ModelCache;
+import robostar.robocert.util.StreamHelper;
+
+/**
+ * Evaluates message sets to their concrete contents.
+ *
+ * <p>Each set denotes a union of cells of the {@link MessageUniverse} of its specification group,
+ * plus possibly every message the group does not mention, represented as a
+ * {@link MessageDenotation}; set operators become bitwise operations over these.  Universes, and
+ * the denotations of named sets, are cached on the group and rebuilt whenever anything inside it
+ * changes.  This lets us check membership and emptiness without going through CSP, subject to the
+ * assumptions described on {@link MessageUniverse}.
+ *
+ * @param fingerprinter the fingerprinter used to compare messages.
+ * @author Matt Windsor
+ */
+public record MessageSetEvaluator(Fingerprinter fingerprinter) {
+
+  private static final int CASE_EXTENSIONAL = 0;
+  private static final int CASE_UNIVERSE = 1;
+  private static final int CASE_BINARY = 2;
+  private static final int CASE_REF = 3;
+
+  private static final ClassDispatcher EVALUATE = ClassDispatcher
+      .builder(RoboCertPackage.eINSTANCE)
+      .on(RoboCertPackage.Literals.EXTENSIONAL_MESSAGE_SET, CASE_EXTENSIONAL)
+      .on(RoboCertPackage.Literals.UNIVERSE_MESSAGE_SET, CASE_UNIVERSE)
+      .on(RoboCertPackage.Literals.BINARY_MESSAGE_SET, CASE_BINARY)
+      .on(RoboCertPackage.Literals.REF_MESSAGE_SET, CASE_REF).build();
+
+  private static final ModelCache<SpecificationGroup, MessageUniverse> UNIVERSES =
+      new ModelCache<>(x -> true);
+
+  /**
+   * Constructs a message set evaluator.
+   *
+   * @param fingerprinter the fingerprinter used to compare messages.
+   */
+  @Inject
+  public MessageSetEvaluator {
+    Objects.requireNonNull(fingerprinter);
+  }
+
+  /**
+   * Gets the universe of messages of a specification group.
+   *
+   * <p>This is refined by every message mentioned anywhere in the group, including in its
+   * interactions and its message sets.
+   *
+   * @param group the group in question.
+   * @return the (cached) universe of {@code group}.
+   */
+  public MessageUniverse universe(SpecificationGroup group) {
+    return UNIVERSES.get(group, (g, watch) -> {
+      // Any change inside the group may add, remove, or merge members.
+      final var messages = StreamHelper.allContents(g).peek(watch)
+          .filter(Message.class::isInstance).map(Message.class::cast).toList();
+      return new MessageUniverse(messages, fingerprinter);
+    });
+  }
+
+  /**
+   * Evaluates a message set.
+   *
+   * @param set the set to evaluate, which must be inside a specification group.
+   * @return the denotation of {@code set} over the universe of the set's group.
+   * @throws IllegalArgumentException if the set is not inside a specification group, or refers to
+   *                                  itself through named sets.
+   */
+  public MessageDenotation evaluate(MessageSet set) {
+    final var universe = universe(groupOf(set));
+    return evaluate(set, universe, new HashSet<>());
+  }
+
+  /**
+   * Checks whether a message set contains a message.
+   *
+   * @param set the set to inspect, which must be inside a specification group.
+   * @param m   the message to find (which need not be inside the same group, and may have
+   *            wildcard arguments).
+   * @return whether every message matching {@code m} is a member of {@code set}.
+   */
+  public boolean contains(MessageSet set, Message m) {
+    final var universe = universe(groupOf(set));
+    final var it = evaluate(set, universe, new HashSet<>());
+    if (!universe.mentions(m)) {
+      return it.rest();
+    }
+    final var cells = universe.cells(m);
+    cells.andNot(it.cells());
+    return cells.isEmpty();
+  }
+
+  /**
+   * Checks whether a message set is empty.
+   *
+   * @param set the set to inspect, which must be inside a specification group.
+   * @return whether {@code set} has no members.
+   */
+  public boolean isEmpty(MessageSet set) {
+    return evaluate(set).isEmpty();
+  }
+
+  private MessageDenotation evaluate(MessageSet set, MessageUniverse universe,
+      Set<NamedMessageSet> visiting) {
+    return switch (EVALUATE.dispatch(set)) {
+      case CASE_EXTENSIONAL -> {
+        final var it = new BitSet(universe.size());
+        // Every message in the group is mentioned, so none of these lie in the rest.
+        for (var m : ((ExtensionalMessageSet) set).getMessages()) {
+          it.or(universe.cells(m));
+        }
+        yield new MessageDenotation(it, false);
+      }
+      case CASE_UNIVERSE -> universe.all();
+      case CASE_BINARY -> {
+        final var b = (BinaryMessageSet) set;
+        final var lhs = evaluate(b.getLhs(), universe, visiting);
+        final var rhs = evaluate(b.getRhs(), universe, visiting);
+        yield switch (b.getOperator()) {
+          case UNION -> lhs.union(rhs);
+          case INTERSECTION -> lhs.inter(rhs);
+          case DIFFERENCE -> lhs.diff(rhs);
+        };
+      }
+      // Denotations are never modified in place, so the memoised one can be shared.
+      case CASE_REF -> named(((RefMessageSet) set).getSet(), universe, visiting);
+      // Safety valve in case we forget to add a case.
+      default -> throw new UnsupportedOperationException(
+          "Tried to evaluate a message set %s that is not yet supported.  This is an internal error.".formatted(
+              set));
+    };
+  }
+
+  private MessageDenotation named(NamedMessageSet set, MessageUniverse universe,
+      Set<NamedMessageSet> visiting) {
+    // Not computeIfAbsent, as named sets can refer to other named sets.
+    final var memo = universe.named();
+    final var existing = memo.get(set);
+    if (existing != null) {
+      return existing;
+    }
+    if (!visiting.add(set)) {
+      throw new IllegalArgumentException("message set %s refers to itself".formatted(set));
+    }
+    final var it = evaluate(set.getSet(), universe, visiting);
+    visiting.remove(set);
+    memo.put(set, it);
+    return it;
+  }
+
+  private SpecificationGroup groupOf(EObject e) {
+    for (var x = e; x != null; x = x.eContainer()) {
+      if (x instanceof SpecificationGroup g) {
+        return g;
+      }
+    }
+    throw new IllegalArgumentException(
+        "message set %s is not in a specification group".formatted(e));
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.sets;
+
+import com.google.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import robostar.robocert.BinaryMessageSet;
+import robostar.robocert.BinarySetOperator;
+import robostar.robocert.ExtensionalMessageSet;
+import robostar.robocert.Message;
+import robostar.robocert.MessageSet;
+import robostar.robocert.NamedMessageSet;
+import robostar.robocert.RefMessageSet;
+import robostar.robocert.RoboCertPackage;
+import robostar.robocert.WildcardValueSpecification;
+import robostar.robocert.util.ClassDispatcher;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.ModelCache;
+import robostar.robocert.util.SetFactory;
+import robostar.robocert.util.StreamHelper;
+
+/**
+ * Rewrites message sets into a smaller, canonical form.
+ *
+ * <p>The simplifier works symbolically, without expanding references to named sets.  It:
+ *
+ * <ul>
+ *   <li>flattens nested unions and intersections;</li>
+ *   <li>merges the extensional operands of each union or intersection into one, and removes
+ *   duplicate messages from extensional sets;</li>
+ *   <li>(as messages with wildcard arguments can overlap messages they are not equal to, leaves
+ *   extensional operands with wildcards out of intersection merges, and only removes equal
+ *   messages when subtracting them);</li>
+ *   <li>removes duplicate operands, such as repeated references to the same named set;</li>
+ *   <li>applies the identity and annihilation laws for the empty and universe sets;</li>
+ *   <li>applies absorption ({@code A or (A and B) = A}, and dually);</li>
+ *   <li>and simplifies differences whose operands are empty, universal, equal, or extensional.</li>
+ * </ul>
+ *
+ * <p>Results are fresh trees that share no containment with the input, with operands in a stable
+ * order (any merged extensional set first, then the remaining operands in their original order).
+ *
+ * @param setFactory    factory used to build the simplified sets.
+ * @param fingerprinter fingerprinter used to compare messages.
+ * @author Matt Windsor
+ */
+public record MessageSetSimplifier(SetFactory setFactory, Fingerprinter fingerprinter) {
+
+  private static final int CASE_EXTENSIONAL = 0;
+  private static final int CASE_UNIVERSE = 1;
+  private static final int CASE_BINARY = 2;
+  private static final int CASE_REF = 3;
+
+  private static final ClassDispatcher SIMPLIFY = ClassDispatcher
+      .builder(RoboCertPackage.eINSTANCE)
+      .on(RoboCertPackage.Literals.EXTENSIONAL_MESSAGE_SET, CASE_EXTENSIONAL)
+      .on(RoboCertPackage.Literals.UNIVERSE_MESSAGE_SET, CASE_UNIVERSE)
+      .on(RoboCertPackage.Literals.BINARY_MESSAGE_SET, CASE_BINARY)
+      .on(RoboCertPackage.Literals.REF_MESSAGE_SET, CASE_REF).build();
+
+  private static final ModelCache<NamedMessageSet, MessageSet> NAMED = new ModelCache<>(x -> true);
+
+  /**
+   * Constructs a message set simplifier.
+   *
+   * @param setFactory    factory used to build the simplified sets.
+   * @param fingerprinter fingerprinter used to compare messages.
+   */
+  @Inject
+  public MessageSetSimplifier {
+    Objects.requireNonNull(setFactory);
+    Objects.requireNonNull(fingerprinter);
+  }
+
+  /**
+   * Simplifies the body of a named message set, caching the result on the named set.
+   *
+   * <p>The cached result is discarded when anything inside the named set, or anything its messages
+   * refer to, changes.  As it is shared, callers must not modify it.
+   *
+   * @param set the named set to simplify.
+   * @return the simplified body of {@code set}.
+   */
+  public MessageSet simplify(NamedMessageSet set) {
+    return NAMED.get(set, (n, watch) -> {
+      StreamHelper.allContents(n).forEach(e -> {
+        if (e instanceof Message m) {
+          fingerprinter.fingerprint(m, watch);
+        } else {
+          watch.accept(e);
+        }
+      });
+      return simplify(n.getSet());
+    });
+  }
+
+  /**
+   * Simplifies a message set.
+   *
+   * @param set the set to simplify.
+   * @return a fresh set with the same denotation as {@code set}.
+   */
+  public MessageSet simplify(MessageSet set) {
+    return switch (SIMPLIFY.dispatch(set)) {
+      case CASE_EXTENSIONAL -> extensional(distinct(((ExtensionalMessageSet) set).getMessages()));
+      case CASE_UNIVERSE -> setFactory.universe();
+      case CASE_REF -> EcoreUtil.copy(set);
+      case CASE_BINARY -> {
+        final var b = (BinaryMessageSet) set;
+        yield switch (b.getOperator()) {
+          case UNION -> union(operands(b, BinarySetOperator.UNION));
+          case INTERSECTION -> inter(operands(b, BinarySetOperator.INTERSECTION));
+          case DIFFERENCE -> diff(simplify(b.getLhs()), simplify(b.getRhs()));
+        };
+      }
+      // Safety valve in case we forget to add a case.
+      default -> throw new UnsupportedOperationException(
+          "Tried to simplify a message set %s that is not yet supported.  This is an internal error.".formatted(
+              set));
+    };
+  }
+
+  //
+  // Operators
+  //
+
+  private MessageSet union(List<MessageSet> ops) {
+    if (ops.stream().anyMatch(this::isUniverse)) {
+      return setFactory.universe();
+    }
+
+    final var messages = new ArrayList<Message>();
+    final var rest = new ArrayList<MessageSet>();
+    for (var op : ops) {
+      if (op instanceof ExtensionalMessageSet e) {
+        messages.addAll(e.getMessages());
+      } else {
+        addDistinct(rest, op);
+      }
+    }
+    rest.removeIf(x -> absorbed(x, BinarySetOperator.INTERSECTION, rest));
+
+    return build(BinarySetOperator.UNION, messages.isEmpty() ? null : distinct(messages), rest);
+  }
+
+  private MessageSet inter(List<MessageSet> ops) {
+    if (ops.stream().anyMatch(this::isEmpty)) {
+      return setFactory.empty();
+    }
+
+    List<Message> messages = null;
+    final var rest = new ArrayList<MessageSet>();
+    for (var op : ops) {
+      if (op instanceof ExtensionalMessageSet e && !hasWildcards(e.getMessages())) {
+        messages = messages == null ? distinct(e.getMessages()) : common(messages, e.getMessages());
+      } else if (!isUniverse(op)) {
+        addDistinct(rest, op);
+      }
+    }
+    if (messages != null && messages.isEmpty()) {
+      return setFactory.empty();
+    }
+    rest.removeIf(x -> absorbed(x, BinarySetOperator.UNION, rest));
+
+    if (messages == null && rest.isEmpty()) {
+      return setFactory.universe();
+    }
+    return build(BinarySetOperator.INTERSECTION, messages, rest);
+  }
+
+  private MessageSet diff(MessageSet l, MessageSet r) {
+    if (isEmpty(l) || isUniverse(r) || same(l, r)) {
+      return setFactory.empty();
+    }
+    if (isEmpty(r)) {
+      return l;
+    }
+    if (l instanceof ExtensionalMessageSet le && r instanceof ExtensionalMessageSet re) {
+      final var equiv = new MessageEquivalence(fingerprinter);
+      final var kept = le.getMessages().stream()
+          .filter(m -> re.getMessages().stream().noneMatch(n -> equiv.same(m, n))).toList();
+      if (kept.isEmpty()) {
+        return setFactory.empty();
+      }
+      if (!hasWildcards(kept) && !hasWildcards(re.getMessages())) {
+        return extensional(kept);
+      }
+      // The remaining messages may still overlap those being removed.
+      return setFactory.diff(extensional(kept), r);
+    }
+    return setFactory.diff(l, r);
+  }
+
+  /**
+   * Builds a left-nested chain of an operator over an optional extensional set and other operands.
+   */
+  private MessageSet build(BinarySetOperator op, List<Message> messages, List<MessageSet> rest) {
+    final var ops = new ArrayList<MessageSet>(rest.size() + 1);
+    if (messages != null) {
+      ops.add(extensional(messages));
+    }
+    ops.addAll(rest);
+
+    if (ops.isEmpty()) {
+      // Only unions get here, as intersections with no operands are universal.
+      return setFactory.empty();
+    }
+    var it = ops.get(0);
+    for (var i = 1; i < ops.size(); i++) {
+      it = setFactory.binary(it, op, ops.get(i));
+    }
+    return it;
+  }
+
+  /**
+   * Simplifies the operands of a chain of one associative operator, flattening nested chains.
+   */
+  private List<MessageSet> operands(BinaryMessageSet set, BinarySetOperator op) {
+    final var out = new ArrayList<MessageSet>();
+    flatten(simplify(set.getLhs()), op, out);
+    flatten(simplify(set.getRhs()), op, out);
+    return out;
+  }
+
+  private void flatten(MessageSet set, BinarySetOperator op, List<MessageSet> out) {
+    if (set instanceof BinaryMessageSet b && b.getOperator() == op) {
+      flatten(b.getLhs(), op, out);
+      flatten(b.getRhs(), op, out);
+    } else {
+      out.add(set);
+    }
+  }
+
+  /**
+   * Checks whether an operand of a chain is absorbed by another operand, ie, it is a chain of the
+   * dual operator with one of the other operands among its own.
+   */
+  private boolean absorbed(MessageSet x, BinarySetOperator dual, List<MessageSet> ops) {
+    if (!(x instanceof BinaryMessageSet b && b.getOperator() == dual)) {
+      return false;
+    }
+    final var inner = new ArrayList<MessageSet>();
+    flatten(b, dual, inner);
+    return ops.stream().anyMatch(y -> y != x && inner.stream().anyMatch(z -> same(y, z)));
+  }
+
+  //
+  // Extensional sets
+  //
+
+  private ExtensionalMessageSet extensional(List<Message> messages) {
+    return setFactory.extensional(messages.stream().map(EcoreUtil::copy).toList());
+  }
+
+  private List<Message> distinct(List<Message> messages) {
+    final var equiv = new MessageEquivalence(fingerprinter);
+    final var out = new ArrayList<Message>(messages.size());
+    for (var m : messages) {
+      if (out.stream().noneMatch(n -> equiv.same(m, n))) {
+        out.add(m);
+      }
+    }
+    return out;
+  }
+
+  private boolean hasWildcards(List<Message> messages) {
+    return messages.stream().anyMatch(
+        m -> m.getArguments().stream().anyMatch(WildcardValueSpecification.class::isInstance));
+  }
+
+  private List<Message> common(List<Message> xs, List<Message> ys) {
+    final var equiv = new MessageEquivalence(fingerprinter);
+    return xs.stream().filter(m -> ys.stream().anyMatch(n -> equiv.same(m, n))).toList();
+  }
+
+  //
+  // Comparisons
+  //
+
+  private boolean isEmpty(MessageSet set) {
+    return set instanceof ExtensionalMessageSet e && e.getMessages().isEmpty();
+  }
+
+  private boolean isUniverse(MessageSet set) {
+    return SIMPLIFY.dispatch(set) == CASE_UNIVERSE;
+  }
+
+  private void addDistinct(List<MessageSet> sets, MessageSet set) {
+    if (sets.stream().noneMatch(x -> same(x, set))) {
+      sets.add(set);
+    }
+  }
+
+  /**
+   * Checks whether two simplified sets are syntactically the same, up to the order of messages in
+   * extensional sets.
+   */
+  private boolean same(MessageSet a, MessageSet b) {
+    final var kind = SIMPLIFY.dispatch(a);
+    if (kind != SIMPLIFY.dispatch(b)) {
+      return false;
+    }
+    return switch (kind) {
+      case CASE_EXTENSIONAL -> {
+        final var xs = ((ExtensionalMessageSet) a).getMessages();
+        final var ys = ((ExtensionalMessageSet) b).getMessages();
+        yield xs.size() == ys.size() && common(xs, ys).size() == xs.size();
+      }
+      case CASE_UNIVERSE -> true;
+      case CASE_REF -> ((RefMessageSet) a).getSet() == ((RefMessageSet) b).getSet();
+      case CASE_BINARY -> {
+        final var x = (BinaryMessageSet) a;
+        final var y = (BinaryMessageSet) b;
+        yield x.getOperator() == y.getOperator() && same(x.getLhs(), y.getLhs()) && same(
+            x.getRhs(), y.getRhs());
+      }
+      default -> false;
+    };
+  }
+}
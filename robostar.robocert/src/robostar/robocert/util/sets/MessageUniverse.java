@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.sets;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.emf.ecore.EObject;
+import robostar.robocert.EventTopic;
+import robostar.robocert.Message;
+import robostar.robocert.MessageTopic;
+import robostar.robocert.NamedMessageSet;
+import robostar.robocert.OperationTopic;
+import robostar.robocert.ValueSpecification;
+import robostar.robocert.WildcardValueSpecification;
+import robostar.robocert.util.Fingerprinter;
+
+/**
+ * A finite partition of all messages, refined just enough to tell apart the messages mentioned in
+ * a specification group.
+ *
+ * <p>Messages mentioned in the group are grouped into <i>shapes</i>: two messages have the same
+ * shape if they have the same source and destination actors, topics over the same (or
+ * structurally equal) events or operation, and the same number of arguments.  Each argument position of a shape has the distinct concrete values
+ * mentioned at that position, plus one more slot standing for every other value.  The
+ * <i>cells</i> of the universe are the combinations of these slots over all shapes, each with a
+ * dense index; a mentioned message covers one cell per slot combination it matches, with wildcard
+ * arguments matching every slot.  Messages of no mentioned shape, including every message the
+ * group never talks about, lie outside all cells, in the <i>rest</i> of the universe.
+ *
+ * <p>Every message set over the group is then a union of cells, plus possibly the rest (see
+ * {@link MessageDenotation}).  This is exact, up to two assumptions: argument expressions are
+ * compared structurally (so {@code e(N)} and {@code e(3)} are different even if {@code N} is 3),
+ * and every cell and the rest are taken to be inhabited (so a set that exhausts a finite argument
+ * type, such as {@code {e(*)} \ {e(true), e(false)}}, is not seen as empty).
+ *
+ * <p>Universes are snapshots of their group; {@link MessageSetEvaluator} rebuilds them when the
+ * group changes.
+ *
+ * @author Matt Windsor
+ */
+public final class MessageUniverse {
+
+  private final Fingerprinter fingerprinter;
+  private final List<Shape> shapes = new ArrayList<>();
+  private final Map<Long, List<Shape>> byKey = new HashMap<>();
+  private final int size;
+
+  // Denotations of named sets, which live exactly as long as the universe they index into.
+  private final Map<NamedMessageSet, MessageDenotation> named = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a universe.
+   *
+   * @param messages      the messages from which to build the universe, in order.
+   * @param fingerprinter the fingerprinter used to compare topics and arguments.
+   */
+  public MessageUniverse(List<Message> messages, Fingerprinter fingerprinter) {
+    this.fingerprinter = fingerprinter;
+
+    for (var m : messages) {
+      var shape = shapeOf(m);
+      if (shape == null) {
+        shape = new Shape(m);
+        byKey.computeIfAbsent(key(m), k -> new ArrayList<>(1)).add(shape);
+        shapes.add(shape);
+      }
+      shape.mention(m);
+    }
+
+    var base = 0;
+    for (var s : shapes) {
+      s.base = base;
+      base = Math.addExact(base, s.cells());
+    }
+    size = base;
+  }
+
+  /**
+   * Gets the number of cells in the universe.
+   *
+   * @return the size of the universe, not counting the rest.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets whether a message has the shape of a message mentioned in the group.
+   *
+   * @param m the message to look up.
+   * @return whether {@code m} lies in cells of the universe, rather than in the rest.
+   */
+  public boolean mentions(Message m) {
+    return shapeOf(m) != null;
+  }
+
+  /**
+   * Gets the cells covered by a message.
+   *
+   * @param m the message to look up.
+   * @return a fresh bitset of the cells matched by {@code m}, empty if {@code m} lies in the rest.
+   */
+  public BitSet cells(Message m) {
+    final var it = new BitSet(size);
+    final var shape = shapeOf(m);
+    if (shape != null) {
+      shape.cover(m, it);
+    }
+    return it;
+  }
+
+  /**
+   * Gets a message of the same shape as the messages in a cell.
+   *
+   * <p>All messages in a cell share their actors and topic, so this is enough to work out which
+   * actors and channels the cell involves.
+   *
+   * @param cell the index of the cell, which must be less than {@link #size()}.
+   * @return the first message in the group with the shape of {@code cell}.
+   */
+  public Message shape(int cell) {
+    for (var s : shapes) {
+      if (cell < s.base + s.cells()) {
+        return s.representative;
+      }
+    }
+    throw new IndexOutOfBoundsException(cell);
+  }
+
+  /**
+   * Gets the denotation of the set of all messages.
+   *
+   * @return a fresh denotation with every cell, and the rest.
+   */
+  public MessageDenotation all() {
+    final var it = new BitSet(size);
+    it.set(0, size);
+    return new MessageDenotation(it, true);
+  }
+
+  /**
+   * Gets the memo table for named message sets over this universe.
+   *
+   * @return a mutable, thread-safe map from named sets to their denotations.
+   */
+  Map<NamedMessageSet, MessageDenotation> named() {
+    return named;
+  }
+
+  private Shape shapeOf(Message m) {
+    final var candidates = byKey.get(key(m));
+    if (candidates != null) {
+      for (var s : candidates) {
+        if (s.matches(m)) {
+          return s;
+        }
+      }
+    }
+    return null;
+  }
+
+  private long key(Message m) {
+    var h = topicKey(m.getTopic());
+    h = 31 * h + m.getArguments().size();
+    h = 31 * h + System.identityHashCode(m.getFrom());
+    return 31 * h + System.identityHashCode(m.getTo());
+  }
+
+  // Topics are compared on what they refer to, not as objects: each topic's container is its
+  // message, which structural equality would compare as well.
+
+  private long topicKey(MessageTopic t) {
+    if (t instanceof EventTopic e) {
+      return 31 * fingerprinter.fingerprint(e.getEfrom()) + fingerprinter.fingerprint(e.getEto());
+    }
+    if (t instanceof OperationTopic o) {
+      return fingerprinter.fingerprint(o.getOperation());
+    }
+    return 0;
+  }
+
+  private boolean sameTopic(MessageTopic a, MessageTopic b) {
+    if (a instanceof EventTopic x && b instanceof EventTopic y) {
+      return same(x.getEfrom(), y.getEfrom()) && same(x.getEto(), y.getEto());
+    }
+    if (a instanceof OperationTopic x && b instanceof OperationTopic y) {
+      return same(x.getOperation(), y.getOperation());
+    }
+    return a == b;
+  }
+
+  private boolean same(EObject a, EObject b) {
+    return a == b || fingerprinter.equal(a, b);
+  }
+
+  /**
+   * The messages sharing actors, topic, and arity, with the concrete values mentioned at each
+   * argument position.
+   */
+  private final class Shape {
+
+    private final Message representative;
+    private final List<List<ValueSpecification>> values = new ArrayList<>();
+    private int base;
+
+    private Shape(Message representative) {
+      this.representative = representative;
+      for (var i = 0; i < representative.getArguments().size(); i++) {
+        values.add(new ArrayList<>());
+      }
+    }
+
+    private boolean matches(Message m) {
+      return m.getFrom() == representative.getFrom() && m.getTo() == representative.getTo()
+          && m.getArguments().size() == values.size()
+          && sameTopic(m.getTopic(), representative.getTopic());
+    }
+
+    private void mention(Message m) {
+      final var args = m.getArguments();
+      for (var i = 0; i < args.size(); i++) {
+        final var a = args.get(i);
+        if (!(a instanceof WildcardValueSpecification) && slot(i, a) == values.get(i).size()) {
+          values.get(i).add(a);
+        }
+      }
+    }
+
+    private int cells() {
+      var it = 1;
+      for (var v : values) {
+        it = Math.multiplyExact(it, v.size() + 1);
+      }
+      return it;
+    }
+
+    /**
+     * Gets the slot of a concrete value at an argument position; the last slot is 'other'.
+     */
+    private int slot(int position, ValueSpecification a) {
+      final var vs = values.get(position);
+      for (var i = 0; i < vs.size(); i++) {
+        if (fingerprinter.equal(vs.get(i), a)) {
+          return i;
+        }
+      }
+      return vs.size();
+    }
+
+    private void cover(Message m, BitSet out) {
+      // Mixed-radix enumeration over the slots each argument matches.
+      final var args = m.getArguments();
+      final var n = args.size();
+      final var lo = new int[n];
+      final var hi = new int[n];
+      for (var i = 0; i < n; i++) {
+        final var a = args.get(i);
+        if (a instanceof WildcardValueSpecification) {
+          hi[i] = values.get(i).size();
+        } else {
+          lo[i] = hi[i] = slot(i, a);
+        }
+      }
+
+      final var digits = lo.clone();
+      while (true) {
+        var cell = 0;
+        for (var i = 0; i < n; i++) {
+          cell = cell * (values.get(i).size() + 1) + digits[i];
+        }
+        out.set(base + cell);
+
+        var i = n - 1;
+        while (0 <= i && digits[i] == hi[i]) {
+          digits[i] = lo[i];
+          i--;
+        }
+        if (i < 0) {
+          return;
+        }
+        digits[i]++;
+      }
+    }
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.time;
+
+import circus.robocalc.robochart.Expression;
+import com.google.inject.Inject;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import robostar.robocert.BlockFragment;
+import robostar.robocert.BranchFragment;
+import robostar.robocert.DeadlineFragment;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+import robostar.robocert.InteractionOperand;
+import robostar.robocert.LoopFragment;
+import robostar.robocert.OccurrenceFragment;
+import robostar.robocert.RoboCertPackage;
+import robostar.robocert.WaitOccurrence;
+import robostar.robocert.util.ClassDispatcher;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.ModelCache;
+import robostar.robocert.util.StreamHelper;
+import robostar.robocert.util.reduce.GuardPruner;
+
+/**
+ * Works out how long the parts of an interaction can take, and how far their clocks must count.
+ *
+ * <p>Messages take no time themselves, but time can pass before any of them; waits take exactly
+ * their duration; deadlocks never complete; until fragments can spend any time on their
+ * intra-messages before their bodies.  Deadlines cap the span of their bodies, loops repeat
+ * them between their bounds, alts and xalts take the span of any operand not statically disabled
+ * (see {@link GuardPruner#enabled(InteractionOperand)}), and pars take the span of their slowest
+ * branch.  Durations, deadlines, and loop bounds are folded under the group's constants; anything
+ * that does not fold is treated as unknown, widening the spans that depend on it.
+ *
+ * <p>Results are cached on interactions in groups, and recomputed when anything in the
+ * interaction or its group changes.
+ *
+ * @param folder folder used to evaluate durations, deadlines, and loop bounds.
+ * @param pruner pruner used to find statically disabled operands.
+ * @author Matt Windsor
+ */
+public record ClockBoundAnalyser(ExpressionFolder folder, GuardPruner pruner) {
+
+  private static final int CASE_OCCURRENCE = 0;
+  private static final int CASE_MESSAGE = 1;
+  private static final int CASE_DEADLOCK = 2;
+  private static final int CASE_WAIT = 3;
+  private static final int CASE_OPT = 4;
+  private static final int CASE_LOOP = 5;
+  private static final int CASE_DEADLINE = 6;
+  private static final int CASE_UNTIL = 7;
+  private static final int CASE_CHOICE = 8;
+  private static final int CASE_PAR = 9;
+
+  private static final ClassDispatcher ANALYSE = ClassDispatcher
+      .builder(RoboCertPackage.eINSTANCE)
+      .on(RoboCertPackage.Literals.OCCURRENCE_FRAGMENT, CASE_OCCURRENCE)
+      .on(RoboCertPackage.Literals.MESSAGE_OCCURRENCE, CASE_MESSAGE)
+      .on(RoboCertPackage.Literals.DEADLOCK_OCCURRENCE, CASE_DEADLOCK)
+      .on(RoboCertPackage.Literals.WAIT_OCCURRENCE, CASE_WAIT)
+      .on(RoboCertPackage.Literals.OPT_FRAGMENT, CASE_OPT)
+      .on(RoboCertPackage.Literals.LOOP_FRAGMENT, CASE_LOOP)
+      .on(RoboCertPackage.Literals.DEADLINE_FRAGMENT, CASE_DEADLINE)
+      .on(RoboCertPackage.Literals.UNTIL_FRAGMENT, CASE_UNTIL)
+      .on(RoboCertPackage.Literals.ALT_FRAGMENT, CASE_CHOICE)
+      .on(RoboCertPackage.Literals.XALT_FRAGMENT, CASE_CHOICE)
+      .on(RoboCertPackage.Literals.PAR_FRAGMENT, CASE_PAR).build();
+
+  private static final ModelCache<Interaction, ClockBounds> CACHE = new ModelCache<>(x -> true);
+
+  /**
+   * Constructs a clock bound analyser.
+   *
+   * @param folder folder used to evaluate durations, deadlines, and loop bounds.
+   * @param pruner pruner used to find statically disabled operands.
+   */
+  @Inject
+  public ClockBoundAnalyser {
+    Objects.requireNonNull(folder);
+    Objects.requireNonNull(pruner);
+  }
+
+  /**
+   * Analyses an interaction.
+   *
+   * @param it the interaction to analyse.
+   * @return the (cached) clock bounds of {@code it}.
+   */
+  public ClockBounds analyse(Interaction it) {
+    final var group = it.getGroup();
+    final var result = CACHE.get(it, (x, watch) -> {
+      StreamHelper.allContents(x).forEach(watch);
+      if (group != null) {
+        // Constants, and so durations and guards, can change anywhere in the group.
+        watch.accept(group);
+        StreamHelper.allContents(group).forEach(watch);
+      }
+      return new Walker(x).walk();
+    });
+    if (group == null) {
+      // Moving the interaction into a group can bring constants into scope, but we can't watch for
+      // that.
+      CACHE.invalidate(it);
+    }
+    return result;
+  }
+
+  /**
+   * Analyses an interaction, failing if any of its deadlines can never be met.
+   *
+   * @param it the interaction to analyse.
+   * @return the (cached) clock bounds of {@code it}.
+   * @throws IllegalArgumentException if {@code it} has an infeasible deadline.
+   */
+  public ClockBounds requireFeasible(Interaction it) {
+    final var result = analyse(it);
+    if (!result.isFeasible()) {
+      final var d = result.infeasible().get(0);
+      throw new IllegalArgumentException(
+          "deadline %s in %s needs at least %d time units, but allows only %d".formatted(d,
+              it.getName(), result.span(d).min(), constant(d.getUnits()).getAsLong()));
+    }
+    return result;
+  }
+
+  private OptionalLong constant(Expression e) {
+    if (e == null) {
+      return OptionalLong.empty();
+    }
+    final var it = folder.integer(e);
+    return it.isPresent() && 0 <= it.getAsInt() ? OptionalLong.of(it.getAsInt())
+        : OptionalLong.empty();
+  }
+
+  /**
+   * Accumulates the spans of one interaction.
+   */
+  private final class Walker {
+
+    private final Interaction interaction;
+    private final Map<InteractionFragment, TimeSpan> spans = new IdentityHashMap<>();
+    private final List<DeadlineFragment> infeasible = new ArrayList<>();
+    private long clockBound;
+
+    private Walker(Interaction interaction) {
+      this.interaction = interaction;
+    }
+
+    private ClockBounds walk() {
+      final var span = fragments(interaction.getFragments());
+      return new ClockBounds(interaction, span, spans, clockBound, infeasible);
+    }
+
+    private TimeSpan fragments(List<InteractionFragment> fs) {
+      var it = TimeSpan.ZERO;
+      for (var f : fs) {
+        it = it.then(fragment(f));
+      }
+      return it;
+    }
+
+    private TimeSpan operand(InteractionOperand op) {
+      return op == null ? TimeSpan.ZERO : fragments(op.getFragments());
+    }
+
+    private TimeSpan fragment(InteractionFragment f) {
+      final var it = switch (ANALYSE.dispatch(f)) {
+        case CASE_OCCURRENCE -> occurrence((OccurrenceFragment) f);
+        case CASE_OPT -> new TimeSpan(0, operand(((BlockFragment) f).getBody()).max());
+        case CASE_LOOP -> loop((LoopFragment) f);
+        case CASE_DEADLINE -> deadline((DeadlineFragment) f);
+        // Any amount of time can pass during the intra-messages before the body.
+        case CASE_UNTIL -> TimeSpan.ANY.then(operand(((BlockFragment) f).getBody()));
+        case CASE_CHOICE -> choice((BranchFragment) f);
+        case CASE_PAR -> ((BranchFragment) f).getBranches().stream().map(this::operand)
+            .reduce(TimeSpan::with).orElse(TimeSpan.ZERO);
+        // Safety valve in case we forget to add a case.
+        default -> throw new UnsupportedOperationException(
+            "Tried to analyse a fragment %s that is not yet supported.  This is an internal error.".formatted(
+                f));
+      };
+      spans.put(f, it);
+      return it;
+    }
+
+    private TimeSpan occurrence(OccurrenceFragment f) {
+      final var occ = f.getOccurrence();
+      return switch (ANALYSE.dispatch(occ)) {
+        case CASE_MESSAGE -> TimeSpan.ANY;
+        case CASE_DEADLOCK -> TimeSpan.NEVER;
+        case CASE_WAIT -> {
+          final var units = constant(((WaitOccurrence) occ).getUnits());
+          if (units.isEmpty()) {
+            unknownClock();
+            yield TimeSpan.ANY;
+          }
+          boundClock(units.getAsLong());
+          yield new TimeSpan(units.getAsLong(), units.getAsLong());
+        }
+        // Safety valve in case we forget to add a case.
+        default -> throw new UnsupportedOperationException(
+            "Tried to analyse an occurrence %s that is not yet supported.  This is an internal error.".formatted(
+                occ));
+      };
+    }
+
+    private TimeSpan loop(LoopFragment f) {
+      final var body = operand(f.getBody());
+      final var bound = f.getBound();
+      if (bound == null) {
+        return body.repeat(0, TimeSpan.UNBOUNDED);
+      }
+
+      final var upper = bound.getUpper() == null ? OptionalLong.of(TimeSpan.UNBOUNDED)
+          : constant(bound.getUpper());
+      // The lower bound defaults to the upper bound.
+      final var lower = bound.getLower() == null ? upper : constant(bound.getLower());
+      final var max = upper.orElse(TimeSpan.UNBOUNDED);
+      return body.repeat(Math.min(lower.orElse(0), max), max);
+    }
+
+    private TimeSpan deadline(DeadlineFragment f) {
+      // Deadlines nested in the body come after this one in the interaction.
+      final var at = infeasible.size();
+      final var body = operand(f.getBody());
+      final var units = constant(f.getUnits());
+      if (units.isEmpty()) {
+        unknownClock();
+        return body;
+      }
+
+      final var limit = units.getAsLong();
+      if (limit < body.min()) {
+        infeasible.add(at, f);
+      }
+      final var it = body.capped(limit);
+      boundClock(Math.min(it.max(), limit));
+      return it;
+    }
+
+    private TimeSpan choice(BranchFragment f) {
+      // An alt with no live operands can't do anything, including complete.
+      return f.getBranches().stream().filter(op -> pruner.enabled(op).orElse(true))
+          .map(this::operand).reduce(TimeSpan::or).orElse(TimeSpan.NEVER);
+    }
+
+    private void boundClock(long value) {
+      if (0 <= clockBound) {
+        clockBound = Math.max(clockBound, value);
+      }
+    }
+
+    private void unknownClock() {
+      clockBound = -1;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.time;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import robostar.robocert.DeadlineFragment;
+import robostar.robocert.Interaction;
+import robostar.robocert.InteractionFragment;
+
+/**
+ * The results of a {@link ClockBoundAnalyser} on one interaction.
+ *
+ * @author Matt Windsor
+ */
+public final class ClockBounds {
+
+  private final Interaction interaction;
+  private final TimeSpan span;
+  private final Map<InteractionFragment, TimeSpan> spans;
+  private final long clockBound;
+  private final List<DeadlineFragment> infeasible;
+
+  /**
+   * Constructs a set of clock bounds.
+   *
+   * @param interaction the analysed interaction.
+   * @param span        the span of the whole interaction.
+   * @param spans       the span of each fragment, keyed by identity.
+   * @param clockBound  the clock bound, or -1 if it could not be determined.
+   * @param infeasible  the deadlines that no run of their body can meet.
+   */
+  ClockBounds(Interaction interaction, TimeSpan span, Map<InteractionFragment, TimeSpan> spans,
+      long clockBound, List<DeadlineFragment> infeasible) {
+    this.interaction = Objects.requireNonNull(interaction);
+    this.span = Objects.requireNonNull(span);
+    this.spans = Objects.requireNonNull(spans);
+    this.clockBound = clockBound;
+    this.infeasible = List.copyOf(infeasible);
+  }
+
+  /**
+   * Gets the analysed interaction.
+   *
+   * @return the interaction.
+   */
+  public Interaction interaction() {
+    return interaction;
+  }
+
+  /**
+   * Gets the span of the whole interaction.
+   *
+   * @return the time the interaction can take to complete.
+   */
+  public TimeSpan span() {
+    return span;
+  }
+
+  /**
+   * Gets the span of one fragment of the interaction.
+   *
+   * <p>Fragments inside statically disabled operands never run, and so have no span.
+   *
+   * @param f a fragment of the interaction.
+   * @return the time {@code f} can take to complete.
+   * @throws IllegalArgumentException if {@code f} is not in the interaction, or is disabled.
+   */
+  public TimeSpan span(InteractionFragment f) {
+    final var it = spans.get(f);
+    if (it == null) {
+      throw new IllegalArgumentException("fragment %s is not live in %s".formatted(f, interaction));
+    }
+    return it;
+  }
+
+  /**
+   * Gets the highest value that any clock of the interaction needs to count to.
+   *
+   * <p>Each wait needs a clock up to its duration, and each deadline a clock up to the smaller of
+   * its limit and the longest its body can take.  Clocks never need to count past this bound, so
+   * they can saturate there.
+   *
+   * @return the clock bound (zero if the interaction has no waits or deadlines), if every wait
+   * duration and deadline limit is constant.
+   */
+  public OptionalLong clockBound() {
+    return clockBound < 0 ? OptionalLong.empty() : OptionalLong.of(clockBound);
+  }
+
+  /**
+   * Gets the deadlines that can never be met, as their bodies take longer than their limits.
+   *
+   * @return the infeasible deadlines, in the order they appear in the interaction.
+   */
+  public List<DeadlineFragment> infeasible() {
+    return infeasible;
+  }
+
+  /**
+   * Gets whether every deadline in the interaction can be met.
+   *
+   * @return whether {@link #infeasible()} is empty.
+   */
+  public boolean isFeasible() {
+    return infeasible.isEmpty();
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.time;
+
+/**
+ * The range of time units that part of an interaction can take to complete.
+ *
+ * <p>Either bound can be {@link #UNBOUNDED}: an unbounded maximum means that time can pass
+ * without limit, and an unbounded minimum means that the part never completes.  Arithmetic
+ * saturates at {@link #UNBOUNDED}.
+ *
+ * @param min the fewest time units the part can take.
+ * @param max the most time units the part can take.
+ * @author Matt Windsor
+ */
+public record TimeSpan(long min, long max) {
+
+  /**
+   * The bound representing infinity.
+   */
+  public static final long UNBOUNDED = Long.MAX_VALUE;
+
+  /**
+   * The span of something that completes instantly.
+   */
+  public static final TimeSpan ZERO = new TimeSpan(0, 0);
+
+  /**
+   * The span of something that can complete at any time.
+   */
+  public static final TimeSpan ANY = new TimeSpan(0, UNBOUNDED);
+
+  /**
+   * The span of something that never completes.
+   */
+  public static final TimeSpan NEVER = new TimeSpan(UNBOUNDED, UNBOUNDED);
+
+  /**
+   * Constructs a time span.
+   *
+   * @param min the fewest time units the part can take.
+   * @param max the most time units the part can take.
+   */
+  public TimeSpan {
+    if (min < 0 || max < min) {
+      throw new IllegalArgumentException("invalid time span [%d, %d]".formatted(min, max));
+    }
+  }
+
+  /**
+   * Gets whether this span has a finite maximum.
+   *
+   * @return whether {@link #max()} is not {@link #UNBOUNDED}.
+   */
+  public boolean isBounded() {
+    return max != UNBOUNDED;
+  }
+
+  /**
+   * Sequences this span with another.
+   *
+   * @param next the span of what happens afterwards.
+   * @return the span of doing this, then {@code next}.
+   */
+  public TimeSpan then(TimeSpan next) {
+    return new TimeSpan(add(min, next.min), add(max, next.max));
+  }
+
+  /**
+   * Chooses between this span and another.
+   *
+   * @param other the span of the alternative.
+   * @return the span of doing either this or {@code other}.
+   */
+  public TimeSpan or(TimeSpan other) {
+    return new TimeSpan(Math.min(min, other.min), Math.max(max, other.max));
+  }
+
+  /**
+   * Runs this span alongside another, finishing when both have finished.
+   *
+   * @param other the span of the concurrent part.
+   * @return the span of doing this and {@code other} in parallel.
+   */
+  public TimeSpan with(TimeSpan other) {
+    return new TimeSpan(Math.max(min, other.min), Math.max(max, other.max));
+  }
+
+  /**
+   * Repeats this span.
+   *
+   * @param lower the fewest repetitions.
+   * @param upper the most repetitions, or {@link #UNBOUNDED}.
+   * @return the span of repeating this between {@code lower} and {@code upper} times.
+   */
+  public TimeSpan repeat(long lower, long upper) {
+    return new TimeSpan(mul(min, lower), mul(max, upper));
+  }
+
+  /**
+   * Caps the maximum of this span.
+   *
+   * @param limit the new maximum, if lower than the current one.
+   * @return this span, with a maximum of at most {@code limit} (but at least {@link #min()}).
+   */
+  public TimeSpan capped(long limit) {
+    return new TimeSpan(min, Math.max(min, Math.min(max, limit)));
+  }
+
+  private static long add(long x, long y) {
+    return (x == UNBOUNDED || y == UNBOUNDED || UNBOUNDED - x < y) ? UNBOUNDED : x + y;
+  }
+
+  private static long mul(long x, long y) {
+    // Doing nothing forever, or anything no times, takes no time.
+    if (x == 0 || y == 0) {
+      return 0;
+    }
+    return (x == UNBOUNDED || y == UNBOUNDED || UNBOUNDED / x < y) ? UNBOUNDED : x * y;
+  }
+}
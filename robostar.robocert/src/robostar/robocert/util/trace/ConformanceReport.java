@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.trace;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import robostar.robocert.util.trace.TraceVerdict.Outcome;
+
+/**
+ * The verdicts of a {@link ConformanceRunner} over a directory of traces.
+ *
+ * @param verdicts one verdict per (trace, property) pair, ordered by trace path and then by the
+ *                 position of the property in its package.
+ * @author Matt Windsor
+ */
+public record ConformanceReport(List<TraceVerdict> verdicts) {
+
+  /**
+   * Constructs a conformance report.
+   *
+   * @param verdicts one verdict per (trace, property) pair.
+   */
+  public ConformanceReport {
+    verdicts = List.copyOf(verdicts);
+  }
+
+  /**
+   * Counts the verdicts with each outcome.
+   *
+   * @return a map from every outcome to the number of verdicts having it.
+   */
+  public Map<Outcome, Long> counts() {
+    final var it = new EnumMap<Outcome, Long>(Outcome.class);
+    for (var o : Outcome.values()) {
+      it.put(o, 0L);
+    }
+    for (var v : verdicts) {
+      it.merge(v.outcome(), 1L, Long::sum);
+    }
+    return it;
+  }
+
+  /**
+   * Gets the verdicts with a given outcome.
+   *
+   * @param outcome the outcome to look for.
+   * @return the verdicts with {@code outcome}, in report order.
+   */
+  public List<TraceVerdict> withOutcome(Outcome outcome) {
+    return verdicts.stream().filter(v -> v.outcome() == outcome).toList();
+  }
+
+  /**
+   * Summarises the report on one line.
+   *
+   * @return a summary of the form {@code "N checks: C complete, P prefix, D diverged, E error"}.
+   */
+  public String summary() {
+    final var counts = counts();
+    return "%d checks: %d complete, %d prefix, %d diverged, %d error".formatted(verdicts.size(),
+        counts.get(Outcome.COMPLETE), counts.get(Outcome.PREFIX), counts.get(Outcome.DIVERGED),
+        counts.get(Outcome.ERROR));
+  }
+}
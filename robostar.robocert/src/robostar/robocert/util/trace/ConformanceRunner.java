@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.trace;
+
+import com.google.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import robostar.robocert.CertPackage;
+import robostar.robocert.Interaction;
+import robostar.robocert.SequenceProperty;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.ProxyHelper;
+import robostar.robocert.util.StreamHelper;
+import robostar.robocert.util.trace.TraceVerdict.Outcome;
+
+/**
+ * Checks a directory of recorded trace logs against every sequence property in a package,
+ * spreading the work over a fork-join pool.
+ *
+ * <p>Each regular file in the directory is read as a log (see {@link TraceLogReader}) and checked
+ * against the interaction of each sequence property, as a separate task per (trace, property)
+ * pair.  Every interaction is compiled to an automaton once, on the calling thread, and the
+ * automaton is then shared between all tasks checking it; each task has its own checker and log
+ * reader.  As with {@link robostar.robocert.util.resolve.ParallelEventResolver}, we resolve all
+ * proxies, including those in the RoboChart models, before forking, and the model must not change
+ * while a run is in progress.
+ *
+ * @param compiler    compiler used to build an automaton for each interaction.
+ * @param msgFactory  factory used to build messages read from logs.
+ * @param exprFactory factory used to build arguments read from logs.
+ * @author Matt Windsor
+ */
+public record ConformanceRunner(TraceCompiler compiler, MessageFactory msgFactory,
+                                ExpressionFactory exprFactory) {
+
+  /**
+   * Constructs a conformance runner.
+   *
+   * @param compiler    compiler used to build an automaton for each interaction.
+   * @param msgFactory  factory used to build messages read from logs.
+   * @param exprFactory factory used to build arguments read from logs.
+   */
+  @Inject
+  public ConformanceRunner {
+    Objects.requireNonNull(compiler);
+    Objects.requireNonNull(msgFactory);
+    Objects.requireNonNull(exprFactory);
+  }
+
+  /**
+   * Checks every log in a directory against every sequence property in a package.
+   *
+   * @param pkg  the package whose sequence properties are to be checked.
+   * @param dir  the directory containing the logs (subdirectories are ignored).
+   * @param pool the pool on which to check logs.
+   * @return a report with one verdict per (log, property) pair, ordered by log path and then by
+   * property position in {@code pkg}.
+   * @throws IOException              if {@code dir} cannot be listed.
+   * @throws IllegalArgumentException if an interaction cannot be compiled.
+   */
+  public ConformanceReport run(CertPackage pkg, Path dir, ForkJoinPool pool) throws IOException {
+    ProxyHelper.resolveAll(pkg);
+
+    final var properties = StreamHelper.filter(StreamHelper.allContents(pkg),
+        SequenceProperty.class).filter(p -> p.getInteraction() != null).toList();
+
+    // Compile up front: this installs cache adapters, and shares the automata between tasks.
+    final var automata = new IdentityHashMap<Interaction, TraceAutomaton>();
+    for (var p : properties) {
+      automata.computeIfAbsent(p.getInteraction(), compiler::compile);
+    }
+
+    final List<Path> logs;
+    try (var files = Files.list(dir)) {
+      logs = files.filter(Files::isRegularFile).sorted().toList();
+    }
+
+    // Fork every pair up front, then join in order.
+    final var tasks = new ArrayList<ForkJoinTask<TraceVerdict>>(logs.size() * properties.size());
+    for (var log : logs) {
+      for (var p : properties) {
+        tasks.add(pool.submit(() -> check(log, p, automata)));
+      }
+    }
+    return new ConformanceReport(tasks.stream().map(ForkJoinTask::join).toList());
+  }
+
+  private TraceVerdict check(Path log, SequenceProperty p,
+      Map<Interaction, TraceAutomaton> automata) {
+    final var automaton = automata.get(p.getInteraction());
+    final var checker = automaton.checker();
+    try {
+      new TraceLogReader(automaton.interaction(), msgFactory, exprFactory).feed(log, checker);
+    } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+      return new TraceVerdict(log, p, Outcome.ERROR, null, String.valueOf(e.getMessage()),
+          checker.position());
+    }
+
+    final var divergence = checker.divergence();
+    if (divergence.isPresent()) {
+      return new TraceVerdict(log, p, Outcome.DIVERGED, divergence.get(), null,
+          checker.position());
+    }
+    final var outcome = checker.isComplete() ? Outcome.COMPLETE : Outcome.PREFIX;
+    return new TraceVerdict(log, p, outcome, null, null, checker.position());
+  }
+}
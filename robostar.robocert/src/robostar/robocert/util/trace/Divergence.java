@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.trace;
+
+import java.util.List;
+import java.util.Objects;
+import robostar.robocert.Message;
+
+/**
+ * The first point at which an observed trace stopped conforming to an interaction.
+ *
+ * @param position the zero-based index of the offending observation in the trace, counting both
+ *                 messages and tocks (though tocks never cause divergences).
+ * @param observed the offending message.
+ * @param expected the message specifications that could have matched at that point (not
+ *                 including those inside message sets).
+ * @author Matt Windsor
+ */
+public record Divergence(long position, Message observed, List<Message> expected) {
+
+  /**
+   * Constructs a divergence.
+   *
+   * @param position the zero-based index of the offending observation in the trace.
+   * @param observed the offending message.
+   * @param expected the message specifications that could have matched at that point.
+   */
+  public Divergence {
+    Objects.requireNonNull(observed);
+    expected = List.copyOf(expected);
+  }
+}
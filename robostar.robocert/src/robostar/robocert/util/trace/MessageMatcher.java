@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.trace;
+
+import circus.robocalc.robochart.BooleanExp;
+import circus.robocalc.robochart.Expression;
+import circus.robocalc.robochart.IntegerExp;
+import java.util.Objects;
+import java.util.function.Predicate;
+import org.eclipse.emf.ecore.EObject;
+import robostar.robocert.EventTopic;
+import robostar.robocert.ExpressionValueSpecification;
+import robostar.robocert.Message;
+import robostar.robocert.MessageTopic;
+import robostar.robocert.OperationTopic;
+import robostar.robocert.ValueSpecification;
+import robostar.robocert.WildcardValueSpecification;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.Fingerprinter;
+
+/**
+ * Matches observed messages against message specifications.
+ *
+ * <p>An observation matches a specification if both have the same actors, their topics refer to
+ * the same (or structurally equal) events or operations, and each argument of the specification
+ * is either a wildcard or structurally equal to the corresponding observed argument.  A
+ * specification topic with no to-event matches observations with any to-event, but not the other
+ * way round.
+ *
+ * <p>Specification arguments are folded under the constants of their group before matching, and
+ * must fold to integer or boolean literals; anything else (such as a reference to a variable bound
+ * earlier in the interaction) is rejected when the matcher is built.  Guards on bound variables
+ * are not evaluated.
+ *
+ * @param fingerprinter the fingerprinter used to compare topics and arguments.
+ * @param folder        the folder used to reduce specification arguments to literals.
+ * @author Matt Windsor
+ */
+record MessageMatcher(Fingerprinter fingerprinter, ExpressionFolder folder) {
+
+  /**
+   * Constructs a message matcher.
+   *
+   * @param fingerprinter the fingerprinter used to compare topics and arguments.
+   * @param folder        the folder used to reduce specification arguments to literals.
+   */
+  MessageMatcher {
+    Objects.requireNonNull(fingerprinter);
+    Objects.requireNonNull(folder);
+  }
+
+  /**
+   * Builds a predicate checking whether observations match a specification.
+   *
+   * <p>The arguments of {@code spec} are folded once, here, rather than on every observation; the
+   * predicate does not follow later changes to {@code spec}.
+   *
+   * @param spec the message specification.
+   * @return a predicate accepting the messages admitted by {@code spec}.
+   * @throws IllegalArgumentException if an argument of {@code spec} does not fold to a literal.
+   */
+  Predicate<Message> matcher(Message spec) {
+    final var args = spec.getArguments().stream().map(this::expected).toArray(Expression[]::new);
+    return observed -> matches(spec, args, observed);
+  }
+
+  private Expression expected(ValueSpecification arg) {
+    if (arg instanceof WildcardValueSpecification) {
+      return null;
+    }
+    if (arg instanceof ExpressionValueSpecification e) {
+      final var it = folder.fold(e.getExpr());
+      if (it instanceof IntegerExp || it instanceof BooleanExp) {
+        return it;
+      }
+    }
+    throw new IllegalArgumentException(
+        "message argument %s must fold to an integer or boolean literal to check traces".formatted(
+            arg));
+  }
+
+  private boolean matches(Message spec, Expression[] args, Message observed) {
+    if (spec.getFrom() != observed.getFrom() || spec.getTo() != observed.getTo()) {
+      return false;
+    }
+    if (!topicsMatch(spec.getTopic(), observed.getTopic())) {
+      return false;
+    }
+
+    final var obsArgs = observed.getArguments();
+    if (args.length != obsArgs.size()) {
+      return false;
+    }
+    for (var i = 0; i < args.length; i++) {
+      if (!argumentsMatch(args[i], obsArgs.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean topicsMatch(MessageTopic spec, MessageTopic observed) {
+    // Logs usually refer to the same RoboChart elements as the specification, so we try identity
+    // before structure.
+    if (spec instanceof EventTopic s && observed instanceof EventTopic o) {
+      // A specification without a to-event stands for any connection from its from-event.
+      return same(s.getEfrom(), o.getEfrom())
+          && (s.getEto() == null || same(s.getEto(), o.getEto()));
+    }
+    if (spec instanceof OperationTopic s && observed instanceof OperationTopic o) {
+      return same(s.getOperation(), o.getOperation());
+    }
+    return false;
+  }
+
+  private boolean argumentsMatch(Expression spec, ValueSpecification observed) {
+    // Null stands for a wildcard.
+    if (spec == null) {
+      return true;
+    }
+    return observed instanceof ExpressionValueSpecification o && same(spec, o.getExpr());
+  }
+
+  private boolean same(EObject a, EObject b) {
+    return a == b || fingerprinter.equal(a, b);
+  }
+}
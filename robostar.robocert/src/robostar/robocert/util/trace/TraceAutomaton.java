@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.trace;
+
+import java.util.List;
+import java.util.function.Predicate;
+import robostar.robocert.Interaction;
+import robostar.robocert.Message;
+
+/**
+ * A nondeterministic finite automaton accepting the traces of an interaction.
+ *
+ * <p>States are integers.  Every state has a list of outgoing edges, each labelled either with
+ * {@link #TOCK} (the passage of one time unit) or with the index of a message label (a predicate
+ * over observed messages).  Epsilon edges are compiled away into precomputed closures.  Time may
+ * pass in every state, so tock edges only record progress through waits.
+ *
+ * <p>Automata are immutable and may be shared; use {@link #checker()} to run one over a trace.
+ *
+ * @author Matt Windsor
+ */
+public final class TraceAutomaton {
+
+  /**
+   * The label of edges taken when one time unit passes.
+   */
+  static final int TOCK = -1;
+
+  private final Interaction interaction;
+  private final int start;
+  private final int accept;
+  private final int[] edgeStarts;
+  private final int[] edgeLabels;
+  private final int[] edgeTargets;
+  private final int[][] closures;
+  private final List<Predicate<Message>> labels;
+  private final List<Message> labelSpecs;
+
+  TraceAutomaton(Interaction interaction, int start, int accept, int[] edgeStarts,
+      int[] edgeLabels, int[] edgeTargets, int[][] closures, List<Predicate<Message>> labels,
+      List<Message> labelSpecs) {
+    this.interaction = interaction;
+    this.start = start;
+    this.accept = accept;
+    this.edgeStarts = edgeStarts;
+    this.edgeLabels = edgeLabels;
+    this.edgeTargets = edgeTargets;
+    this.closures = closures;
+    this.labels = List.copyOf(labels);
+    // Set labels have no single specification, so this may contain nulls.
+    this.labelSpecs = labelSpecs;
+  }
+
+  /**
+   * Gets the interaction from which this automaton was compiled.
+   *
+   * @return the source interaction.
+   */
+  public Interaction interaction() {
+    return interaction;
+  }
+
+  /**
+   * Gets the number of states in the automaton.
+   *
+   * @return the number of states.
+   */
+  public int size() {
+    return closures.length;
+  }
+
+  /**
+   * Starts checking a trace against this automaton.
+   *
+   * @return a fresh checker positioned at the start of the trace.
+   */
+  public TraceChecker checker() {
+    return new TraceChecker(this);
+  }
+
+  int start() {
+    return start;
+  }
+
+  int accept() {
+    return accept;
+  }
+
+  int edgeStart(int state) {
+    return edgeStarts[state];
+  }
+
+  int edgeEnd(int state) {
+    return edgeStarts[state + 1];
+  }
+
+  int edgeLabel(int edge) {
+    return edgeLabels[edge];
+  }
+
+  int edgeTarget(int edge) {
+    return edgeTargets[edge];
+  }
+
+  int[] closure(int state) {
+    return closures[state];
+  }
+
+  int labelCount() {
+    return labels.size();
+  }
+
+  boolean matches(int label, Message observed) {
+    return labels.get(label).test(observed);
+  }
+
+  Message labelSpec(int label) {
+    return labelSpecs.get(label);
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.trace;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.Optional;
+import robostar.robocert.Message;
+
+/**
+ * Checks a stream of observations against a {@link TraceAutomaton}, one observation at a time.
+ *
+ * <p>The checker tracks the set of automaton states consistent with the trace so far, so its
+ * memory is bounded by the size of the automaton rather than the length of the trace.  Once the
+ * trace diverges, the checker records the first {@link Divergence} and rejects everything after
+ * it.  Checkers are not thread-safe.
+ *
+ * @author Matt Windsor
+ */
+public final class TraceChecker {
+
+  private final TraceAutomaton automaton;
+
+  private BitSet current;
+  private BitSet next;
+  private long position;
+  private Divergence divergence;
+
+  // Per-step memo of label matches, so that labels on many active edges are only tested once.
+  private final long[] labelStamps;
+  private final boolean[] labelHits;
+  private long stamp;
+
+  /**
+   * Constructs a checker at the start of a trace.
+   *
+   * @param automaton the automaton to check against.
+   */
+  public TraceChecker(TraceAutomaton automaton) {
+    this.automaton = Objects.requireNonNull(automaton);
+
+    current = new BitSet(automaton.size());
+    next = new BitSet(automaton.size());
+    for (var s : automaton.closure(automaton.start())) {
+      current.set(s);
+    }
+
+    labelStamps = new long[automaton.labelCount()];
+    labelHits = new boolean[automaton.labelCount()];
+  }
+
+  /**
+   * Feeds an observed message to the checker.
+   *
+   * @param observed the message observed next in the trace.
+   * @return whether the trace, including {@code observed}, still conforms.
+   */
+  public boolean message(Message observed) {
+    Objects.requireNonNull(observed);
+    if (divergence != null) {
+      return false;
+    }
+
+    stamp++;
+    next.clear();
+    for (var s = current.nextSetBit(0); 0 <= s; s = current.nextSetBit(s + 1)) {
+      for (var e = automaton.edgeStart(s); e < automaton.edgeEnd(s); e++) {
+        final var label = automaton.edgeLabel(e);
+        if (label != TraceAutomaton.TOCK && matches(label, observed)) {
+          close(automaton.edgeTarget(e));
+        }
+      }
+    }
+
+    if (next.isEmpty()) {
+      divergence = new Divergence(position, observed, expected());
+      return false;
+    }
+    advance();
+    return true;
+  }
+
+  /**
+   * Feeds the passage of one time unit to the checker.
+   *
+   * <p>Time may pass in any state, so a tock never causes divergence: every current state
+   * survives, and states with a tock edge also move along it.  This means waits are lower bounds
+   * on elapsed time, and tocks do not synchronise the branches of a par fragment.
+   *
+   * @return whether the trace still conforms, which is true unless it had already diverged.
+   */
+  public boolean tock() {
+    if (divergence != null) {
+      return false;
+    }
+
+    // Time may pass anywhere, so every current state survives a tock.
+    next.clear();
+    next.or(current);
+    for (var s = current.nextSetBit(0); 0 <= s; s = current.nextSetBit(s + 1)) {
+      for (var e = automaton.edgeStart(s); e < automaton.edgeEnd(s); e++) {
+        if (automaton.edgeLabel(e) == TraceAutomaton.TOCK) {
+          close(automaton.edgeTarget(e));
+        }
+      }
+    }
+    advance();
+    return true;
+  }
+
+  /**
+   * Gets the first divergence of the trace, if there has been one.
+   *
+   * @return the divergence, if any.
+   */
+  public Optional<Divergence> divergence() {
+    return Optional.ofNullable(divergence);
+  }
+
+  /**
+   * Gets whether the trace so far is a complete run of the interaction.
+   *
+   * @return whether the trace has not diverged and could end here.
+   */
+  public boolean isComplete() {
+    return divergence == null && current.get(automaton.accept());
+  }
+
+  /**
+   * Gets the number of observations accepted so far.
+   *
+   * <p>After a divergence, this is the position of the divergent observation.
+   *
+   * @return the number of messages and tocks accepted by the checker.
+   */
+  public long position() {
+    return position;
+  }
+
+  private boolean matches(int label, Message observed) {
+    if (labelStamps[label] != stamp) {
+      labelStamps[label] = stamp;
+      labelHits[label] = automaton.matches(label, observed);
+    }
+    return labelHits[label];
+  }
+
+  private void close(int state) {
+    for (var s : automaton.closure(state)) {
+      next.set(s);
+    }
+  }
+
+  private void advance() {
+    final var tmp = current;
+    current = next;
+    next = tmp;
+    position++;
+  }
+
+  private ArrayList<Message> expected() {
+    final var out = new ArrayList<Message>();
+    for (var s = current.nextSetBit(0); 0 <= s; s = current.nextSetBit(s + 1)) {
+      for (var e = automaton.edgeStart(s); e < automaton.edgeEnd(s); e++) {
+        final var label = automaton.edgeLabel(e);
+        if (label != TraceAutomaton.TOCK) {
+          final var spec = automaton.labelSpec(label);
+          if (spec != null && !out.contains(spec)) {
+            out.add(spec);
+          }
+        }
+      }
+    }
+    return out;
+  }
+}
@@ -0,0 +1,510 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.trace;
+
+import circus.robocalc.robochart.Expression;
+import circus.robocalc.robochart.IntegerExp;
+import com.google.inject.Inject;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.eclipse.emf.common.notify.Notifier;
+import robostar.robocert.BinaryMessageSet;
+import robostar.robocert.DiscreteBound;
+import robostar.robocert.ExtensionalMessageSet;
+import robostar.robocert.Interaction;
+import robostar.robocert.Message;
+import robostar.robocert.MessageOccurrence;
+import robostar.robocert.MessageSet;
+import robostar.robocert.NamedMessageSet;
+import robostar.robocert.RefMessageSet;
+import robostar.robocert.UniverseMessageSet;
+import robostar.robocert.util.ExpressionFolder;
+import robostar.robocert.util.Fingerprinter;
+import robostar.robocert.util.ModelCache;
+import robostar.robocert.util.StreamHelper;
+import robostar.robocert.util.ir.CompiledInteraction;
+import robostar.robocert.util.ir.InteractionCompiler;
+
+/**
+ * Compiles interactions into {@link TraceAutomaton}s, for checking recorded traces without going
+ * through CSP.
+ *
+ * <p>The compiler works over the {@link CompiledInteraction} form of the interaction, using a
+ * Thompson-style construction:
+ *
+ * <ul>
+ *   <li>messages become single edges, matched as in {@link MessageMatcher};</li>
+ *   <li>waits become chains of tock edges, one per time unit;</li>
+ *   <li>deadlocks become states with no way out;</li>
+ *   <li>opt, alt, and xalt fragments become choices, and par fragments interleaving products
+ *   (in which a tock may move either side, or both);</li>
+ *   <li>loops repeat their body between their lower and upper bound (or indefinitely);</li>
+ *   <li>until fragments accept any number of their intra-messages before their body.</li>
+ * </ul>
+ *
+ * <p>This is an over-approximation of the RoboCert semantics in three places: guards are not
+ * evaluated (every branch is possible), deadline fragments do not constrain time, and time may
+ * pass in any state (see {@link TraceChecker#tock()}), so waits are only lower bounds and the
+ * branches of a par fragment need not agree on how much time has passed.  Loop bounds
+ * and wait durations must be integer literals, and message arguments must fold to literals under
+ * the group's constants.  Automata are cached on their interactions, and rebuilt when anything in
+ * the interaction, any message set it names, or the constants of its group change.
+ *
+ * @param irCompiler    compiler used to lower interactions before building automata.
+ * @param fingerprinter fingerprinter used to compare observed messages with specifications.
+ * @param folder        folder used to reduce message arguments to literals.
+ * @author Matt Windsor
+ */
+public record TraceCompiler(InteractionCompiler irCompiler, Fingerprinter fingerprinter,
+                            ExpressionFolder folder) {
+
+  private static final int EPSILON = -2;
+
+  private static final ModelCache<Interaction, TraceAutomaton> CACHE = new ModelCache<>(x -> true);
+
+  /**
+   * Constructs a trace compiler.
+   *
+   * @param irCompiler    compiler used to lower interactions before building automata.
+   * @param fingerprinter fingerprinter used to compare observed messages with specifications.
+   * @param folder        folder used to reduce message arguments to literals.
+   */
+  @Inject
+  public TraceCompiler {
+    Objects.requireNonNull(irCompiler);
+    Objects.requireNonNull(fingerprinter);
+    Objects.requireNonNull(folder);
+  }
+
+  /**
+   * Compiles an interaction into an automaton, or gets its cached automaton.
+   *
+   * @param it the interaction to compile.
+   * @return an automaton accepting the traces of {@code it}.
+   * @throws IllegalArgumentException if a loop bound or wait duration is not an integer literal,
+   *                                  a message argument does not fold to a literal, or a named
+   *                                  message set refers to itself.
+   */
+  public TraceAutomaton compile(Interaction it) {
+    return CACHE.get(it, (interaction, watch) -> {
+      StreamHelper.allContents(interaction).forEach(watch);
+      // Message arguments are folded under the group's constants.
+      final var group = interaction.getGroup();
+      if (group != null) {
+        watch.accept(group);
+        for (var a : group.getAssignments()) {
+          watch.accept(a);
+          a.eAllContents().forEachRemaining(watch);
+        }
+      }
+      return new Builder(irCompiler.compile(interaction),
+          new MessageMatcher(fingerprinter, folder), watch).build();
+    });
+  }
+
+  /**
+   * A sub-automaton with one entry and one exit, whose states all lie in {@code [lo, hi)}.
+   */
+  private record Frag(int start, int accept, int lo, int hi) {
+
+  }
+
+  private static final class Builder {
+
+    private final CompiledInteraction ir;
+    private final MessageMatcher matcher;
+    private final Consumer<Notifier> watch;
+
+    // Outgoing edges of each state, as {label, target} pairs.
+    private final List<List<int[]>> out = new ArrayList<>();
+    private final List<Predicate<Message>> labels = new ArrayList<>();
+    private final List<Message> labelSpecs = new ArrayList<>();
+
+    private Builder(CompiledInteraction ir, MessageMatcher matcher, Consumer<Notifier> watch) {
+      this.ir = ir;
+      this.matcher = matcher;
+      this.watch = watch;
+    }
+
+    private TraceAutomaton build() {
+      final var body = sequence(0, ir.size());
+      return finish(body);
+    }
+
+    //
+    // Lowering the IR
+    //
+
+    private Frag sequence(int from, int to) {
+      var it = empty();
+      var pc = from;
+      while (pc < to) {
+        final var frag = instruction(pc);
+        it = concat(it, frag);
+        pc = next(pc);
+      }
+      return it;
+    }
+
+    private int next(int pc) {
+      return switch (ir.opcode(pc)) {
+        case CompiledInteraction.MESSAGE, CompiledInteraction.DEADLOCK,
+            CompiledInteraction.WAIT -> pc + 1;
+        default -> ir.arg0(pc) + 1;
+      };
+    }
+
+    private Frag instruction(int pc) {
+      return switch (ir.opcode(pc)) {
+        case CompiledInteraction.MESSAGE -> message(((MessageOccurrence) ir.source(pc))
+            .getMessage());
+        case CompiledInteraction.DEADLOCK -> deadlock();
+        case CompiledInteraction.WAIT -> repeat(this::tock, literal(ir.expression(pc), "wait"));
+        case CompiledInteraction.OPT -> opt(operand(pc + 1));
+        case CompiledInteraction.LOOP -> loop(pc + 1, ir.bound(pc));
+        // We don't model deadlines, so they just behave as their bodies.
+        case CompiledInteraction.DEADLINE -> operand(pc + 1);
+        case CompiledInteraction.UNTIL -> concat(star(set(ir.intraMessages(pc))),
+            operand(pc + 1));
+        case CompiledInteraction.ALT, CompiledInteraction.XALT -> choice(branches(pc));
+        case CompiledInteraction.PAR -> branches(pc).stream().reduce(this::interleave)
+            .orElseGet(this::empty);
+        // Safety valve in case we forget to add a case.
+        default -> throw new UnsupportedOperationException(
+            "Tried to compile an instruction %d that is not yet supported.  This is an internal error.".formatted(
+                ir.opcode(pc)));
+      };
+    }
+
+    private Frag operand(int branch) {
+      return sequence(branch + 1, ir.arg0(branch));
+    }
+
+    private List<Frag> branches(int pc) {
+      final var it = new ArrayList<Frag>(ir.arg1(pc));
+      for (var b = pc + 1; b < ir.arg0(pc); b = ir.arg0(b)) {
+        it.add(operand(b));
+      }
+      return it;
+    }
+
+    private Frag loop(int branch, DiscreteBound bound) {
+      if (bound == null) {
+        return star(operand(branch));
+      }
+      final var upper = bound.getUpper() == null ? -1 : literal(bound.getUpper(), "loop bound");
+      final var lower = bound.getLower() == null ? upper : literal(bound.getLower(), "loop bound");
+
+      // Each iteration needs its own copy of the body, so we lower it again each time.
+      var it = repeat(() -> operand(branch), Math.max(lower, 0));
+      if (upper < 0) {
+        return concat(it, star(operand(branch)));
+      }
+      for (var i = Math.max(lower, 0); i < upper; i++) {
+        it = concat(it, opt(operand(branch)));
+      }
+      return it;
+    }
+
+    private int literal(Expression e, String what) {
+      if (e instanceof IntegerExp i) {
+        return i.getValue();
+      }
+      throw new IllegalArgumentException(
+          "%s must be an integer literal to check traces, got %s".formatted(what, e));
+    }
+
+    //
+    // Message sets
+    //
+
+    private Frag set(MessageSet s) {
+      return label(setPredicate(s, new HashSet<>()), null);
+    }
+
+    private Predicate<Message> setPredicate(MessageSet s, Set<NamedMessageSet> visiting) {
+      if (s instanceof UniverseMessageSet) {
+        return m -> true;
+      }
+      if (s instanceof ExtensionalMessageSet e) {
+        @SuppressWarnings("unchecked")
+        final Predicate<Message>[] specs = e.getMessages().stream().map(matcher::matcher)
+            .toArray(Predicate[]::new);
+        return m -> {
+          for (var spec : specs) {
+            if (spec.test(m)) {
+              return true;
+            }
+          }
+          return false;
+        };
+      }
+      if (s instanceof RefMessageSet r) {
+        final var named = r.getSet();
+        if (!visiting.add(named)) {
+          throw new IllegalArgumentException("message set %s refers to itself".formatted(named));
+        }
+        StreamHelper.allContents(named).forEach(watch);
+        watch.accept(named);
+        final var it = setPredicate(named.getSet(), visiting);
+        visiting.remove(named);
+        return it;
+      }
+      if (s instanceof BinaryMessageSet b) {
+        final var l = setPredicate(b.getLhs(), visiting);
+        final var r = setPredicate(b.getRhs(), visiting);
+        return switch (b.getOperator()) {
+          case UNION -> l.or(r);
+          case INTERSECTION -> l.and(r);
+          case DIFFERENCE -> l.and(r.negate());
+        };
+      }
+      throw new UnsupportedOperationException(
+          "Tried to match a message set %s that is not yet supported.  This is an internal error.".formatted(
+              s));
+    }
+
+    //
+    // Thompson construction
+    //
+
+    private int state() {
+      out.add(new ArrayList<>(2));
+      return out.size() - 1;
+    }
+
+    private void edge(int from, int label, int to) {
+      out.get(from).add(new int[]{label, to});
+    }
+
+    private Frag empty() {
+      final var s = state();
+      return new Frag(s, s, s, s + 1);
+    }
+
+    private Frag deadlock() {
+      // The exit is unreachable, so nothing after a deadlock can happen.
+      final var s = state();
+      final var t = state();
+      return new Frag(s, t, s, t + 1);
+    }
+
+    private Frag message(Message spec) {
+      return label(matcher.matcher(spec), spec);
+    }
+
+    private Frag label(Predicate<Message> p, Message spec) {
+      labels.add(p);
+      labelSpecs.add(spec);
+      return atom(labels.size() - 1);
+    }
+
+    private Frag tock() {
+      return atom(TraceAutomaton.TOCK);
+    }
+
+    private Frag atom(int label) {
+      final var s = state();
+      final var t = state();
+      edge(s, label, t);
+      return new Frag(s, t, s, t + 1);
+    }
+
+    private Frag concat(Frag a, Frag b) {
+      edge(a.accept(), EPSILON, b.start());
+      return new Frag(a.start(), b.accept(), Math.min(a.lo(), b.lo()), Math.max(a.hi(), b.hi()));
+    }
+
+    private Frag repeat(Supplier<Frag> body, int times) {
+      var it = empty();
+      for (var i = 0; i < times; i++) {
+        it = concat(it, body.get());
+      }
+      return it;
+    }
+
+    private Frag choice(List<Frag> branches) {
+      final var s = state();
+      var lo = s;
+      for (var b : branches) {
+        edge(s, EPSILON, b.start());
+        lo = Math.min(lo, b.lo());
+      }
+      final var t = state();
+      for (var b : branches) {
+        edge(b.accept(), EPSILON, t);
+      }
+      return new Frag(s, t, lo, t + 1);
+    }
+
+    private Frag opt(Frag body) {
+      return choice(List.of(body, empty()));
+    }
+
+    private Frag star(Frag body) {
+      final var s = state();
+      edge(s, EPSILON, body.start());
+      edge(body.accept(), EPSILON, s);
+      return new Frag(s, s, Math.min(body.lo(), s), s + 1);
+    }
+
+    /**
+     * Builds the product of two sub-automata, interleaving their messages.  A tock in the product
+     * may move either side through a tock edge, or both; since the checker lets time pass in every
+     * state anyway, this does not make the branches agree on elapsed time.
+     */
+    private Frag interleave(Frag a, Frag b) {
+      final var ids = new HashMap<Long, Integer>();
+      final var queue = new ArrayDeque<int[]>();
+      final var lo = Math.min(a.lo(), b.lo());
+      final var start = pair(a.start(), b.start(), ids, queue);
+
+      while (!queue.isEmpty()) {
+        final var pq = queue.remove();
+        final var p = pq[0];
+        final var q = pq[1];
+        final var from = ids.get(key(p, q));
+
+        for (var e : List.copyOf(out.get(p))) {
+          if (e[0] != TraceAutomaton.TOCK) {
+            edge(from, e[0], pair(e[1], q, ids, queue));
+          }
+        }
+        for (var e : List.copyOf(out.get(q))) {
+          if (e[0] != TraceAutomaton.TOCK) {
+            edge(from, e[0], pair(p, e[1], ids, queue));
+          }
+        }
+        // Either side may let time pass without moving, so a tock moves one side, or both.
+        for (var p2 : tockTargets(p)) {
+          for (var q2 : tockTargets(q)) {
+            if (p2 != p || q2 != q) {
+              edge(from, TraceAutomaton.TOCK, pair(p2, q2, ids, queue));
+            }
+          }
+        }
+      }
+
+      final var accept = pair(a.accept(), b.accept(), ids, queue);
+      return new Frag(start, accept, lo, out.size());
+    }
+
+    private List<Integer> tockTargets(int state) {
+      final var it = new ArrayList<Integer>();
+      it.add(state);
+      for (var e : out.get(state)) {
+        if (e[0] == TraceAutomaton.TOCK) {
+          it.add(e[1]);
+        }
+      }
+      return it;
+    }
+
+    private int pair(int p, int q, HashMap<Long, Integer> ids, ArrayDeque<int[]> queue) {
+      final var existing = ids.get(key(p, q));
+      if (existing != null) {
+        return existing;
+      }
+      final var s = state();
+      ids.put(key(p, q), s);
+      queue.add(new int[]{p, q});
+      return s;
+    }
+
+    private static long key(int p, int q) {
+      return ((long) p << 32) | (q & 0xffffffffL);
+    }
+
+    //
+    // Finishing
+    //
+
+    /**
+     * Discards unreachable states, renumbers the rest, and precomputes epsilon closures.
+     */
+    private TraceAutomaton finish(Frag body) {
+      final var ids = new int[out.size()];
+      Arrays.fill(ids, -1);
+      final var order = new ArrayList<Integer>();
+      final var queue = new ArrayDeque<Integer>();
+      ids[body.start()] = 0;
+      order.add(body.start());
+      queue.add(body.start());
+      while (!queue.isEmpty()) {
+        for (var e : out.get(queue.remove())) {
+          if (ids[e[1]] < 0) {
+            ids[e[1]] = order.size();
+            order.add(e[1]);
+            queue.add(e[1]);
+          }
+        }
+      }
+      // Keep the exit even if it is unreachable, so that the automaton always has one.
+      if (ids[body.accept()] < 0) {
+        ids[body.accept()] = order.size();
+        order.add(body.accept());
+      }
+
+      final var n = order.size();
+      final var edgeStarts = new int[n + 1];
+      final var edgeLabels = new ArrayList<Integer>();
+      final var edgeTargets = new ArrayList<Integer>();
+      final var closures = new int[n][];
+      for (var i = 0; i < n; i++) {
+        edgeStarts[i] = edgeLabels.size();
+        for (var e : out.get(order.get(i))) {
+          if (e[0] != EPSILON) {
+            edgeLabels.add(e[0]);
+            edgeTargets.add(ids[e[1]]);
+          }
+        }
+        closures[i] = closure(order.get(i)).stream().mapToInt(s -> ids[s]).toArray();
+      }
+      edgeStarts[n] = edgeLabels.size();
+
+      return new TraceAutomaton(ir.interaction(), 0, ids[body.accept()], edgeStarts,
+          edgeLabels.stream().mapToInt(Integer::intValue).toArray(),
+          edgeTargets.stream().mapToInt(Integer::intValue).toArray(), closures, labels,
+          labelSpecs);
+    }
+
+    private List<Integer> closure(int state) {
+      final var seen = new HashSet<Integer>();
+      final var it = new ArrayList<Integer>();
+      final var stack = new ArrayDeque<Integer>();
+      stack.push(state);
+      while (!stack.isEmpty()) {
+        final var s = stack.pop();
+        if (seen.add(s)) {
+          it.add(s);
+          for (var e : out.get(s)) {
+            if (e[0] == EPSILON) {
+              stack.push(e[1]);
+            }
+          }
+        }
+      }
+      return it;
+    }
+  }
+}
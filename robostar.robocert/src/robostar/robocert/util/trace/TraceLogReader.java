@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.trace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import robostar.robocert.Actor;
+import robostar.robocert.EventTopic;
+import robostar.robocert.ExpressionValueSpecification;
+import robostar.robocert.Interaction;
+import robostar.robocert.Message;
+import robostar.robocert.MessageTopic;
+import robostar.robocert.OperationTopic;
+import robostar.robocert.util.ExpressionFactory;
+import robostar.robocert.util.MessageFactory;
+import robostar.robocert.util.StreamHelper;
+
+/**
+ * Reads recorded message logs, feeding them to {@link TraceChecker}s.
+ *
+ * <p>Logs are UTF-8 text files with one observation per line.  Blank lines and lines starting with
+ * {@code #} are ignored; {@code tock} records the passage of one time unit; anything else is a
+ * message of the form {@code FROM -> TO : TOPIC} or {@code FROM -> TO : TOPIC(ARG, ...)}.  Actors
+ * are named as in the interaction being checked (including actors that only appear in its
+ * messages, such as gates), and arguments are integer or boolean literals.  Topics are those of the
+ * messages in the interaction, named by their from-event or operation; event topics with a
+ * to-event can also be named {@code FROM_EVENT/TO_EVENT}.  Names shared by different actors or
+ * topics are ambiguous, and using one in a log is an error.
+ *
+ * <p>Files are memory-mapped a window at a time, and lines are decoded as whole slices of the
+ * window.  Reading stops as soon as the checker diverges.  Each reader belongs to one interaction
+ * and is not thread-safe.
+ *
+ * @author Matt Windsor
+ */
+public final class TraceLogReader {
+
+  private static final long WINDOW = 64L << 20;
+
+  // Logs repeat the same few lines many times over, so we memoise the messages they parse to.
+  private static final int MEMO_LIMIT = 4096;
+
+  private final MessageFactory msgFactory;
+  private final ExpressionFactory exprFactory;
+  private final Map<String, Actor> actors = new HashMap<>();
+  private final Map<String, MessageTopic> topics = new HashMap<>();
+  private final Set<String> ambiguousActors = new HashSet<>();
+  private final Set<String> ambiguousTopics = new HashSet<>();
+  private final Map<String, Message> memo = new LinkedHashMap<>();
+
+  /**
+   * Constructs a log reader for an interaction.
+   *
+   * @param it          the interaction whose actors and topics the logs name.
+   * @param msgFactory  factory used to build observed messages.
+   * @param exprFactory factory used to build observed arguments.
+   */
+  public TraceLogReader(Interaction it, MessageFactory msgFactory, ExpressionFactory exprFactory) {
+    this.msgFactory = Objects.requireNonNull(msgFactory);
+    this.exprFactory = Objects.requireNonNull(exprFactory);
+
+    for (var a : it.getActors()) {
+      addActor(a);
+    }
+    StreamHelper.filter(StreamHelper.allContents(it), Message.class).forEach(m -> {
+      addActor(m.getFrom());
+      addActor(m.getTo());
+
+      final var t = m.getTopic();
+      if (t instanceof EventTopic e && e.getEfrom() != null) {
+        addTopic(e.getEfrom().getName(), e);
+        if (e.getEto() != null) {
+          addTopic(e.getEfrom().getName() + "/" + e.getEto().getName(), e);
+        }
+      } else if (t instanceof OperationTopic o && o.getOperation() != null) {
+        addTopic(o.getOperation().getName(), o);
+      }
+    });
+  }
+
+  /**
+   * Feeds a log file to a checker, stopping early if the checker diverges.
+   *
+   * @param log     the path to the log.
+   * @param checker the checker to feed.
+   * @throws IOException              if the log cannot be read.
+   * @throws IllegalArgumentException if a line of the log is malformed, or names an actor or topic
+   *                                  that the interaction does not have.
+   */
+  public void feed(Path log, TraceChecker checker) throws IOException {
+    try (var channel = FileChannel.open(log, StandardOpenOption.READ)) {
+      final var size = channel.size();
+      // Holds the start of a line that runs over the end of a window.
+      final var carry = new ByteArrayOutputStream(128);
+      var lineNo = 1L;
+
+      for (var pos = 0L; pos < size; pos += WINDOW) {
+        final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos,
+            Math.min(WINDOW, size - pos));
+        final var limit = buf.limit();
+        var start = 0;
+        for (var i = 0; i < limit; i++) {
+          if (buf.get(i) != '\n') {
+            continue;
+          }
+          final String line;
+          if (carry.size() == 0) {
+            line = decode(buf, start, i);
+          } else {
+            carry.write(bytes(buf, start, i));
+            line = carry.toString(StandardCharsets.UTF_8);
+            carry.reset();
+          }
+          if (!observe(line, lineNo++, checker)) {
+            return;
+          }
+          start = i + 1;
+        }
+        carry.write(bytes(buf, start, limit));
+      }
+      observe(carry.toString(StandardCharsets.UTF_8), lineNo, checker);
+    }
+  }
+
+  private static String decode(MappedByteBuffer buf, int from, int to) {
+    return StandardCharsets.UTF_8.decode(buf.slice(from, to - from)).toString();
+  }
+
+  private static byte[] bytes(MappedByteBuffer buf, int from, int to) {
+    final var it = new byte[to - from];
+    buf.get(from, it);
+    return it;
+  }
+
+  private boolean observe(String raw, long lineNo, TraceChecker checker) {
+    final var line = raw.strip();
+    if (line.isEmpty() || line.startsWith("#")) {
+      return true;
+    }
+    if (line.equals("tock")) {
+      return checker.tock();
+    }
+    try {
+      return checker.message(message(line));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("line %d: %s".formatted(lineNo, e.getMessage()), e);
+    }
+  }
+
+  private Message message(String line) {
+    final var existing = memo.get(line);
+    if (existing != null) {
+      return existing;
+    }
+
+    final var arrow = line.indexOf("->");
+    final var colon = line.indexOf(':', Math.max(arrow, 0));
+    if (arrow < 0 || colon < 0) {
+      throw new IllegalArgumentException("expected 'FROM -> TO : TOPIC', got '%s'".formatted(line));
+    }
+    final var from = actor(line.substring(0, arrow).strip());
+    final var to = actor(line.substring(arrow + 2, colon).strip());
+
+    var rest = line.substring(colon + 1).strip();
+    var args = new String[0];
+    final var paren = rest.indexOf('(');
+    if (paren >= 0) {
+      if (!rest.endsWith(")")) {
+        throw new IllegalArgumentException("unclosed argument list in '%s'".formatted(line));
+      }
+      final var inner = rest.substring(paren + 1, rest.length() - 1).strip();
+      args = inner.isEmpty() ? args : inner.split(",");
+      rest = rest.substring(0, paren).strip();
+    }
+
+    final var it = msgFactory.spec(from, to, topic(rest));
+    for (var a : args) {
+      it.getArguments().add(argument(a.strip()));
+    }
+
+    if (memo.size() < MEMO_LIMIT) {
+      memo.put(line, it);
+    }
+    return it;
+  }
+
+  private void addActor(Actor a) {
+    if (a == null || a.getName() == null) {
+      return;
+    }
+    final var existing = actors.putIfAbsent(a.getName(), a);
+    if (existing != null && existing != a) {
+      ambiguousActors.add(a.getName());
+    }
+  }
+
+  private void addTopic(String name, MessageTopic t) {
+    final var existing = topics.putIfAbsent(name, t);
+    if (existing != null && !sameTopic(existing, t)) {
+      ambiguousTopics.add(name);
+    }
+  }
+
+  private static boolean sameTopic(MessageTopic a, MessageTopic b) {
+    if (a instanceof EventTopic x && b instanceof EventTopic y) {
+      return x.getEfrom() == y.getEfrom() && x.getEto() == y.getEto();
+    }
+    if (a instanceof OperationTopic x && b instanceof OperationTopic y) {
+      return x.getOperation() == y.getOperation();
+    }
+    return false;
+  }
+
+  private Actor actor(String name) {
+    if (ambiguousActors.contains(name)) {
+      throw new IllegalArgumentException("more than one actor is named '%s'".formatted(name));
+    }
+    final var it = actors.get(name);
+    if (it == null) {
+      throw new IllegalArgumentException("no actor named '%s'".formatted(name));
+    }
+    return it;
+  }
+
+  private MessageTopic topic(String name) {
+    if (ambiguousTopics.contains(name)) {
+      throw new IllegalArgumentException(
+          "more than one topic is named '%s'; name the to-event as well".formatted(name));
+    }
+    final var it = topics.get(name);
+    if (it instanceof EventTopic e) {
+      return msgFactory.eventTopic(e.getEfrom(), e.getEto());
+    }
+    if (it instanceof OperationTopic o) {
+      return msgFactory.opTopic(o.getOperation());
+    }
+    throw new IllegalArgumentException("no topic named '%s'".formatted(name));
+  }
+
+  private ExpressionValueSpecification argument(String text) {
+    final var it = msgFactory.rc().createExpressionValueSpecification();
+    if (text.equals("true") || text.equals("false")) {
+      it.setExpr(exprFactory.bool(Boolean.parseBoolean(text)));
+      return it;
+    }
+    try {
+      it.setExpr(exprFactory.integer(Integer.parseInt(text)));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("unsupported argument '%s'".formatted(text), e);
+    }
+    return it;
+  }
+}
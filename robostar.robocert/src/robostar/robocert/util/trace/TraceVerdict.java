@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2022 University of York and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Matt Windsor - initial definition
+ */
+
+package robostar.robocert.util.trace;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import robostar.robocert.SequenceProperty;
+
+/**
+ * The result of checking one recorded trace against one sequence property.
+ *
+ * <p>Verdicts only say how the trace relates to the property's interaction; deciding whether a
+ * property holds, or is observed, over a set of traces is up to the caller.
+ *
+ * @param trace        path to the trace log.
+ * @param property     the property whose interaction was checked.
+ * @param outcome      how the trace relates to the interaction.
+ * @param divergence   where the trace diverged, if {@code outcome} is {@link Outcome#DIVERGED}.
+ * @param error        why the trace could not be checked, if {@code outcome} is
+ *                     {@link Outcome#ERROR}.
+ * @param observations the number of observations (messages and tocks) consumed from the trace.
+ * @author Matt Windsor
+ */
+public record TraceVerdict(Path trace, SequenceProperty property, Outcome outcome,
+                           Divergence divergence, String error, long observations) {
+
+  /**
+   * Constructs a trace verdict.
+   *
+   * @param trace        path to the trace log.
+   * @param property     the property whose interaction was checked.
+   * @param outcome      how the trace relates to the interaction.
+   * @param divergence   where the trace diverged, if any.
+   * @param error        why the trace could not be checked, if it couldn't.
+   * @param observations the number of observations consumed from the trace.
+   */
+  public TraceVerdict {
+    Objects.requireNonNull(trace);
+    Objects.requireNonNull(property);
+    Objects.requireNonNull(outcome);
+    if ((outcome == Outcome.DIVERGED) != (divergence != null)) {
+      throw new IllegalArgumentException("divergence given iff outcome is DIVERGED");
+    }
+    if ((outcome == Outcome.ERROR) != (error != null)) {
+      throw new IllegalArgumentException("error given iff outcome is ERROR");
+    }
+  }
+
+  /**
+   * The ways in which a trace can relate to an interaction.
+   */
+  public enum Outcome {
+    /**
+     * The trace is a complete run of the interaction.
+     */
+    COMPLETE,
+    /**
+     * The trace is a proper prefix of some run of the interaction.
+     */
+    PREFIX,
+    /**
+     * The trace contains a message that the interaction does not allow at that point.
+     */
+    DIVERGED,
+    /**
+     * The trace could not be read or checked.
+     */
+    ERROR
+  }
+}